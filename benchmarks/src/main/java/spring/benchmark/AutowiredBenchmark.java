@@ -0,0 +1,59 @@
+package spring.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import spring.ApplicationContext;
+import spring.benchmark.beans.ConstructorWiredPrototypeBean;
+import spring.benchmark.beans.DependencyA;
+import spring.benchmark.beans.DependencyB;
+import spring.benchmark.beans.DependencyC;
+import spring.benchmark.beans.SingletonBean;
+import spring.benchmark.beans.WiredPrototypeBean;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link spring.annotation.Autowired} 自动注入的基准测试
+ * <br/>每次获取原型都会创建实例并注入四个单例，分别通过字段注入和构造器注入。
+ * @author GaoZiYang
+ * @since 2021年11月26日 10:31:42
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AutowiredBenchmark {
+    private ApplicationContext applicationContext;
+
+    @Setup
+    public void setUp() {
+        applicationContext = new ApplicationContext();
+        Beans.register(applicationContext, "singletonBean", SingletonBean.class, "singleton");
+        Beans.register(applicationContext, "dependencyA", DependencyA.class, "singleton");
+        Beans.register(applicationContext, "dependencyB", DependencyB.class, "singleton");
+        Beans.register(applicationContext, "dependencyC", DependencyC.class, "singleton");
+        Beans.register(applicationContext, "wiredPrototypeBean", WiredPrototypeBean.class, "prototype");
+        Beans.register(applicationContext, "constructorWiredPrototypeBean", ConstructorWiredPrototypeBean.class, "prototype");
+        applicationContext.refresh();
+    }
+
+    @Benchmark
+    public Object populatePrototype() {
+        return applicationContext.getBean("wiredPrototypeBean");
+    }
+
+    @Benchmark
+    public Object constructPrototype() {
+        return applicationContext.getBean("constructorWiredPrototypeBean");
+    }
+}
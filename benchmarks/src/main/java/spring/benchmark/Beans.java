@@ -0,0 +1,28 @@
+package spring.benchmark;
+
+import spring.ApplicationContext;
+import spring.BeanDefinition;
+
+/**
+ * 基准测试中手动注册BeanDefinition的工具，避免扫描的开销影响被测操作
+ * @author GaoZiYang
+ * @since 2021年11月26日 10:12:26
+ */
+final class Beans {
+    private Beans() {}
+
+    /**
+     * 注册BeanDefinition
+     * @param applicationContext Spring应用上下文
+     * @param beanName Spring Bean名称
+     * @param beanClass Spring Bean类
+     * @param scope 作用域
+     */
+    static void register(ApplicationContext applicationContext, String beanName, Class<?> beanClass, String scope) {
+        BeanDefinition beanDefinition = new BeanDefinition();
+        beanDefinition.setName(beanName);
+        beanDefinition.setCls(beanClass);
+        beanDefinition.setScope(scope);
+        applicationContext.registerBeanDefinition(beanDefinition);
+    }
+}
@@ -0,0 +1,35 @@
+package spring.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 基准测试入口
+ * <p>
+ *     支持JMH的全部命令行参数，未指定 <b>-rf</b> 和 <b>-rff</b> 时默认以JSON格式将结果写入 <b>jmh-result.json</b>，
+ *     便于与历史结果对比。例如：<code>java -jar target/benchmarks.jar GetBean -rff get-bean.json</code>
+ * </p>
+ * @author GaoZiYang
+ * @since 2021年11月26日 11:02:34
+ */
+public class BenchmarkRunner {
+    /**
+     * 默认的结果文件
+     */
+    private static final String DEFAULT_RESULT_FILE = "jmh-result.json";
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+        ChainedOptionsBuilder builder = new OptionsBuilder().parent(commandLineOptions);
+        if (!commandLineOptions.getResultFormat().hasValue()) {
+            builder.resultFormat(ResultFormatType.JSON);
+        }
+        if (!commandLineOptions.getResult().hasValue()) {
+            builder.result(DEFAULT_RESULT_FILE);
+        }
+        new Runner(builder.build()).run();
+    }
+}
@@ -0,0 +1,49 @@
+package spring.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import spring.ApplicationContext;
+import spring.benchmark.beans.CircularA;
+import spring.benchmark.beans.CircularB;
+import spring.benchmark.beans.CircularC;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 通过三级缓存解决循环引用的基准测试
+ * <br/>每次调用前都会创建一个只注册了BeanDefinition的新上下文，被测操作只包含刷新时创建相互依赖的单例。
+ * @author GaoZiYang
+ * @since 2021年11月26日 10:40:57
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CircularReferenceBenchmark {
+    private ApplicationContext applicationContext;
+
+    @Setup(Level.Invocation)
+    public void setUp() {
+        applicationContext = new ApplicationContext();
+        Beans.register(applicationContext, "circularA", CircularA.class, "singleton");
+        Beans.register(applicationContext, "circularB", CircularB.class, "singleton");
+        Beans.register(applicationContext, "circularC", CircularC.class, "singleton");
+    }
+
+    @Benchmark
+    public ApplicationContext resolveCircularReferences() {
+        applicationContext.refresh();
+        return applicationContext;
+    }
+}
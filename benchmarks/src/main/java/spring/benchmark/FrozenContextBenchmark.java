@@ -0,0 +1,53 @@
+package spring.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import spring.ApplicationContext;
+import spring.BeanRef;
+import spring.benchmark.beans.SingletonBean;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 冻结后的上下文中获取单例的基准测试，与 {@link GetBeanBenchmark#getSingletonByName()} 对比
+ * @author GaoZiYang
+ * @since 2021年11月30日 11:05:48
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FrozenContextBenchmark {
+    private ApplicationContext applicationContext;
+
+    private BeanRef<SingletonBean> singletonBeanRef;
+
+    @Setup
+    public void setUp() {
+        applicationContext = new ApplicationContext();
+        Beans.register(applicationContext, "singletonBean", SingletonBean.class, "singleton");
+        applicationContext.refresh();
+        applicationContext.freeze();
+        singletonBeanRef = applicationContext.getBeanRef("singletonBean", SingletonBean.class);
+    }
+
+    @Benchmark
+    public Object getSingletonByName() {
+        return applicationContext.getBean("singletonBean");
+    }
+
+    @Benchmark
+    public Object getSingletonByRef() {
+        return singletonBeanRef.get();
+    }
+}
@@ -0,0 +1,67 @@
+package spring.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import spring.ApplicationContext;
+import spring.benchmark.beans.PrototypeBean;
+import spring.benchmark.beans.SimpleService;
+import spring.benchmark.beans.SingletonBean;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按名称和按类型获取Spring Bean的基准测试
+ * @author GaoZiYang
+ * @since 2021年11月26日 10:20:15
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GetBeanBenchmark {
+    private ApplicationContext applicationContext;
+
+    @Setup
+    public void setUp() {
+        applicationContext = new ApplicationContext();
+        Beans.register(applicationContext, "singletonBean", SingletonBean.class, "singleton");
+        Beans.register(applicationContext, "prototypeBean", PrototypeBean.class, "prototype");
+        applicationContext.refresh();
+    }
+
+    @Benchmark
+    public Object getSingletonByName() {
+        return applicationContext.getBean("singletonBean");
+    }
+
+    @Benchmark
+    public Object getPrototypeByName() {
+        return applicationContext.getBean("prototypeBean");
+    }
+
+    /**
+     * 按类型查找，经过类型索引解析到唯一的候选BeanDefinition
+     */
+    @Benchmark
+    public Object getSingletonByType() {
+        return applicationContext.getBean(SingletonBean.class);
+    }
+
+    /**
+     * 按接口类型查找
+     */
+    @Benchmark
+    public Object getSingletonByInterface() {
+        return applicationContext.getBean(SimpleService.class);
+    }
+}
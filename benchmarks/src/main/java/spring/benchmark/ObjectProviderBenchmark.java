@@ -0,0 +1,54 @@
+package spring.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import spring.ApplicationContext;
+import spring.ObjectProvider;
+import spring.benchmark.beans.PrototypeBean;
+import spring.benchmark.beans.PrototypeProviderBean;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 通过注入的 {@link ObjectProvider} 获取原型的基准测试，与按名称获取原型对比
+ * @author GaoZiYang
+ * @since 2021年12月03日 11:26:09
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ObjectProviderBenchmark {
+    private ApplicationContext applicationContext;
+
+    private ObjectProvider<PrototypeBean> prototypeProvider;
+
+    @Setup
+    public void setUp() {
+        applicationContext = new ApplicationContext();
+        Beans.register(applicationContext, "prototypeBean", PrototypeBean.class, "prototype");
+        Beans.register(applicationContext, "prototypeProviderBean", PrototypeProviderBean.class, "singleton");
+        applicationContext.refresh();
+        prototypeProvider = ((PrototypeProviderBean) applicationContext.getBean("prototypeProviderBean")).getPrototypeBean();
+    }
+
+    @Benchmark
+    public Object getPrototypeByName() {
+        return applicationContext.getBean("prototypeBean");
+    }
+
+    @Benchmark
+    public Object getPrototypeByProvider() {
+        return prototypeProvider.get();
+    }
+}
@@ -0,0 +1,182 @@
+package spring.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import spring.ApplicationContext;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 上下文构建与组件扫描的基准测试
+ * <p>
+ *     在试验开始前生成并编译指定数量的 {@link spring.annotation.Component} 类，每次调用前都会创建一个新的隔离类加载器，
+ *     使每次测量都包含真实的类加载成本，即冷启动时的扫描耗时。
+ * </p>
+ * @author GaoZiYang
+ * @since 2021年11月26日 11:15:06
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 20)
+@Fork(1)
+public class ScanBenchmark {
+    /**
+     * 生成的组件类数量
+     */
+    @Param({"100", "1000", "10000"})
+    private int componentCount;
+
+    /**
+     * 生成代码的临时目录
+     */
+    private Path workDirectory;
+
+    /**
+     * 隔离类加载器的类路径，包含LightSpring以及生成的组件类
+     */
+    private URL[] classPath;
+
+    /**
+     * 生成的组件类所在的包
+     */
+    private String[] basePackages;
+
+    /**
+     * 当前调用使用的隔离类加载器
+     */
+    private URLClassLoader classLoader;
+
+    /**
+     * ApplicationContext(String...) 构造器
+     */
+    private MethodHandle contextConstructor;
+
+    /**
+     * ApplicationContext() 构造器
+     */
+    private MethodHandle emptyContextConstructor;
+
+    /**
+     * ApplicationContext#scan(String...) 方法
+     */
+    private MethodHandle scanMethod;
+
+    @Setup(Level.Trial)
+    public void generateComponents() throws IOException {
+        workDirectory = Files.createTempDirectory("lightspring-scan-benchmark");
+        String packageName = "generated.p" + componentCount;
+        Path sourceDirectory = workDirectory.resolve("src").resolve(packageName.replace('.', File.separatorChar));
+        Path classesDirectory = workDirectory.resolve("classes");
+        Files.createDirectories(sourceDirectory);
+        Files.createDirectories(classesDirectory);
+
+        List<String> compilerArguments = new ArrayList<>();
+        String lightSpringLocation = Paths.get(toUri(ApplicationContext.class.getProtectionDomain().getCodeSource().getLocation())).toString();
+        compilerArguments.add("-classpath");
+        compilerArguments.add(lightSpringLocation);
+        compilerArguments.add("-d");
+        compilerArguments.add(classesDirectory.toString());
+        compilerArguments.add("-proc:none");
+        for (int i = 0; i < componentCount; i++) {
+            Path sourceFile = sourceDirectory.resolve("Component" + i + ".java");
+            try (Writer writer = Files.newBufferedWriter(sourceFile, StandardCharsets.UTF_8)) {
+                writer.write("package " + packageName + ";\n\n"
+                        + "@spring.annotation.Component\n"
+                        + "public class Component" + i + " {\n"
+                        + "}\n");
+            }
+            compilerArguments.add(sourceFile.toString());
+        }
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new IllegalStateException("扫描基准测试需要在JDK中运行！");
+        }
+        if (compiler.run(null, null, null, compilerArguments.toArray(new String[0])) != 0) {
+            throw new IllegalStateException("编译生成的组件类失败！");
+        }
+
+        classPath = new URL[]{new File(lightSpringLocation).toURI().toURL(), classesDirectory.toUri().toURL()};
+        basePackages = new String[]{packageName};
+    }
+
+    @Setup(Level.Invocation)
+    public void createClassLoader() throws Exception {
+        // 父加载器为平台类加载器，保证LightSpring和组件类都由新的类加载器重新加载
+        classLoader = new URLClassLoader(classPath, ClassLoader.getSystemClassLoader().getParent());
+        Class<?> contextClass = classLoader.loadClass(ApplicationContext.class.getName());
+        MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+        contextConstructor = lookup.findConstructor(contextClass, MethodType.methodType(void.class, String[].class)).asFixedArity();
+        emptyContextConstructor = lookup.findConstructor(contextClass, MethodType.methodType(void.class));
+        scanMethod = lookup.findVirtual(contextClass, "scan", MethodType.methodType(void.class, String[].class)).asFixedArity();
+    }
+
+    @TearDown(Level.Invocation)
+    public void closeClassLoader() throws IOException {
+        classLoader.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteComponents() throws IOException {
+        try (Stream<Path> paths = Files.walk(workDirectory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    /**
+     * 构建上下文，包含扫描和刷新
+     */
+    @Benchmark
+    public Object constructContext() throws Throwable {
+        return contextConstructor.invoke(basePackages);
+    }
+
+    /**
+     * 只扫描组件，不创建实例
+     */
+    @Benchmark
+    public Object scan() throws Throwable {
+        Object applicationContext = emptyContextConstructor.invoke();
+        scanMethod.invoke(applicationContext, basePackages);
+        return applicationContext;
+    }
+
+    private static java.net.URI toUri(URL url) {
+        try {
+            return url.toURI();
+        } catch (java.net.URISyntaxException e) {
+            throw new IllegalStateException("无法解析类路径：" + url, e);
+        }
+    }
+}
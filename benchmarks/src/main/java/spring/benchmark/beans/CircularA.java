@@ -0,0 +1,13 @@
+package spring.benchmark.beans;
+
+import spring.annotation.Autowired;
+
+/**
+ * 基准测试中的循环依赖单例，与 {@link CircularB} 相互依赖
+ * @author GaoZiYang
+ * @since 2021年11月26日 10:08:12
+ */
+public class CircularA {
+    @Autowired
+    private CircularB circularB;
+}
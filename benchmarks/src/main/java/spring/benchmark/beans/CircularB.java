@@ -0,0 +1,16 @@
+package spring.benchmark.beans;
+
+import spring.annotation.Autowired;
+
+/**
+ * 基准测试中的循环依赖单例，与 {@link CircularA} 相互依赖，同时依赖 {@link CircularC}
+ * @author GaoZiYang
+ * @since 2021年11月26日 10:08:40
+ */
+public class CircularB {
+    @Autowired
+    private CircularA circularA;
+
+    @Autowired
+    private CircularC circularC;
+}
@@ -0,0 +1,13 @@
+package spring.benchmark.beans;
+
+import spring.annotation.Autowired;
+
+/**
+ * 基准测试中的循环依赖单例，与 {@link CircularA} 形成更长的环
+ * @author GaoZiYang
+ * @since 2021年11月26日 10:09:03
+ */
+public class CircularC {
+    @Autowired
+    private CircularA circularA;
+}
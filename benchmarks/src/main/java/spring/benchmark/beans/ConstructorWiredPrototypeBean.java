@@ -0,0 +1,33 @@
+package spring.benchmark.beans;
+
+import spring.annotation.Autowired;
+
+/**
+ * 基准测试使用的原型，通过构造器注入多个单例并保存在final字段中
+ * @author GaoZiYang
+ * @since 2021年12月01日 15:12:07
+ */
+public class ConstructorWiredPrototypeBean {
+    private final SingletonBean singletonBean;
+
+    private final DependencyA dependencyA;
+
+    private final DependencyB dependencyB;
+
+    private final DependencyC dependencyC;
+
+    @Autowired
+    public ConstructorWiredPrototypeBean(@Autowired("singletonBean") SingletonBean singletonBean,
+                                         @Autowired("dependencyA") DependencyA dependencyA,
+                                         @Autowired("dependencyB") DependencyB dependencyB,
+                                         @Autowired("dependencyC") DependencyC dependencyC) {
+        this.singletonBean = singletonBean;
+        this.dependencyA = dependencyA;
+        this.dependencyB = dependencyB;
+        this.dependencyC = dependencyC;
+    }
+
+    public SingletonBean getSingletonBean() {
+        return singletonBean;
+    }
+}
@@ -0,0 +1,9 @@
+package spring.benchmark.beans;
+
+/**
+ * 基准测试中被自动注入的单例
+ * @author GaoZiYang
+ * @since 2021年11月26日 10:06:30
+ */
+public class DependencyB {
+}
@@ -0,0 +1,9 @@
+package spring.benchmark.beans;
+
+/**
+ * 基准测试使用的原型，没有任何依赖
+ * @author GaoZiYang
+ * @since 2021年11月26日 10:03:25
+ */
+public class PrototypeBean {
+}
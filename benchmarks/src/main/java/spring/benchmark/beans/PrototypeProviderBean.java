@@ -0,0 +1,18 @@
+package spring.benchmark.beans;
+
+import spring.ObjectProvider;
+import spring.annotation.Autowired;
+
+/**
+ * 基准测试使用的单例，通过 {@link ObjectProvider} 获取原型
+ * @author GaoZiYang
+ * @since 2021年12月03日 11:20:44
+ */
+public class PrototypeProviderBean {
+    @Autowired
+    private ObjectProvider<PrototypeBean> prototypeBean;
+
+    public ObjectProvider<PrototypeBean> getPrototypeBean() {
+        return prototypeBean;
+    }
+}
@@ -0,0 +1,10 @@
+package spring.benchmark.beans;
+
+/**
+ * 基准测试中按类型查找使用的接口
+ * @author GaoZiYang
+ * @since 2021年11月26日 10:01:37
+ */
+public interface SimpleService {
+    int value();
+}
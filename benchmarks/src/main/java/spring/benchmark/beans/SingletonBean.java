@@ -0,0 +1,13 @@
+package spring.benchmark.beans;
+
+/**
+ * 基准测试使用的单例
+ * @author GaoZiYang
+ * @since 2021年11月26日 10:02:11
+ */
+public class SingletonBean implements SimpleService {
+    @Override
+    public int value() {
+        return 1;
+    }
+}
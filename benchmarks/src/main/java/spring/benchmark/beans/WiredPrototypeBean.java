@@ -0,0 +1,26 @@
+package spring.benchmark.beans;
+
+import spring.annotation.Autowired;
+
+/**
+ * 基准测试使用的原型，包含多个需要自动注入的单例字段
+ * @author GaoZiYang
+ * @since 2021年11月26日 10:05:48
+ */
+public class WiredPrototypeBean {
+    @Autowired
+    private SingletonBean singletonBean;
+
+    @Autowired
+    private DependencyA dependencyA;
+
+    @Autowired
+    private DependencyB dependencyB;
+
+    @Autowired
+    private DependencyC dependencyC;
+
+    public SingletonBean getSingletonBean() {
+        return singletonBean;
+    }
+}
@@ -0,0 +1,194 @@
+package spring.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * 组件索引注解处理器
+ * <p>
+ *     在编译期找出所有被 <b>spring.annotation.Component</b> 声明的类，并将其Spring Bean名称、类名以及作用域写入
+ *     <b>META-INF/lightspring.components</b> 索引文件，运行时读取该索引即可跳过类路径扫描。
+ * </p>
+ * <p>
+ *     索引文件每行对应一个组件，格式为：<code>Spring Bean名称\t类的二进制名称\t作用域</code>。
+ * </p>
+ * <p>
+ *     增量编译时只有部分源文件参与编译，因此写入前会先读取输出目录中已有的索引并与本次收集的组件合并，
+ *     已有索引中不再存在或不再被 <b>spring.annotation.Component</b> 声明的类会被移除。
+ * </p>
+ * @author GaoZiYang
+ * @since 2021年11月15日 14:08:26
+ */
+// 声明支持全部注解，使没有任何组件的增量编译也会调用处理器，从而移除已经不再是组件的类
+@SupportedAnnotationTypes("*")
+public class ComponentIndexProcessor extends AbstractProcessor {
+    /**
+     * 组件注解的全限定名
+     */
+    static final String COMPONENT_ANNOTATION = "spring.annotation.Component";
+    /**
+     * 作用域注解的全限定名
+     */
+    static final String SCOPE_ANNOTATION = "spring.annotation.Scope";
+    /**
+     * 组件索引文件的位置
+     */
+    static final String COMPONENT_INDEX_LOCATION = "META-INF/lightspring.components";
+
+    /**
+     * 收集到的组件，key为类名，value为索引行；使用TreeMap保证索引内容稳定
+     */
+    private final Map<String, String> components = new TreeMap<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        TypeElement componentType = processingEnv.getElementUtils().getTypeElement(COMPONENT_ANNOTATION);
+        if (componentType != null) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(componentType)) {
+                if (element.getKind() == ElementKind.CLASS) {
+                    collect((TypeElement) element);
+                }
+            }
+        }
+        if (roundEnv.processingOver()) {
+            writeIndex();
+        }
+        return false;
+    }
+
+    /**
+     * 收集组件信息
+     * @param typeElement 组件类
+     */
+    private void collect(TypeElement typeElement) {
+        String className = processingEnv.getElementUtils().getBinaryName(typeElement).toString();
+        String beanName = getAnnotationValue(typeElement, COMPONENT_ANNOTATION, "");
+        // Component组件如果未指定名称，默认为首字母小写的类名
+        if (beanName.length() == 0) {
+            char[] charArray = typeElement.getSimpleName().toString().toCharArray();
+            if (charArray[0] >= 65 && charArray[0] <= 90) {
+                charArray[0] += 32;
+            }
+            beanName = String.valueOf(charArray);
+        }
+        String scope = getAnnotationValue(typeElement, SCOPE_ANNOTATION, "singleton");
+        components.put(className, beanName + "\t" + className + "\t" + scope);
+    }
+
+    /**
+     * 获取类上指定注解的value属性
+     * @param typeElement 类
+     * @param annotationName 注解的全限定名
+     * @param defaultValue 未声明注解或未指定value时的默认值
+     * @return value属性的值
+     */
+    private String getAnnotationValue(TypeElement typeElement, String annotationName, String defaultValue) {
+        for (AnnotationMirror annotationMirror : typeElement.getAnnotationMirrors()) {
+            TypeElement annotationType = (TypeElement) annotationMirror.getAnnotationType().asElement();
+            if (!annotationType.getQualifiedName().contentEquals(annotationName)) {
+                continue;
+            }
+            for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : annotationMirror.getElementValues().entrySet()) {
+                if (entry.getKey().getSimpleName().contentEquals("value")) {
+                    return String.valueOf(entry.getValue().getValue());
+                }
+            }
+        }
+        return defaultValue;
+    }
+
+    /**
+     * 读取输出目录中已有的组件索引，只保留本次编译没有处理、并且仍然是组件的类
+     * @return 需要保留的索引行，key为类名；不存在已有索引时返回null
+     */
+    private Map<String, String> readExistingIndex() {
+        Map<String, String> existing = new TreeMap<>();
+        try {
+            FileObject fileObject = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", COMPONENT_INDEX_LOCATION);
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(fileObject.openInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String[] parts = line.trim().split("\t");
+                    if (parts.length != 3 || components.containsKey(parts[1])) {
+                        continue;
+                    }
+                    // 嵌套类的二进制名称以“$”分隔，查找类型时需要使用规范名称
+                    TypeElement typeElement = processingEnv.getElementUtils().getTypeElement(parts[1].replace('$', '.'));
+                    if (typeElement != null && hasAnnotation(typeElement, COMPONENT_ANNOTATION)) {
+                        existing.put(parts[1], line.trim());
+                    }
+                }
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            // 没有已有索引（首次编译或全量编译）
+            return null;
+        }
+        return existing;
+    }
+
+    /**
+     * 判断类上是否声明了指定注解
+     * @param typeElement 类
+     * @param annotationName 注解的全限定名
+     * @return 如果声明了则返回true
+     */
+    private boolean hasAnnotation(TypeElement typeElement, String annotationName) {
+        for (AnnotationMirror annotationMirror : typeElement.getAnnotationMirrors()) {
+            TypeElement annotationType = (TypeElement) annotationMirror.getAnnotationType().asElement();
+            if (annotationType.getQualifiedName().contentEquals(annotationName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 合并已有索引后写入组件索引文件
+     */
+    private void writeIndex() {
+        Map<String, String> existing = readExistingIndex();
+        if (existing == null && components.isEmpty()) {
+            return;
+        }
+        Map<String, String> merged = new TreeMap<>(components);
+        if (existing != null) {
+            merged.putAll(existing);
+        }
+        try {
+            FileObject fileObject = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", COMPONENT_INDEX_LOCATION);
+            try (Writer writer = new OutputStreamWriter(fileObject.openOutputStream(), StandardCharsets.UTF_8)) {
+                for (String line : merged.values()) {
+                    writer.write(line);
+                    writer.write('\n');
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "无法写入组件索引：" + e.getMessage());
+        }
+    }
+}
@@ -1,17 +1,44 @@
 package spring;
 
-import spring.annotation.Autowired;
 import spring.annotation.Component;
 import spring.annotation.ComponentScan;
+import spring.annotation.EnableAspectJAutoProxy;
+import spring.annotation.Lazy;
+import spring.annotation.Order;
+import spring.annotation.Pooled;
 import spring.annotation.Scope;
+import spring.aop.AspectJAutoProxyCreator;
+import spring.event.ApplicationEventMulticaster;
+import spring.event.ApplicationListener;
+import spring.metrics.BeanMetrics;
+import spring.metrics.SingletonCache;
+import spring.metrics.StartupPhase;
+import spring.metrics.StartupTrace;
 
-import java.io.File;
-import java.lang.reflect.Constructor;
-import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Array;
+import java.lang.reflect.Proxy;
+import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Spring应用上下文
@@ -19,11 +46,127 @@ import java.util.concurrent.ConcurrentHashMap;
  * @since 2021年11月08日 17:32:48
  */
 @SuppressWarnings("all")
-public class ApplicationContext {
+public class ApplicationContext implements AutoCloseable {
     /**
      * 是否允许循环引用
      */
     private boolean allowCircularReferences = true;
+    /**
+     * 运行时指标，为null时表示未开启指标收集，此时热点路径上不会有任何额外的对象分配
+     */
+    private volatile BeanMetrics metrics;
+    /**
+     * 是否通过读取字节码判断组件，开启后只有被 {@link spring.annotation.Component} 声明的类才会被加载
+     */
+    private boolean metadataReadingEnabled = true;
+    /**
+     * 是否使用Fork/Join并行扫描组件
+     */
+    private boolean parallelScanEnabled = false;
+    /**
+     * 是否根据依赖图并行创建单例实例
+     */
+    private boolean parallelRefreshEnabled = false;
+    /**
+     * 并行创建单例实例时使用的执行器
+     */
+    private Executor refreshExecutor = ForkJoinPool.commonPool();
+    /**
+     * 是否优先使用编译期生成的组件索引（META-INF/lightspring.components）
+     */
+    private boolean componentIndexEnabled = true;
+    /**
+     * 组件索引，类路径中没有索引文件时为null
+     */
+    private ComponentIndex componentIndex;
+    /**
+     * 是否已经读取过组件索引
+     */
+    private boolean componentIndexLoaded = false;
+    /**
+     * 上下文快照文件，为null时不使用快照，默认取自系统属性 {@value #SNAPSHOT_PATH_PROPERTY}
+     */
+    private Path snapshotPath = resolveDefaultSnapshotPath();
+    /**
+     * 上下文快照，快照文件不存在或无效时为null
+     */
+    private ContextSnapshot contextSnapshot;
+    /**
+     * 是否已经读取过上下文快照
+     */
+    private boolean contextSnapshotLoaded = false;
+    /**
+     * 从快照中还原的扫描，key为扫描路径
+     */
+    private final Map<String, ContextSnapshot.Section> restoredSnapshotSections = new LinkedHashMap<>();
+    /**
+     * 实际执行过的扫描所注册的Spring Bean名称，key为扫描路径，刷新后写入快照
+     */
+    private final Map<String, Set<String>> scannedBeanNames = new LinkedHashMap<>();
+    /**
+     * 当前扫描注册的Spring Bean名称，不需要写入快照时为null
+     */
+    private Set<String> scanningBeanNames;
+    /**
+     * 当前刷新中的异步初始化，不在刷新中时为null
+     */
+    private volatile AsyncInitialization asyncInitialization;
+    /**
+     * 异步初始化的超时时间，从刷新开始计算
+     */
+    private Duration asyncInitializationTimeout = Duration.ofMinutes(5);
+    /**
+     * 事件分发器
+     */
+    private final ApplicationEventMulticaster eventMulticaster = new ApplicationEventMulticaster(this::getBean);
+    /**
+     * 冻结后的注册表，未冻结时为null
+     */
+    private volatile FrozenBeanRegistry frozenBeanRegistry;
+    /**
+     * 是否在刷新后监听扫描路径并热重载变化的类
+     */
+    private boolean hotReloadEnabled = false;
+    /**
+     * 热重载时合并变化的静默期
+     */
+    private Duration hotReloadQuietPeriod = Duration.ofMillis(300);
+    /**
+     * 扫描过的所有扫描路径
+     */
+    private final Set<String> scannedBasePackages = new LinkedHashSet<>();
+    /**
+     * 扫描路径的监听器，没有开启热重载时为null
+     */
+    private ClassPathWatcher classPathWatcher;
+    /**
+     * 最近一次热重载使用的类加载器，下一次热重载的类加载器以它为父类加载器
+     */
+    private ClassLoader hotReloadClassLoader = ApplicationContext.class.getClassLoader();
+    /**
+     * 关闭容器时每个Spring Bean的销毁超时时间
+     */
+    private Duration destroyTimeout = Duration.ofSeconds(30);
+    /**
+     * 容器是否已经关闭
+     */
+    private final AtomicBoolean closed = new AtomicBoolean();
+    /**
+     * 注册的JVM关闭钩子，没有注册时为null
+     */
+    private Thread shutdownHook;
+    /**
+     * 刷新完成后写入启动跟踪的目录，为null时不写入，默认取自系统属性 {@value #STARTUP_TRACE_PROPERTY}
+     */
+    private Path startupTraceDirectory = resolveDefaultStartupTraceDirectory();
+    /**
+     * 正在记录的启动跟踪，没有开启或刷新完成后为null
+     */
+    private volatile StartupTrace startupTrace = startupTraceDirectory == null ? null : new StartupTrace();
+    /**
+     * 最近一次完成的启动跟踪
+     */
+    private StartupTrace completedStartupTrace;
 
     /**
      * Spring Bean单例池（一级缓存）
@@ -36,7 +179,7 @@ public class ApplicationContext {
     /**
      * 当前正在创建中的单例实例
      */
-    private final Set<String> singletonsCurrentlyInCreation = new HashSet<>();
+    private final Set<String> singletonsCurrentlyInCreation = ConcurrentHashMap.newKeySet();
     /**
      * 提前的单例池（二级缓存）
      */
@@ -45,29 +188,87 @@ public class ApplicationContext {
      * 对象工厂集合（三级缓存）
      */
     private final Map<String, ObjectFactory<?>> singletonFactories = new ConcurrentHashMap<>();
+    /**
+     * 每个单例的创建锁
+     */
+    private final Map<String, SingletonCreationLock> singletonCreationLocks = new ConcurrentHashMap<>(256);
+    /**
+     * 每个线程正在等待的创建锁，用于检测跨线程的循环依赖导致的死锁
+     */
+    private final Map<Thread, SingletonCreationLock> waitingSingletonCreationLocks = new ConcurrentHashMap<>();
     /**
      * 后置处理器集合
      */
-    private final List<BeanPostProcessor> beanPostProcessors = new ArrayList<>();
-
+    private final CopyOnWriteArrayList<BeanPostProcessor> beanPostProcessors = new CopyOnWriteArrayList<>();
+    /**
+     * 后置处理器集合的版本号，每注册一个后置处理器加一，用于使缓存的后置处理器链失效
+     */
+    private final AtomicInteger beanPostProcessorsVersion = new AtomicInteger();
+    /**
+     * 类型索引，记录每个类、父类以及接口（{@link Object} 除外）所对应的候选BeanDefinition，读写都需要在该对象上同步
+     */
+    private final Map<Class<?>, List<BeanDefinition>> typeIndex = new HashMap<>(256);
+    /**
+     * 从类型索引中发布的不可修改的候选BeanDefinition，查找时按类型惰性生成，注册或移除BeanDefinition时只移除受影响的类型
+     */
+    private final Map<Class<?>, List<BeanDefinition>> publishedCandidates = new ConcurrentHashMap<>(256);
+    /**
+     * 按照排序值和名称排好序的候选BeanDefinition缓存，注册或移除BeanDefinition时清空
+     */
+    private final Map<Class<?>, BeanDefinition[]> orderedCandidatesCache = new ConcurrentHashMap<>();
+    /**
+     * 集合注入的结果缓存，只缓存候选全部为单例的元素类型，注册或移除BeanDefinition以及移除单例时清空
+     */
+    private final Map<Class<?>, OrderedBeans> orderedSingletonsCache = new ConcurrentHashMap<>();
+    /**
+     * Spring Bean类的实例化及注入元数据缓存
+     */
+    private final Map<Class<?>, InjectionMetadata> injectionMetadataCache = new ConcurrentHashMap<>(256);
+    /**
+     * 延迟初始化单例的延迟解析代理，key为Spring Bean名称，同一个Spring Bean的同一个接口的所有注入点共享一个代理
+     */
+    private final Map<String, Map<Class<?>, Object>> lazyResolutionProxies = new ConcurrentHashMap<>();
+    /**
+     * 池化作用域的对象池
+     */
+    private final Map<String, BeanPool> beanPools = new ConcurrentHashMap<>();
     /**
-     * 类路径解析的前缀
+     * 已注册的自定义作用域
      */
-    private static final String RESOLVED_CLASS_PATH_PREFIX = "classes\\";
+    private final Map<String, BeanScope> scopes = new ConcurrentHashMap<>();
+
     /**
      * 类路径解析的后缀
      */
     private static final String RESOLVED_CLASS_PATH_SUFFIX = ".class";
+    /**
+     * 无参构造器使用的空参数数组
+     */
+    private static final Object[] NO_ARGUMENTS = new Object[0];
+    /**
+     * 指定上下文快照文件的系统属性
+     */
+    public static final String SNAPSHOT_PATH_PROPERTY = "lightspring.snapshot";
+    /**
+     * 指定启动跟踪输出目录的系统属性，指定后会记录启动跟踪并在刷新完成后写入该目录
+     */
+    public static final String STARTUP_TRACE_PROPERTY = "lightspring.startupTrace";
 
-    public ApplicationContext() {}
+    public ApplicationContext() {
+        // 注册内置的作用域
+        registerScope("thread", new ThreadScope());
+        registerScope("task", new TaskScope());
+    }
 
     public ApplicationContext(Class<?> configClass) {
+        this();
         Objects.requireNonNull(configClass, "配置类不能为空！");
         scan(configClass);
         refresh();
     }
 
     public ApplicationContext(String...basePackages) {
+        this();
         Objects.requireNonNull(basePackages, "扫描路径不能为空！");
         scan(basePackages);
         refresh();
@@ -86,228 +287,1485 @@ public class ApplicationContext {
         // 获取扫描路径
         String[] basePackages = componentScanAnnotation.value();
         scan(basePackages);
+        // 开启AOP
+        if (cls.isAnnotationPresent(EnableAspectJAutoProxy.class)) {
+            addBeanPostProcessor(new AspectJAutoProxyCreator(this));
+        }
     }
 
     /**
      * 扫描指定路径下的Spring Bean类
+     * <br/>如果设置了上下文快照文件并且快照仍然有效，则直接从快照中还原扫描结果。
      * @param basePackages 扫描路径
      */
     public void scan(String...basePackages) {
-        for (String basePackage : basePackages) {
-            String resolvedScanPath = basePackage.replaceAll("\\.+", "/");
-            URL url = ApplicationContext.class.getClassLoader().getResource(resolvedScanPath);
-            Objects.requireNonNull(url, "未找到此路径！");
-            // 获取此抽象路径文件
-            String fileName = url.getFile();
-            File file = new File(fileName);
+        Collections.addAll(scannedBasePackages, basePackages);
+        StartupTrace trace = startupTrace;
+        if (trace == null) {
+            restoreOrScan(basePackages);
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            restoreOrScan(basePackages);
+        } finally {
+            trace.recordScan(basePackages, start, System.nanoTime());
+        }
+    }
 
-            // 递归扫描指定的抽象路径
-            recurseScan(file);
+    /**
+     * 如果上下文快照有效则从快照中还原扫描结果，否则扫描指定路径
+     * @param basePackages 扫描路径
+     */
+    private void restoreOrScan(String...basePackages) {
+        if (snapshotPath == null) {
+            doScan(basePackages);
+            return;
+        }
+        // 快照有效时直接还原，否则正常扫描并记录扫描结果，刷新后写入快照
+        if (restoreFromSnapshot(basePackages)) {
+            return;
+        }
+        Set<String> beanNames = new LinkedHashSet<>();
+        scanningBeanNames = beanNames;
+        try {
+            doScan(basePackages);
+        } finally {
+            scanningBeanNames = null;
         }
+        scannedBeanNames.put(ContextSnapshot.key(basePackages), beanNames);
     }
 
     /**
-     * 递归扫描指定的抽象路径，该路径可能为文件也可能为目录
-     * @param file 抽象路径
-     */
-    private void recurseScan(File file) {
-        if (file.isDirectory()) {
-            File[] files = file.listFiles();
-            if (files != null) {
-                for (File f : files) {
-                    recurseScan(f);
+     * 扫描指定路径下的Spring Bean类
+     * @param basePackages 扫描路径
+     */
+    private void doScan(String...basePackages) {
+        // 如果类路径中存在编译期生成的组件索引，则被索引覆盖的目录或jar包直接读取索引，其余的仍然遍历文件
+        ComponentIndex index = componentIndexEnabled ? getComponentIndex() : null;
+        ClassLoader classLoader = ApplicationContext.class.getClassLoader();
+        List<ClassPathRoot> roots = new ArrayList<>();
+        try {
+            for (String basePackage : basePackages) {
+                boolean indexed = false;
+                for (URL url : ClassPathRoot.findResources(classLoader, basePackage)) {
+                    if (index != null && index.covers(url)) {
+                        indexed = true;
+                    } else {
+                        roots.add(ClassPathRoot.open(url, basePackage));
+                    }
+                }
+                if (indexed) {
+                    scanComponentIndex(index, basePackage);
+                }
+            }
+            if (parallelScanEnabled) {
+                parallelScan(roots);
+            } else {
+                for (ClassPathRoot root : roots) {
+                    // 递归扫描指定的抽象路径
+                    recurseScan(root, root.getPath());
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("扫描路径失败！", e);
+        } finally {
+            for (ClassPathRoot root : roots) {
+                try {
+                    root.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
                 }
             }
-        } else {
-            buildBeanDefinition(file);
         }
     }
 
     /**
-     * 构建BeanDefinition
-     * @param file 抽象路径
-     */
-    private void buildBeanDefinition(File file) {
-        String name = file.getName();
-        if (name.endsWith(RESOLVED_CLASS_PATH_SUFFIX)) {
-            String absolutePath = file.getAbsolutePath();
-            name = absolutePath.substring(absolutePath.indexOf(RESOLVED_CLASS_PATH_PREFIX) + RESOLVED_CLASS_PATH_PREFIX.length(), absolutePath.lastIndexOf(RESOLVED_CLASS_PATH_SUFFIX));
-            String solvedName = name.replaceAll("\\\\+", ".");
-            try {
-                Class<?> beanClass = ApplicationContext.class.getClassLoader().loadClass(solvedName);
-                // 检查是否为组件，如果为组件注解表示其为Spring Bean
-                if (beanClass.isAnnotationPresent(Component.class)) {
-                    // 判断当前Spring Bean是单例还是原型
-                    Component componentAnnotation = beanClass.getDeclaredAnnotation(Component.class);
-                    String beanName = componentAnnotation.value();
-
-                    // Component组件如果未指定名称，默认为首字母小写的类名
-                    if (beanName.length() == 0) {
-                        String className = beanClass.getSimpleName();
-                        char[] charArray = className.toCharArray();
-                        // 如果首字母为大写则将其转换为小写
-                        if (charArray[0] >= 65 && charArray[0] <= 90) {
-                            charArray[0] += 32;
-                        }
-                        beanName = String.valueOf(charArray);
-                    }
+     * 根据上下文快照还原一次扫描的结果
+     * <p>
+     *     只有快照中存在该扫描路径、且扫描路径下的类没有变化时才会还原，此时不会读取或解析任何class文件，
+     *     Spring Bean类只被加载而不会被初始化，注入元数据直接使用快照中解析好的字段和Spring Bean名称。
+     * </p>
+     * @param basePackages 扫描路径
+     * @return 如果成功还原则返回true，否则需要正常扫描
+     */
+    private boolean restoreFromSnapshot(String...basePackages) {
+        ContextSnapshot snapshot = getContextSnapshot();
+        if (snapshot == null) {
+            return false;
+        }
+        ContextSnapshot.Section section = snapshot.getSection(basePackages);
+        ClassLoader classLoader = ApplicationContext.class.getClassLoader();
+        if (section == null || !section.isValid(classLoader)) {
+            return false;
+        }
 
-                    // 创建Spring Bean定义
-                    BeanDefinition beanDefinition = new BeanDefinition();
-                    beanDefinition.setCls(beanClass);
-                    beanDefinition.setName(beanName);
-                    if (beanClass.isAnnotationPresent(Scope.class)) {
-                        Scope scopeAnnotation = beanClass.getDeclaredAnnotation(Scope.class);
-                        beanDefinition.setScope(scopeAnnotation.value());
-                    } else {
-                        beanDefinition.setScope("singleton");
+        List<BeanDefinition> beanDefinitions = new ArrayList<>(section.getBeans().length);
+        Map<Class<?>, InjectionMetadata> injectionMetadata = new HashMap<>();
+        try {
+            for (ContextSnapshot.BeanSnapshot bean : section.getBeans()) {
+                Class<?> beanClass = classLoader.loadClass(bean.getClassName());
+                beanDefinitions.add(bean.toBeanDefinition(beanClass));
+                injectionMetadata.put(beanClass, InjectionMetadata.forSnapshot(beanClass, bean.getMembers()));
+            }
+        } catch (ClassNotFoundException | NoSuchFieldException | NoSuchMethodException | IllegalAccessException e) {
+            return false;
+        }
+        for (BeanDefinition beanDefinition : beanDefinitions) {
+            registerScannedBeanDefinition(beanDefinition);
+        }
+        for (Map.Entry<Class<?>, InjectionMetadata> entry : injectionMetadata.entrySet()) {
+            injectionMetadataCache.putIfAbsent(entry.getKey(), entry.getValue());
+        }
+        restoredSnapshotSections.put(ContextSnapshot.key(basePackages), section);
+        return true;
+    }
+
+    /**
+     * 获取上下文快照，只会在第一次调用时读取快照文件
+     * @return 上下文快照，快照文件不存在或无效时返回null
+     */
+    private ContextSnapshot getContextSnapshot() {
+        if (!contextSnapshotLoaded) {
+            contextSnapshot = ContextSnapshot.read(snapshotPath);
+            contextSnapshotLoaded = true;
+        }
+        return contextSnapshot;
+    }
+
+    /**
+     * 将扫描结果和注入关系写入上下文快照，快照中只保留本次上下文用到的扫描路径
+     */
+    private void writeContextSnapshot() {
+        ClassLoader classLoader = ApplicationContext.class.getClassLoader();
+        Map<String, ContextSnapshot.Section> sections = new LinkedHashMap<>(restoredSnapshotSections);
+        try {
+            for (Map.Entry<String, Set<String>> entry : scannedBeanNames.entrySet()) {
+                List<ContextSnapshot.BeanSnapshot> beans = new ArrayList<>(entry.getValue().size());
+                for (String beanName : entry.getValue()) {
+                    BeanDefinition beanDefinition = beanDefinitionMap.get(beanName);
+                    if (beanDefinition == null) {
+                        continue;
+                    }
+                    InjectionMetadata.InjectedMember[] injectedMembers = getInjectionMetadata(beanDefinition.getCls()).getInjectedMembers();
+                    ContextSnapshot.MemberSnapshot[] members = new ContextSnapshot.MemberSnapshot[injectedMembers.length];
+                    for (int i = 0; i < injectedMembers.length; i++) {
+                        members[i] = new ContextSnapshot.MemberSnapshot(injectedMembers[i].getName(),
+                                injectedMembers[i].getParameterType(), injectedMembers[i].getBeanName(), injectedMembers[i].isRequired(),
+                                injectedMembers[i].isMultiple());
                     }
-                    beanDefinitionMap.put(beanName, beanDefinition);
+                    beans.add(new ContextSnapshot.BeanSnapshot(beanDefinition,
+                            ContextSnapshot.checksum(classLoader, beanDefinition.getCls().getName()), members));
                 }
-            } catch (ClassNotFoundException e) {
-                e.printStackTrace();
+                String[] basePackages = entry.getKey().split(",");
+                sections.put(entry.getKey(), new ContextSnapshot.Section(basePackages,
+                        ContextSnapshot.fingerprint(classLoader, basePackages), beans.toArray(new ContextSnapshot.BeanSnapshot[0])));
             }
+            new ContextSnapshot(sections).write(snapshotPath);
+            restoredSnapshotSections.putAll(sections);
+            scannedBeanNames.clear();
+        } catch (IOException e) {
+            // 写入快照失败不影响上下文的使用，下次启动时重新扫描
+            e.printStackTrace();
         }
     }
 
     /**
-     * 根据 BeanDefinition 初始化组件实例。
-     * <br/>Spring Bean对象分为 <b>单例（Singleton）</b> 和 <b>原型（Prototype）</b> 两种，默认为单例，单例对象会被放入 <b>单例池</b> 中，
-     * 而原型对象则是在使用是创建。
+     * 读取系统属性中指定的上下文快照文件
+     * @return 快照文件，没有指定时返回null
      */
-    public void refresh() {
-        finishInitialization();
+    private static Path resolveDefaultSnapshotPath() {
+        String path = System.getProperty(SNAPSHOT_PATH_PROPERTY);
+        return path == null || path.trim().isEmpty() ? null : Paths.get(path.trim());
     }
 
     /**
-     * 完成BeanDefinition的初始化工作
+     * 获取组件索引，只会在第一次调用时读取索引文件
+     * @return 组件索引，如果类路径中没有索引文件则返回null
      */
-    private void finishInitialization() {
-       for (Map.Entry<String, BeanDefinition> entry : beanDefinitionMap.entrySet()) {
-           getBean(entry.getKey());
-       }
+    private ComponentIndex getComponentIndex() {
+        if (!componentIndexLoaded) {
+            componentIndex = ComponentIndex.load(ApplicationContext.class.getClassLoader());
+            componentIndexLoaded = true;
+        }
+        return componentIndex;
     }
 
     /**
-     * 根据Spring Bean名称获取实例，可用于单例和实例对象
-     * @param cls Spring Bean类型
-     * @param beanName Spring Bean名称
-     * @return Bean对象
+     * 根据组件索引注册指定路径下的Spring Bean类，只有索引中的类会被加载
+     * <br/>只有包所在的目录或jar包被索引覆盖时才会调用，未被覆盖的部分由 {@link #doScan(String...)} 继续扫描。
+     * @param index 组件索引
+     * @param basePackages 扫描路径
      */
-    private Object doGetBean(Class<?> cls, String beanName) {
-        Objects.requireNonNull(beanName);
-
-        Object bean = null;
-        boolean isMultiple = false;
-        // 如果指定了类型，则先根据类型进行查找
-        if (cls != null) {
-            for (Map.Entry<String, BeanDefinition> entry : beanDefinitionMap.entrySet()) {
-                BeanDefinition beanDefinition = entry.getValue();
-                if (cls.isAssignableFrom(beanDefinition.getCls())) {
-                    if (bean == null) {
-                        bean = doGetBean(cls, beanDefinition.getName());
-                    } else {
-                        isMultiple = true;
-                        break;
+    private void scanComponentIndex(ComponentIndex index, String...basePackages) {
+        for (String basePackage : basePackages) {
+            for (ClassMetadata metadata : index.getCandidateComponents(basePackage)) {
+                StartupTrace trace = startupTrace;
+                long start = trace == null ? 0 : System.nanoTime();
+                BeanDefinition beanDefinition = buildBeanDefinition(metadata.getClassName(), metadata);
+                if (beanDefinition != null) {
+                    if (trace != null) {
+                        trace.recordBeanScan(beanDefinition.getName(), start, System.nanoTime());
                     }
+                    registerScannedBeanDefinition(beanDefinition);
                 }
             }
         }
+    }
 
-        // 根据名称进行查找
-        if (cls == null || isMultiple || bean == null) {
-            if (beanDefinitionMap.containsKey(beanName)) {
-                BeanDefinition beanDefinition = beanDefinitionMap.get(beanName);
-                if (beanDefinition.isSingleton()) {
-                    bean = getSingleton(beanDefinition.getName());
-                } else {
-                    return createBean(beanDefinition);
-                }
+    /**
+     * 递归扫描指定的抽象路径，该路径可能为文件也可能为目录
+     * @param root 扫描根路径
+     * @param path 抽象路径
+     */
+    private void recurseScan(ClassPathRoot root, Path path) {
+        if (Files.isDirectory(path)) {
+            for (Path p : listDirectory(path)) {
+                recurseScan(root, p);
+            }
+        } else {
+            BeanDefinition beanDefinition = buildBeanDefinition(root, path);
+            if (beanDefinition != null) {
+                registerScannedBeanDefinition(beanDefinition);
             }
         }
+    }
 
-        // 如果根据名称也无法找到，则进行创建
-        if (bean == null) {
-            bean = getSingleton(beanName, () -> createBean(beanDefinitionMap.get(beanName)));
+    /**
+     * 使用Fork/Join并行扫描多个抽象路径
+     * <p>
+     *     每个扫描路径以及其中的每个子目录都会拆分为一个任务，各任务只负责构建BeanDefinition，
+     *     全部任务完成后再按照Spring Bean名称和类名排序，由当前线程统一注册，从而保证注册顺序以及重名检测结果与目录遍历顺序无关。
+     * </p>
+     * @param roots 扫描根路径
+     */
+    private void parallelScan(List<ClassPathRoot> roots) {
+        List<ScanTask> tasks = new ArrayList<>(roots.size());
+        for (ClassPathRoot root : roots) {
+            tasks.add(new ScanTask(root, root.getPath()));
         }
-
-        // 注册后置处理器
-        if (bean instanceof BeanPostProcessor && !beanPostProcessors.contains(bean)) {
-            beanPostProcessors.add((BeanPostProcessor) bean);
+        List<BeanDefinition> beanDefinitions = new ArrayList<>();
+        for (ScanTask task : ForkJoinTask.invokeAll(tasks)) {
+            beanDefinitions.addAll(task.join());
         }
+        beanDefinitions.sort(Comparator.comparing(BeanDefinition::getName)
+                .thenComparing(beanDefinition -> beanDefinition.getCls().getName()));
+        for (BeanDefinition beanDefinition : beanDefinitions) {
+            registerScannedBeanDefinition(beanDefinition);
+        }
+    }
 
-        addSingleton(beanName, bean);
-        return bean;
+    /**
+     * 注册扫描到的BeanDefinition
+     * <br/>如果同名的Spring Bean已经对应了另一个类，则抛出异常；同一个类被重复扫描时则直接覆盖。
+     * @param beanDefinition Spring Bean定义
+     */
+    private void registerScannedBeanDefinition(BeanDefinition beanDefinition) {
+        BeanDefinition existingBeanDefinition = beanDefinitionMap.get(beanDefinition.getName());
+        if (existingBeanDefinition != null && existingBeanDefinition.getCls() != beanDefinition.getCls()) {
+            throw new IllegalStateException("Spring Bean名称 " + beanDefinition.getName() + " 重复："
+                    + existingBeanDefinition.getCls().getName() + " 与 " + beanDefinition.getCls().getName());
+        }
+        registerBeanDefinition(beanDefinition);
+        if (scanningBeanNames != null) {
+            scanningBeanNames.add(beanDefinition.getName());
+        }
     }
 
     /**
-     * 将完整的单例实例添加至单例池中
-     * @param beanName Spring Bean名称
-     * @param bean Spring Bean实例
+     * 列出目录下的所有文件和子目录
+     * @param directory 目录
+     * @return 目录下的抽象路径
      */
-    private void addSingleton(String beanName, Object bean) {
-        singletonObjects.put(beanName, bean);
-        earlySingletonObjects.remove(beanName);
-        singletonFactories.remove(beanName);
+    private List<Path> listDirectory(Path directory) {
+        List<Path> paths = new ArrayList<>();
+        try (DirectoryStream<Path> directoryStream = Files.newDirectoryStream(directory)) {
+            for (Path path : directoryStream) {
+                paths.add(path);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("无法读取目录：" + directory, e);
+        }
+        return paths;
     }
 
     /**
-     * 获取Spring Bean对象
-     * @param beanName Spring Bean名称
-     * @return Spring Bean对象
+     * 构建BeanDefinition
+     * @param root 扫描根路径
+     * @param path class文件的抽象路径
+     * @return Spring Bean定义，如果不是组件则返回null
      */
-    public Object getBean(String beanName) {
-        return doGetBean(null, beanName);
+    private BeanDefinition buildBeanDefinition(ClassPathRoot root, Path path) {
+        String name = path.getFileName().toString();
+        if (name.endsWith(RESOLVED_CLASS_PATH_SUFFIX) && name.indexOf('-') < 0) {
+            // 类名中不可能包含“-”，以此排除package-info和module-info
+            String solvedName = root.resolveClassName(path);
+            StartupTrace trace = startupTrace;
+            long start = trace == null ? 0 : System.nanoTime();
+            BeanDefinition beanDefinition = buildBeanDefinition(solvedName, readClassMetadata(path));
+            if (trace != null && beanDefinition != null) {
+                trace.recordBeanScan(beanDefinition.getName(), start, System.nanoTime());
+            }
+            return beanDefinition;
+        }
+        return null;
     }
 
     /**
-     * 获取单例实例
-     * <p>
-     *     先从单例池中获取，如果没有则从二级缓冲中获取，如果还是没有再通过对象工厂创建一个新单例实例。
-     * </p>
+     * 构建BeanDefinition
      * <p>
-     *     二级缓存的作用是在循环依赖中提高性能和实现单例对象，将对象工厂创建的新对象存入另一个早期的单例池中，但此时并不是一个完全的Spring Bean，
-     * 而对象工厂每次创建都会消耗资源，所以将其缓存起来可以提高性能，同时也实现了对象单例。
+     *     如果提供了字节码元数据，则只有被 {@link spring.annotation.Component} 声明的类才会被加载，
+     *     否则需要先加载类再通过反射检查注解。
      * </p>
-     * @param beanName 实例的名称
-     * @return 实例对象
+     * @param className 类的全限定名
+     * @param metadata 字节码元数据，可以为null
+     * @return Spring Bean定义，如果不是组件则返回null
      */
-    private Object getSingleton(String beanName) {
-        Object singletonObject = singletonObjects.get(beanName);
-        if (singletonObject == null && isSingletonCurrentlyInCreation(beanName)) {
-            singletonObject = earlySingletonObjects.get(beanName);
-            if (singletonObject == null) {
-                ObjectFactory<?> objectFactory = singletonFactories.get(beanName);
-                if (objectFactory != null) {
-                    singletonObject = objectFactory.getObject();
-                    earlySingletonObjects.put(beanName, singletonObject);
-                    singletonFactories.remove(beanName);
+    private BeanDefinition buildBeanDefinition(String className, ClassMetadata metadata) {
+        return buildBeanDefinition(className, metadata, ApplicationContext.class.getClassLoader());
+    }
+
+    /**
+     * 使用指定的类加载器构建BeanDefinition
+     * @param className 类的全限定名
+     * @param metadata 字节码元数据，可以为null
+     * @param classLoader 类加载器
+     * @return Spring Bean定义，如果不是组件则返回null
+     */
+    private BeanDefinition buildBeanDefinition(String className, ClassMetadata metadata, ClassLoader classLoader) {
+        // 检查是否为组件，如果为组件注解表示其为Spring Bean
+        if (metadata != null && !metadata.isComponent()) {
+            return null;
+        }
+        try {
+            Class<?> beanClass = classLoader.loadClass(className);
+            if (metadata == null) {
+                if (!beanClass.isAnnotationPresent(Component.class)) {
+                    return null;
                 }
+                Component componentAnnotation = beanClass.getDeclaredAnnotation(Component.class);
+                Scope scopeAnnotation = beanClass.getDeclaredAnnotation(Scope.class);
+                metadata = new ClassMetadata(className, true, componentAnnotation.value(),
+                        scopeAnnotation == null ? null : scopeAnnotation.value());
             }
+            return createComponentDefinition(beanClass, metadata.getComponentName(), metadata.getScope());
+        } catch (ClassNotFoundException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    /**
+     * 根据组件类创建BeanDefinition
+     * @param beanClass 组件类
+     * @param beanName 组件名称，为空时使用首字母小写的类名
+     * @param scope 作用域，为null时默认为单例
+     * @return Spring Bean定义
+     */
+    private BeanDefinition createComponentDefinition(Class<?> beanClass, String beanName, String scope) {
+        // Component组件如果未指定名称，默认为首字母小写的类名
+        if (beanName == null || beanName.length() == 0) {
+            String className = beanClass.getSimpleName();
+            char[] charArray = className.toCharArray();
+            // 如果首字母为大写则将其转换为小写
+            if (charArray[0] >= 65 && charArray[0] <= 90) {
+                charArray[0] += 32;
+            }
+            beanName = String.valueOf(charArray);
+        }
+
+        // 创建Spring Bean定义
+        BeanDefinition beanDefinition = new BeanDefinition();
+        beanDefinition.setCls(beanClass);
+        beanDefinition.setName(beanName);
+        beanDefinition.setScope(scope == null ? "singleton" : scope);
+        Lazy lazyAnnotation = beanClass.getDeclaredAnnotation(Lazy.class);
+        beanDefinition.setLazyInit(lazyAnnotation != null && lazyAnnotation.value());
+        Pooled pooledAnnotation = beanClass.getDeclaredAnnotation(Pooled.class);
+        if (pooledAnnotation != null) {
+            beanDefinition.setPoolMinSize(pooledAnnotation.minSize());
+            beanDefinition.setPoolMaxSize(pooledAnnotation.maxSize());
+        }
+        Order orderAnnotation = beanClass.getDeclaredAnnotation(Order.class);
+        if (orderAnnotation != null) {
+            beanDefinition.setOrder(orderAnnotation.value());
+        }
+        return beanDefinition;
+    }
+
+    /**
+     * 注册自定义作用域
+     * @param scopeName 作用域名称，即 {@link spring.annotation.Scope} 的值
+     * @param scope 作用域
+     */
+    public void registerScope(String scopeName, BeanScope scope) {
+        Objects.requireNonNull(scopeName, "作用域名称不能为空！");
+        Objects.requireNonNull(scope, "作用域不能为空！");
+        if ("".equals(scopeName) || "singleton".equals(scopeName) || "prototype".equals(scopeName) || "pooled".equals(scopeName)) {
+            throw new IllegalArgumentException("不能替换内置的作用域：" + scopeName);
+        }
+        scopes.put(scopeName, scope);
+    }
+
+    /**
+     * 获取已注册的作用域
+     * @param scopeName 作用域名称
+     * @return 作用域，如果未注册则返回null
+     */
+    public BeanScope getRegisteredScope(String scopeName) {
+        return scopes.get(scopeName);
+    }
+
+    /**
+     * 注册BeanDefinition，同时更新类型索引。
+     * <br/>如果已存在同名的BeanDefinition，则会覆盖原有的定义并将其从类型索引中移除。
+     * <br/>实现了 {@link ApplicationListener} 的Spring Bean会被注册为事件监听器，对象池中的实例不能作为监听器。
+     * @param beanDefinition Spring Bean定义
+     */
+    public void registerBeanDefinition(BeanDefinition beanDefinition) {
+        Objects.requireNonNull(beanDefinition, "BeanDefinition不能为空！");
+        Objects.requireNonNull(beanDefinition.getName(), "Spring Bean名称不能为空！");
+        Objects.requireNonNull(beanDefinition.getCls(), "Spring Bean类型不能为空！");
+        if (frozenBeanRegistry != null) {
+            throw new IllegalStateException("上下文已冻结，不能再注册Spring Bean " + beanDefinition.getName() + "！");
+        }
+        boolean listener = ApplicationListener.class.isAssignableFrom(beanDefinition.getCls());
+        if (listener && beanDefinition.isPooled()) {
+            throw new IllegalStateException("对象池中的Spring Bean " + beanDefinition.getName() + " 不能作为事件监听器！");
+        }
+        BeanDefinition oldBeanDefinition = beanDefinitionMap.put(beanDefinition.getName(), beanDefinition);
+        if (oldBeanDefinition != null) {
+            unregisterBeanDefinition(oldBeanDefinition);
+        }
+        indexBeanDefinition(beanDefinition);
+        clearOrderedBeansCache();
+        if (listener) {
+            eventMulticaster.addApplicationListenerBean(beanDefinition.getName(), beanDefinition.getCls(), beanDefinition.isSingleton());
+        }
+    }
+
+    /**
+     * 移除BeanDefinition
+     * @param beanName Spring Bean名称
+     */
+    private void removeBeanDefinition(String beanName) {
+        BeanDefinition oldBeanDefinition = beanDefinitionMap.remove(beanName);
+        if (oldBeanDefinition != null) {
+            unregisterBeanDefinition(oldBeanDefinition);
+        }
+    }
+
+    /**
+     * 将被覆盖或移除的BeanDefinition从类型索引、对象池和事件监听器中移除
+     * @param oldBeanDefinition 原有的Spring Bean定义
+     */
+    private void unregisterBeanDefinition(BeanDefinition oldBeanDefinition) {
+        synchronized (typeIndex) {
+            for (Class<?> type : getIndexedTypes(oldBeanDefinition.getCls())) {
+                List<BeanDefinition> candidates = typeIndex.get(type);
+                if (candidates != null && candidates.remove(oldBeanDefinition) && candidates.isEmpty()) {
+                    typeIndex.remove(type);
+                }
+                publishedCandidates.remove(type);
+            }
+        }
+        beanPools.remove(oldBeanDefinition.getName());
+        lazyResolutionProxies.remove(oldBeanDefinition.getName());
+        eventMulticaster.removeApplicationListenerBean(oldBeanDefinition.getName());
+        clearOrderedBeansCache();
+    }
+
+    /**
+     * 清空排好序的候选BeanDefinition以及集合注入的结果缓存
+     */
+    private void clearOrderedBeansCache() {
+        orderedCandidatesCache.clear();
+        orderedSingletonsCache.clear();
+    }
+
+    /**
+     * 发布事件，所有监听该事件类型（或其父类型）的监听器都会收到事件
+     * <br/>默认在当前线程中同步分发，开启异步分发后事件会在 {@link #getEventExecutor()} 中按发布顺序批量分发。
+     * @param event 事件
+     */
+    public void publishEvent(Object event) {
+        eventMulticaster.multicastEvent(event);
+    }
+
+    /**
+     * 注册监听器实例，事件类型由监听器的泛型参数决定，无法确定时（例如Lambda表达式）监听所有事件
+     * @param listener 监听器
+     */
+    public void addApplicationListener(ApplicationListener<?> listener) {
+        eventMulticaster.addApplicationListener(listener);
+    }
+
+    /**
+     * 注册只监听指定事件类型的监听器实例
+     * @param eventType 事件类型
+     * @param listener 监听器
+     * @param <E> 事件类型
+     */
+    public <E> void addApplicationListener(Class<E> eventType, ApplicationListener<? super E> listener) {
+        eventMulticaster.addApplicationListener(eventType, listener);
+    }
+
+    /**
+     * 获取Spring Bean定义
+     * @param beanName Spring Bean名称
+     * @return Spring Bean定义，不存在则返回null
+     */
+    public BeanDefinition getBeanDefinition(String beanName) {
+        return beanDefinitionMap.get(beanName);
+    }
+
+    /**
+     * 获取所有Spring Bean定义的名称
+     * @return Spring Bean名称
+     */
+    public String[] getBeanDefinitionNames() {
+        return beanDefinitionMap.keySet().toArray(new String[0]);
+    }
+
+    /**
+     * 将BeanDefinition的类型、所有父类以及所有接口加入类型索引
+     * <br/>只修改类型索引中的普通集合，并使这些类型已发布的候选失效，注册的开销只与该类的类型层次有关，与已注册的Spring Bean数量无关。
+     * @param beanDefinition Spring Bean定义
+     */
+    private void indexBeanDefinition(BeanDefinition beanDefinition) {
+        synchronized (typeIndex) {
+            for (Class<?> type : getIndexedTypes(beanDefinition.getCls())) {
+                typeIndex.computeIfAbsent(type, key -> new ArrayList<>()).add(beanDefinition);
+                publishedCandidates.remove(type);
+            }
+        }
+    }
+
+    /**
+     * 获取需要加入类型索引的类型，即类本身、所有父类以及所有接口，{@link Object} 所有Spring Bean都匹配，不加入类型索引
+     * @param cls Spring Bean类型
+     * @return 需要索引的类型
+     */
+    private static Set<Class<?>> getIndexedTypes(Class<?> cls) {
+        Set<Class<?>> visited = new HashSet<>();
+        Deque<Class<?>> types = new ArrayDeque<>();
+        types.push(cls);
+        while (!types.isEmpty()) {
+            Class<?> type = types.pop();
+            if (type == Object.class || !visited.add(type)) {
+                continue;
+            }
+            if (type.getSuperclass() != null) {
+                types.push(type.getSuperclass());
+            }
+            for (Class<?> interfaceType : type.getInterfaces()) {
+                types.push(interfaceType);
+            }
+        }
+        return visited;
+    }
+
+    /**
+     * 根据类型获取候选的BeanDefinition
+     * <br/>{@link Object} 类型直接返回全部BeanDefinition；其余类型第一次查找时从类型索引中复制出不可修改的集合并发布，之后直接复用。
+     * @param cls Spring Bean类型
+     * @return 候选的BeanDefinition集合，不会返回null
+     */
+    private List<BeanDefinition> getCandidateBeanDefinitions(Class<?> cls) {
+        if (cls == Object.class) {
+            return Collections.unmodifiableList(new ArrayList<>(beanDefinitionMap.values()));
+        }
+        List<BeanDefinition> candidates = publishedCandidates.get(cls);
+        if (candidates == null) {
+            synchronized (typeIndex) {
+                List<BeanDefinition> indexed = typeIndex.get(cls);
+                candidates = indexed == null ? Collections.emptyList()
+                        : Collections.unmodifiableList(Arrays.asList(indexed.toArray(new BeanDefinition[0])));
+                publishedCandidates.put(cls, candidates);
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * 根据类型获取排好序的候选BeanDefinition，先按照 {@link BeanDefinition#getOrder()} 从小到大排列，再按照名称排列
+     * @param cls Spring Bean类型
+     * @return 排好序的候选BeanDefinition，不会返回null
+     */
+    private BeanDefinition[] getOrderedCandidateBeanDefinitions(Class<?> cls) {
+        BeanDefinition[] candidates = orderedCandidatesCache.get(cls);
+        if (candidates == null) {
+            candidates = getCandidateBeanDefinitions(cls).toArray(new BeanDefinition[0]);
+            Arrays.sort(candidates, Comparator.comparingInt(BeanDefinition::getOrder).thenComparing(BeanDefinition::getName));
+            orderedCandidatesCache.put(cls, candidates);
+        }
+        return candidates;
+    }
+
+    /**
+     * 根据 BeanDefinition 初始化组件实例。
+     * <br/>Spring Bean对象分为 <b>单例（Singleton）</b> 和 <b>原型（Prototype）</b> 两种，默认为单例，单例对象会被放入 <b>单例池</b> 中，
+     * 而原型对象则是在使用是创建。
+     * <br/>实现了 {@link AsyncInitializingBean} 的单例在刷新时并发地进行异步初始化，刷新会等待所有异步初始化完成，
+     * 有失败或超时时抛出汇总了所有失败的 {@link AsyncInitializationException}。
+     * <br/>如果设置了上下文快照文件，并且有扫描没有从快照中还原，则在刷新完成后写入新的快照。
+     */
+    public void refresh() {
+        AsyncInitialization initialization = new AsyncInitialization(asyncInitializationTimeout);
+        asyncInitialization = initialization;
+        RuntimeException refreshFailure = null;
+        try {
+            finishInitialization();
+        } catch (RuntimeException e) {
+            refreshFailure = e;
+        } finally {
+            asyncInitialization = null;
+        }
+        initialization.await(refreshFailure);
+        if (refreshFailure != null) {
+            throw refreshFailure;
+        }
+        StartupTrace trace = startupTrace;
+        if (trace != null) {
+            completeStartupTrace(trace);
+        }
+        if (snapshotPath != null && !scannedBeanNames.isEmpty()) {
+            writeContextSnapshot();
+        }
+        if (hotReloadEnabled) {
+            startHotReload();
+        }
+    }
+
+    /**
+     * 结束启动跟踪并计算关键路径，如果指定了输出目录则写入JSON、DOT以及Chrome Trace三个文件
+     * @param trace 启动跟踪
+     */
+    private void completeStartupTrace(StartupTrace trace) {
+        BeanDependencyGraph dependencyGraph = new BeanDependencyGraph(beanDefinitionMap, this::getInjectionMetadata);
+        Map<String, Set<String>> dependencies = new TreeMap<>();
+        for (String beanName : dependencyGraph.getBeanNames()) {
+            dependencies.put(beanName, dependencyGraph.getDependencies(beanName));
+        }
+        trace.complete(dependencies);
+        startupTrace = null;
+        completedStartupTrace = trace;
+        if (startupTraceDirectory == null) {
+            return;
+        }
+        try {
+            Files.createDirectories(startupTraceDirectory);
+            trace.write(startupTraceDirectory.resolve("startup-trace.json"), StartupTrace.Format.JSON);
+            trace.write(startupTraceDirectory.resolve("startup-graph.dot"), StartupTrace.Format.DOT);
+            trace.write(startupTraceDirectory.resolve("startup-trace.chrome.json"), StartupTrace.Format.CHROME_TRACE);
+        } catch (IOException e) {
+            // 写入启动跟踪失败不影响上下文的使用
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * 读取系统属性中指定的启动跟踪输出目录
+     * @return 输出目录，没有指定时返回null
+     */
+    private static Path resolveDefaultStartupTraceDirectory() {
+        String path = System.getProperty(STARTUP_TRACE_PROPERTY);
+        return path == null || path.trim().isEmpty() ? null : Paths.get(path.trim());
+    }
+
+    /**
+     * 开始监听扫描路径，只有本地文件系统中的目录会被监听，jar包中的类不支持热重载
+     */
+    private synchronized void startHotReload() {
+        if (classPathWatcher != null || scannedBasePackages.isEmpty()) {
+            return;
+        }
+        List<ClassPathRoot> roots = new ArrayList<>();
+        try {
+            for (ClassPathRoot root : ClassPathRoot.openAll(ApplicationContext.class.getClassLoader(),
+                    scannedBasePackages.toArray(new String[0]))) {
+                if (root.isLocalDirectory()) {
+                    roots.add(root);
+                } else {
+                    root.close();
+                }
+            }
+            if (roots.isEmpty()) {
+                return;
+            }
+            classPathWatcher = new ClassPathWatcher(roots, hotReloadQuietPeriod.toMillis(), this::reload);
+            classPathWatcher.start();
+        } catch (IOException e) {
+            throw new IllegalStateException("无法监听扫描路径！", e);
+        }
+    }
+
+    /**
+     * 停止监听扫描路径
+     */
+    public synchronized void stopHotReload() {
+        if (classPathWatcher == null) {
+            return;
+        }
+        try {
+            classPathWatcher.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        classPathWatcher = null;
+    }
+
+    /**
+     * 根据变化的class文件热重载Spring Bean
+     * <p>
+     *     受影响的Spring Bean包括类发生变化（包括其内部类）的Spring Bean，以及通过 {@link spring.annotation.Autowired} 直接或间接依赖它们的Spring Bean。
+     *     这些Spring Bean的类会由一个新的 {@link HotReloadClassLoader} 重新加载，以保证依赖方字段的类型与新的类一致；
+     *     之后替换它们的BeanDefinition，按照依赖的相反顺序销毁旧的单例并重新创建。其余Spring Bean不受影响，仍然使用原来的类和实例。
+     * </p>
+     * <p>
+     *     所有的类都加载成功后才会修改容器，加载失败（例如class文件还没有写完）时容器保持不变。
+     *     变化的非组件类只对被重新加载的Spring Bean生效；切面和自定义作用域中缓存的实例不会被重载。
+     * </p>
+     * <p>
+     *     受影响的后置处理器会先从后置处理器集合中移除，重新创建的后置处理器先于其他Spring Bean创建，以便处理重新创建的Spring Bean；
+     *     未受影响的Spring Bean已经由旧的后置处理器处理过，不会重新处理。
+     * </p>
+     * @param changes 变化的类的全限定名及class文件路径，包括被删除的class文件
+     */
+    private synchronized void reload(Map<String, Path> changes) {
+        if (classPathWatcher == null) {
+            return;
+        }
+        Set<String> changedClassNames = new HashSet<>();
+        for (String className : changes.keySet()) {
+            changedClassNames.add(HotReloadClassLoader.topLevelClassName(className));
+        }
+
+        // 类发生变化的Spring Bean以及直接或间接依赖它们的Spring Bean
+        Map<String, Set<String>> dependents = new HashMap<>();
+        Deque<String> pending = new ArrayDeque<>();
+        for (BeanDefinition beanDefinition : beanDefinitionMap.values()) {
+            for (String dependency : getDependencyNames(beanDefinition)) {
+                dependents.computeIfAbsent(dependency, key -> new HashSet<>()).add(beanDefinition.getName());
+            }
+            if (changedClassNames.contains(HotReloadClassLoader.topLevelClassName(beanDefinition.getCls().getName()))) {
+                pending.push(beanDefinition.getName());
+            }
+        }
+        Set<String> affectedBeanNames = new TreeSet<>();
+        while (!pending.isEmpty()) {
+            String beanName = pending.pop();
+            if (affectedBeanNames.add(beanName)) {
+                pending.addAll(dependents.getOrDefault(beanName, Collections.emptySet()));
+            }
+        }
+        Set<String> reloadedClassNames = new HashSet<>(changedClassNames);
+        for (String beanName : affectedBeanNames) {
+            reloadedClassNames.add(HotReloadClassLoader.topLevelClassName(beanDefinitionMap.get(beanName).getCls().getName()));
+        }
+
+        // 先用新的类加载器构建所有的BeanDefinition，失败时不修改容器
+        Set<Path> classPathDirectories = classPathWatcher.getClassPathDirectories();
+        List<URL> urls = new ArrayList<>();
+        try {
+            for (Path directory : classPathDirectories) {
+                urls.add(directory.toUri().toURL());
+            }
+        } catch (MalformedURLException e) {
+            throw new IllegalStateException("无法解析类路径目录！", e);
+        }
+        HotReloadClassLoader classLoader = new HotReloadClassLoader(urls.toArray(new URL[0]),
+                hotReloadClassLoader, reloadedClassNames);
+        Map<String, BeanDefinition> reloadedBeanDefinitions = new TreeMap<>();
+        for (String className : reloadedClassNames) {
+            Path classFile = findClassFile(classPathDirectories, className);
+            if (classFile == null) {
+                continue;
+            }
+            BeanDefinition beanDefinition = buildBeanDefinition(className, readClassMetadata(classFile), classLoader);
+            if (beanDefinition == null) {
+                continue;
+            }
+            BeanDefinition existingBeanDefinition = beanDefinitionMap.get(beanDefinition.getName());
+            if (existingBeanDefinition != null && !reloadedClassNames.contains(
+                    HotReloadClassLoader.topLevelClassName(existingBeanDefinition.getCls().getName()))) {
+                throw new IllegalStateException("Spring Bean名称 " + beanDefinition.getName() + " 重复："
+                        + existingBeanDefinition.getCls().getName() + " 与 " + className);
+            }
+            reloadedBeanDefinitions.put(beanDefinition.getName(), beanDefinition);
+        }
+
+        // 替换BeanDefinition，被删除或不再是组件的Spring Bean直接移除，旧的单例按照依赖的相反顺序销毁
+        Map<String, BeanDefinition> oldBeanDefinitions = new HashMap<>();
+        Map<String, Object> oldSingletons = new HashMap<>();
+        for (String beanName : affectedBeanNames) {
+            oldBeanDefinitions.put(beanName, beanDefinitionMap.get(beanName));
+            Object singleton = singletonObjects.get(beanName);
+            if (singleton != null) {
+                oldSingletons.put(beanName, singleton);
+                // 旧的后置处理器不能再处理新创建的Spring Bean
+                if (singleton instanceof BeanPostProcessor) {
+                    removeBeanPostProcessor((BeanPostProcessor) singleton);
+                }
+            }
+        }
+        BeanDependencyGraph oldDependencyGraph = new BeanDependencyGraph(oldBeanDefinitions, this::getInjectionMetadata);
+        for (String beanName : affectedBeanNames) {
+            BeanDefinition oldBeanDefinition = beanDefinitionMap.get(beanName);
+            if (!reloadedBeanDefinitions.containsKey(beanName)) {
+                removeBeanDefinition(beanName);
+            }
+            injectionMetadataCache.remove(oldBeanDefinition.getCls());
+        }
+        for (BeanDefinition beanDefinition : reloadedBeanDefinitions.values()) {
+            registerBeanDefinition(beanDefinition);
+            removeSingleton(beanDefinition.getName());
+        }
+        for (String beanName : affectedBeanNames) {
+            removeSingleton(beanName);
+        }
+        hotReloadClassLoader = classLoader;
+        new BeanDestroyer(oldDependencyGraph, oldSingletons, Collections.emptyMap(), destroyTimeout).destroy();
+
+        for (BeanDefinition beanDefinition : reloadedBeanDefinitions.values()) {
+            if (BeanPostProcessor.class.isAssignableFrom(beanDefinition.getCls())) {
+                preInstantiate(beanDefinition);
+            }
+        }
+        for (BeanDefinition beanDefinition : reloadedBeanDefinitions.values()) {
+            if (!BeanPostProcessor.class.isAssignableFrom(beanDefinition.getCls())) {
+                preInstantiate(beanDefinition);
+            }
+        }
+    }
+
+    /**
+     * 在类路径目录中查找class文件
+     * @param classPathDirectories 类路径目录
+     * @param className 类的全限定名
+     * @return class文件，不存在时返回null
+     */
+    private static Path findClassFile(Set<Path> classPathDirectories, String className) {
+        for (Path directory : classPathDirectories) {
+            Path classFile = directory.resolve(className.replace('.', '/') + RESOLVED_CLASS_PATH_SUFFIX);
+            if (Files.isRegularFile(classFile)) {
+                return classFile;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 读取class文件中的元数据
+     * @param classFile class文件
+     * @return 字节码元数据，没有开启元数据读取或无法解析时返回null
+     */
+    private ClassMetadata readClassMetadata(Path classFile) {
+        if (!metadataReadingEnabled) {
+            return null;
+        }
+        // 直接从目录或jar包中读取字节码，无需解压
+        try (InputStream inputStream = new BufferedInputStream(Files.newInputStream(classFile))) {
+            return ClassMetadataReader.read(inputStream);
+        } catch (IOException e) {
+            // 字节码无法解析时退化为加载类的方式进行检查
+            return null;
+        }
+    }
+
+    /**
+     * 关闭容器，重复调用没有效果
+     * <p>
+     *     先停止热重载，再销毁对象池中空闲的实例，最后按照依赖的相反顺序销毁所有已创建的单例：
+     *     依赖某个单例的Spring Bean全部销毁之后才会销毁该单例，互不依赖的分支并行销毁，每个Spring Bean的销毁超时时间为 {@link #destroyTimeout}。
+     *     冻结时发放的 {@link BeanRef} 在关闭后不再持有任何单例。关闭后不应再使用该容器。
+     * </p>
+     */
+    @Override
+    public void close() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        synchronized (this) {
+            if (shutdownHook != null && Thread.currentThread() != shutdownHook) {
+                try {
+                    Runtime.getRuntime().removeShutdownHook(shutdownHook);
+                } catch (IllegalStateException e) {
+                    // JVM已经在关闭中，钩子会自行执行
+                }
+            }
+        }
+        stopHotReload();
+        // 清空冻结的单例数组，已经发放的BeanRef不会再返回即将被销毁的单例，而是回退到getBean
+        FrozenBeanRegistry registry = frozenBeanRegistry;
+        if (registry != null) {
+            Arrays.fill(registry.getSingletons(), null);
+        }
+
+        Map<String, List<Object>> pooledInstances = new TreeMap<>();
+        for (Map.Entry<String, BeanPool> entry : beanPools.entrySet()) {
+            pooledInstances.put(entry.getKey(), entry.getValue().drain());
+        }
+        new BeanDestroyer(new BeanDependencyGraph(beanDefinitionMap, this::getInjectionMetadata),
+                new HashMap<>(singletonObjects), pooledInstances, destroyTimeout).destroy();
+
+        singletonObjects.clear();
+        earlySingletonObjects.clear();
+        singletonFactories.clear();
+        beanPools.clear();
+        lazyResolutionProxies.clear();
+        frozenBeanRegistry = null;
+    }
+
+    /**
+     * 判断容器是否已经关闭
+     * @return 如果已经关闭则返回true
+     */
+    public boolean isClosed() {
+        return closed.get();
+    }
+
+    /**
+     * 注册JVM关闭钩子，在JVM关闭时自动关闭容器，重复调用没有效果
+     */
+    public synchronized void registerShutdownHook() {
+        if (shutdownHook == null) {
+            shutdownHook = new Thread(this::close, "LightSpring-ShutdownHook");
+            Runtime.getRuntime().addShutdownHook(shutdownHook);
+        }
+    }
+
+    /**
+     * 冻结上下文
+     * <p>
+     *     将所有BeanDefinition和已经创建的单例压缩进不可变的数组结构，之后按名称获取这些单例时只需一次Map查找和一次数组读取，
+     *     通过 {@link #getBeanRef(String, Class)} 获取的句柄则只需一次数组读取。冻结后不能再注册新的BeanDefinition。
+     *     应当在 {@link #refresh()} 完成后调用，重复调用没有效果。
+     * </p>
+     */
+    public synchronized void freeze() {
+        if (frozenBeanRegistry != null) {
+            return;
+        }
+        if (asyncInitialization != null || !singletonsCurrentlyInCreation.isEmpty()) {
+            throw new IllegalStateException("上下文正在刷新或创建单例，不能冻结！");
+        }
+        if (hotReloadEnabled) {
+            throw new IllegalStateException("开启热重载的上下文不能冻结！");
+        }
+        frozenBeanRegistry = new FrozenBeanRegistry(beanDefinitionMap, singletonObjects);
+    }
+
+    /**
+     * 判断上下文是否已经冻结
+     * @return 如果已经冻结则返回true
+     */
+    public boolean isFrozen() {
+        return frozenBeanRegistry != null;
+    }
+
+    /**
+     * 获取Spring Bean的类型化句柄，上下文必须已经冻结
+     * @param beanName Spring Bean名称
+     * @param requiredType Spring Bean类型
+     * @param <T> Spring Bean类型
+     * @return Spring Bean句柄
+     */
+    public <T> BeanRef<T> getBeanRef(String beanName, Class<T> requiredType) {
+        Objects.requireNonNull(beanName, "Spring Bean名称不能为空！");
+        Objects.requireNonNull(requiredType, "Spring Bean类型不能为空！");
+        FrozenBeanRegistry registry = frozenBeanRegistry;
+        if (registry == null) {
+            throw new IllegalStateException("上下文尚未冻结，请先调用freeze()！");
+        }
+        int index = registry.indexOf(beanName);
+        if (index < 0) {
+            throw new NullPointerException("未找到指定对象！");
+        }
+        Object singleton = registry.getSingletons()[index];
+        boolean assignable = singleton != null
+                ? requiredType.isInstance(singleton)
+                : requiredType.isAssignableFrom(registry.getBeanDefinition(index).getCls());
+        if (!assignable) {
+            throw new IllegalArgumentException("Spring Bean " + beanName + " 不是 " + requiredType.getName() + " 类型！");
+        }
+        return new BeanRef<>(this, registry.getSingletons(), index, beanName, requiredType);
+    }
+
+    /**
+     * 根据类型获取唯一的Spring Bean的类型化句柄，上下文必须已经冻结
+     * @param requiredType Spring Bean类型
+     * @param <T> Spring Bean类型
+     * @return Spring Bean句柄
+     */
+    public <T> BeanRef<T> getBeanRef(Class<T> requiredType) {
+        Objects.requireNonNull(requiredType, "Spring Bean类型不能为空！");
+        List<BeanDefinition> candidates = getCandidateBeanDefinitions(requiredType);
+        if (candidates.isEmpty()) {
+            throw new NullPointerException("未找到类型为 " + requiredType.getName() + " 的Spring Bean！");
+        }
+        if (candidates.size() > 1) {
+            throw new IllegalStateException("找到多个类型为 " + requiredType.getName() + " 的Spring Bean！");
+        }
+        return getBeanRef(candidates.get(0).getName(), requiredType);
+    }
+
+    /**
+     * 完成BeanDefinition的初始化工作
+     * <br/>异步初始化的单例先被创建，使其异步初始化尽早开始，与其余Spring Bean的创建重叠。
+     */
+    private void finishInitialization() {
+        if (parallelRefreshEnabled) {
+            parallelFinishInitialization();
+            return;
+        }
+        List<BeanDefinition> beanDefinitions = new ArrayList<>(beanDefinitionMap.values());
+        for (BeanDefinition beanDefinition : beanDefinitions) {
+            if (beanDefinition.isSingleton() && AsyncInitializingBean.class.isAssignableFrom(beanDefinition.getCls())) {
+                preInstantiate(beanDefinition);
+            }
+        }
+        for (BeanDefinition beanDefinition : beanDefinitions) {
+            preInstantiate(beanDefinition);
+        }
+    }
+
+    /**
+     * 在容器刷新时预先创建Spring Bean
+     * <br/>池化实例会预先填充对象池；自定义作用域的实例只能在其作用域内创建，延迟初始化的单例则在第一次获取时创建，这两者都会被跳过。
+     * @param beanDefinition Spring Bean定义
+     */
+    private void preInstantiate(BeanDefinition beanDefinition) {
+        if (beanDefinition.isPooled()) {
+            getBeanPool(beanDefinition).prefill();
+        } else if (!isLazySingleton(beanDefinition) && !scopes.containsKey(beanDefinition.getScope())) {
+            getBean(beanDefinition.getName());
+        }
+    }
+
+    /**
+     * 判断是否为延迟初始化的单例，这类单例不会在容器刷新时创建
+     * @param beanDefinition Spring Bean定义
+     * @return 如果为延迟初始化的单例则返回true
+     */
+    private boolean isLazySingleton(BeanDefinition beanDefinition) {
+        return beanDefinition.isSingleton() && beanDefinition.isLazyInit();
+    }
+
+    /**
+     * 根据 {@link spring.annotation.Autowired} 依赖图并行完成BeanDefinition的初始化工作
+     * <p>
+     *     后置处理器会先被串行创建，以保证其他Spring Bean都能被其处理；之后单例按照拓扑顺序分层，
+     *     同一层中互不依赖的单例在 {@link #refreshExecutor} 中并行创建，每一层全部完成后才开始下一层；
+     *     处于循环依赖中的单例最后串行创建，由三级缓存解决循环引用；最后再处理原型实例。延迟初始化的单例不会在这里创建。
+     * </p>
+     */
+    private void parallelFinishInitialization() {
+        List<String> beanNames = new ArrayList<>(beanDefinitionMap.keySet());
+        Collections.sort(beanNames);
+        for (String beanName : beanNames) {
+            BeanDefinition beanDefinition = beanDefinitionMap.get(beanName);
+            if (BeanPostProcessor.class.isAssignableFrom(beanDefinition.getCls())) {
+                getBean(beanName);
+            }
+        }
+
+        BeanDependencyGraph dependencyGraph = new BeanDependencyGraph(beanDefinitionMap, this::getInjectionMetadata);
+        for (List<String> wave : dependencyGraph.topologicalWaves()) {
+            // 延迟初始化的单例不在刷新时创建
+            wave = new ArrayList<>(wave);
+            wave.removeIf(beanName -> isLazySingleton(beanDefinitionMap.get(beanName)));
+            if (wave.isEmpty()) {
+                continue;
+            }
+            if (wave.size() == 1) {
+                getBean(wave.get(0));
+                continue;
+            }
+            CompletableFuture<?>[] futures = new CompletableFuture<?>[wave.size()];
+            for (int j = 0; j < wave.size(); j++) {
+                String beanName = wave.get(j);
+                futures[j] = CompletableFuture.runAsync(() -> getBean(beanName), refreshExecutor);
+            }
+            try {
+                CompletableFuture.allOf(futures).join();
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw e;
+            }
+        }
+        for (String beanName : dependencyGraph.getCyclicBeanNames()) {
+            if (!isLazySingleton(beanDefinitionMap.get(beanName))) {
+                getBean(beanName);
+            }
+        }
+
+        for (String beanName : beanNames) {
+            BeanDefinition beanDefinition = beanDefinitionMap.get(beanName);
+            if (!beanDefinition.isSingleton()) {
+                preInstantiate(beanDefinition);
+            }
+        }
+    }
+
+    /**
+     * 根据Spring Bean名称获取实例，可用于单例和实例对象
+     * @param cls Spring Bean类型
+     * @param beanName Spring Bean名称
+     * @return Bean对象
+     */
+    private Object doGetBean(Class<?> cls, String beanName) {
+        Objects.requireNonNull(beanName);
+        // 冻结后已经创建的单例直接从冻结注册表中获取
+        FrozenBeanRegistry registry = frozenBeanRegistry;
+        if (registry != null && cls == null) {
+            Object singleton = registry.getSingleton(beanName);
+            if (singleton != null) {
+                return singleton;
+            }
+        }
+
+        Object bean = null;
+        boolean isMultiple = false;
+        // 如果指定了类型，则先根据类型索引进行查找
+        if (cls != null) {
+            List<BeanDefinition> candidates = getCandidateBeanDefinitions(cls);
+            if (candidates.size() == 1) {
+                bean = doGetBean(null, candidates.get(0).getName());
+            } else if (candidates.size() > 1) {
+                isMultiple = true;
+            }
+        }
+
+        // 根据名称进行查找
+        if (cls == null || isMultiple || bean == null) {
+            BeanDefinition beanDefinition = beanDefinitionMap.get(beanName);
+            if (beanDefinition != null && !beanDefinition.isSingleton()) {
+                return getScopedBean(beanDefinition);
+            }
+            // 单例池中没有则进行创建，单例的发布和后置处理器的注册都在创建时完成
+            bean = getSingleton(beanName, () -> createBean(beanDefinitionMap.get(beanName)));
+        }
+        return bean;
+    }
+
+    /**
+     * 获取非单例的Spring Bean实例
+     * <p>
+     *     池化作用域的实例没有归还的约定，因此这里不会从对象池中借出，而是像原型一样在对象池之外创建新实例，
+     *     这些实例不会被容器销毁；需要复用池中实例时应使用 {@link #borrowBean(String)} 和 {@link #returnBean(String, Object)}。
+     * </p>
+     * @param beanDefinition 非单例的Spring Bean定义
+     * @return Bean对象
+     */
+    private Object getScopedBean(BeanDefinition beanDefinition) {
+        // 已注册的作用域由作用域自行管理实例，其余作用域均视为原型
+        BeanScope scope = scopes.get(beanDefinition.getScope());
+        if (scope != null) {
+            return scope.get(beanDefinition.getName(), () -> createBean(beanDefinition));
+        }
+        return createBean(beanDefinition);
+    }
+
+    /**
+     * 根据已经绑定的BeanDefinition获取实例，供 {@link BeanDefinitionObjectProvider} 使用
+     * <br/>不再按名称查找BeanDefinition，也不记录 {@link #getBean(String)} 的指标，原型直接创建新实例。
+     * @param beanDefinition Spring Bean定义
+     * @return Bean对象
+     */
+    Object getBean(BeanDefinition beanDefinition) {
+        if (!beanDefinition.isSingleton()) {
+            return getScopedBean(beanDefinition);
+        }
+        return getSingleton(beanDefinition.getName(), () -> createBean(beanDefinition));
+    }
+
+    /**
+     * 将完整的单例实例添加至单例池中
+     * @param beanName Spring Bean名称
+     * @param bean Spring Bean实例
+     */
+    private void addSingleton(String beanName, Object bean) {
+        singletonObjects.put(beanName, bean);
+        earlySingletonObjects.remove(beanName);
+        singletonFactories.remove(beanName);
+    }
+
+    /**
+     * 从单例池及三级缓存中移除单例
+     * @param beanName Spring Bean名称
+     */
+    private void removeSingleton(String beanName) {
+        singletonObjects.remove(beanName);
+        earlySingletonObjects.remove(beanName);
+        singletonFactories.remove(beanName);
+        lazyResolutionProxies.remove(beanName);
+        orderedSingletonsCache.clear();
+    }
+
+    /**
+     * 获取Spring Bean对象
+     * @param beanName Spring Bean名称
+     * @return Spring Bean对象
+     */
+    public Object getBean(String beanName) {
+        BeanMetrics currentMetrics = metrics;
+        if (currentMetrics == null) {
+            return doGetBean(null, beanName);
+        }
+        long start = System.nanoTime();
+        try {
+            return doGetBean(null, beanName);
+        } finally {
+            BeanDefinition beanDefinition = beanDefinitionMap.get(beanName);
+            currentMetrics.recordGetBean(beanName, beanDefinition == null ? null : beanDefinition.getScope(), System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * 从对象池中借出池化作用域的Spring Bean，对象池为空时会创建新实例
+     * <br/>借出的实例用完后应通过 {@link #returnBean(String, Object)} 归还，池中的实例只会执行一次初始化。
+     * @param beanName Spring Bean名称
+     * @return Spring Bean对象
+     */
+    public Object borrowBean(String beanName) {
+        return getBeanPool(getPooledBeanDefinition(beanName)).borrow();
+    }
+
+    /**
+     * 将借出的池化Spring Bean归还至对象池，同一个实例只能归还一次
+     * @param beanName Spring Bean名称
+     * @param bean 借出的Spring Bean对象
+     * @return 如果实例被放回对象池则返回true，对象池已满时实例会被销毁并返回false
+     */
+    public boolean returnBean(String beanName, Object bean) {
+        Objects.requireNonNull(bean, "归还的Spring Bean不能为空！");
+        BeanPool beanPool = getBeanPool(getPooledBeanDefinition(beanName));
+        // 后置处理器可能包装了实例（例如AOP代理），因此按照对象池实际创建的类型校验
+        if (!beanPool.isPoolInstance(bean)) {
+            throw new IllegalArgumentException("归还的对象不是从Spring Bean " + beanName + " 的对象池中借出的实例！");
+        }
+        return beanPool.giveBack(bean);
+    }
+
+    /**
+     * 获取池化作用域的BeanDefinition
+     * @param beanName Spring Bean名称
+     * @return Spring Bean定义
+     */
+    private BeanDefinition getPooledBeanDefinition(String beanName) {
+        Objects.requireNonNull(beanName);
+        BeanDefinition beanDefinition = beanDefinitionMap.get(beanName);
+        Objects.requireNonNull(beanDefinition, "未找到指定对象！");
+        if (!beanDefinition.isPooled()) {
+            throw new IllegalArgumentException("Spring Bean " + beanName + " 不是池化作用域！");
+        }
+        return beanDefinition;
+    }
+
+    /**
+     * 获取池化作用域的对象池，对象池在第一次使用时创建
+     * @param beanDefinition Spring Bean定义
+     * @return 对象池
+     */
+    private BeanPool getBeanPool(BeanDefinition beanDefinition) {
+        BeanPool beanPool = beanPools.get(beanDefinition.getName());
+        if (beanPool == null) {
+            beanPool = beanPools.computeIfAbsent(beanDefinition.getName(), key -> new BeanPool(
+                    beanDefinition.getPoolMinSize(), beanDefinition.getPoolMaxSize(), () -> createBean(beanDefinition),
+                    bean -> destroyDiscardedBean(beanDefinition.getName(), bean)));
+        }
+        return beanPool;
+    }
+
+    /**
+     * 销毁无法放入对象池的实例，销毁失败只会打印异常
+     * @param beanName Spring Bean名称
+     * @param bean 被丢弃的实例
+     */
+    private void destroyDiscardedBean(String beanName, Object bean) {
+        if (!(bean instanceof DisposableBean)) {
+            return;
+        }
+        try {
+            ((DisposableBean) bean).destroy();
+        } catch (Throwable e) {
+            new IllegalStateException("Spring Bean " + beanName + " 销毁失败！", e).printStackTrace();
+        }
+    }
+
+    /**
+     * 根据类型获取唯一的Spring Bean对象
+     * @param requiredType Spring Bean类型
+     * @param <T> Spring Bean类型
+     * @return Spring Bean对象
+     */
+    public <T> T getBean(Class<T> requiredType) {
+        Objects.requireNonNull(requiredType, "Spring Bean类型不能为空！");
+        List<BeanDefinition> candidates = getCandidateBeanDefinitions(requiredType);
+        if (candidates.isEmpty()) {
+            throw new NullPointerException("未找到类型为 " + requiredType.getName() + " 的Spring Bean！");
+        }
+        if (candidates.size() > 1) {
+            throw new IllegalStateException("找到多个类型为 " + requiredType.getName() + " 的Spring Bean！");
+        }
+        return requiredType.cast(getBean(candidates.get(0).getName()));
+    }
+
+    /**
+     * 获取所有指定类型的Spring Bean对象，按照 {@link spring.annotation.Order} 和名称排序
+     * @param requiredType Spring Bean类型
+     * @param <T> Spring Bean类型
+     * @return Spring Bean名称与对象的映射
+     */
+    public <T> Map<String, T> getBeansOfType(Class<T> requiredType) {
+        Objects.requireNonNull(requiredType, "Spring Bean类型不能为空！");
+        BeanDefinition[] candidates = getOrderedCandidateBeanDefinitions(requiredType);
+        Map<String, T> beans = new LinkedHashMap<>(candidates.length * 2);
+        for (BeanDefinition beanDefinition : candidates) {
+            beans.put(beanDefinition.getName(), requiredType.cast(getBean(beanDefinition.getName())));
+        }
+        return beans;
+    }
+
+    /**
+     * 获取单例实例
+     * <p>
+     *     先从单例池中获取，如果没有则从二级缓冲中获取，如果还是没有再通过对象工厂创建一个新单例实例。
+     * </p>
+     * <p>
+     *     二级缓存的作用是在循环依赖中提高性能和实现单例对象，将对象工厂创建的新对象存入另一个早期的单例池中，但此时并不是一个完全的Spring Bean，
+     * 而对象工厂每次创建都会消耗资源，所以将其缓存起来可以提高性能，同时也实现了对象单例。
+     * </p>
+     * @param beanName 实例的名称
+     * @return 实例对象
+     */
+    private Object getSingleton(String beanName) {
+        Object singletonObject = singletonObjects.get(beanName);
+        if (singletonObject == null && isSingletonCurrentlyInCreation(beanName)) {
+            singletonObject = earlySingletonObjects.get(beanName);
+            BeanMetrics currentMetrics = metrics;
+            if (currentMetrics != null) {
+                currentMetrics.recordCacheAccess(SingletonCache.EARLY_SINGLETON_OBJECTS, singletonObject != null);
+            }
+            if (singletonObject == null) {
+                // 保证对象工厂只被调用一次
+                synchronized (earlySingletonObjects) {
+                    singletonObject = earlySingletonObjects.get(beanName);
+                    if (singletonObject == null) {
+                        ObjectFactory<?> objectFactory = singletonFactories.get(beanName);
+                        if (currentMetrics != null) {
+                            currentMetrics.recordCacheAccess(SingletonCache.SINGLETON_FACTORIES, objectFactory != null);
+                        }
+                        if (objectFactory != null) {
+                            singletonObject = objectFactory.getObject();
+                            earlySingletonObjects.put(beanName, singletonObject);
+                            singletonFactories.remove(beanName);
+                        }
+                    }
+                }
+            }
+        }
+        return singletonObject;
+    }
+
+    /**
+     * 获取单例实例
+     * <p>
+     *     先从单例池中获取，如果获取不到就通过指定的对象工厂创建。
+     * </p>
+     * <p>
+     *     已发布的单例直接从单例池中无锁读取；创建单例时只会获取该Spring Bean自己的创建锁，
+     *     因此只有多个线程同时创建同一个Spring Bean时才会产生竞争，后到的线程会等待并直接使用先到线程创建的实例。
+     * </p>
+     * <p>
+     *     如果当前线程已经持有该Spring Bean的创建锁（同一线程内的循环依赖），或者等待该锁会与其他线程形成死锁（跨线程的循环依赖），
+     *     则返回三级缓存中提前暴露的实例。
+     * </p>
+     * @param beanName Spring Bean名称
+     * @param objectFactory 对象工厂
+     * @return 单例实例
+     */
+    private Object getSingleton(String beanName, ObjectFactory<?> objectFactory) {
+        Object singletonObject = singletonObjects.get(beanName);
+        BeanMetrics currentMetrics = metrics;
+        if (currentMetrics != null) {
+            currentMetrics.recordCacheAccess(SingletonCache.SINGLETON_OBJECTS, singletonObject != null);
+        }
+        if (singletonObject != null) {
+            return singletonObject;
+        }
+
+        SingletonCreationLock lock = singletonCreationLocks.computeIfAbsent(beanName, key -> new SingletonCreationLock());
+        if (lock.isHeldByCurrentThread() || !acquireSingletonCreationLock(lock)) {
+            singletonObject = getSingleton(beanName);
+            if (singletonObject == null) {
+                throw new IllegalStateException("Spring Bean " + beanName + " 存在无法解决的循环依赖！");
+            }
+            return singletonObject;
+        }
+
+        try {
+            singletonObject = singletonObjects.get(beanName);
+            if (singletonObject != null) {
+                return singletonObject;
+            }
+            try {
+                beforeSingletonCreation(beanName);
+                singletonObject = objectFactory.getObject();
+
+                // 注册后置处理器
+                if (singletonObject instanceof BeanPostProcessor) {
+                    addBeanPostProcessor((BeanPostProcessor) singletonObject);
+                }
+                addSingleton(beanName, singletonObject);
+            } finally {
+                afterSingletonCreation(beanName);
+            }
+            return singletonObject;
+        } finally {
+            lock.unlock();
         }
-        return singletonObject;
     }
 
     /**
-     * 获取单例实例
+     * 获取单例的创建锁
      * <p>
-     *     先从单例池中获取，如果获取不到就通过指定的对象工厂创建
+     *     在阻塞之前会沿着“锁的持有线程 -> 该线程正在等待的锁”检查等待链，如果链条回到当前线程，说明阻塞会导致死锁，
+     *     此时放弃获取锁。由于每个线程都会先登记等待的锁再检查等待链，形成环的最后一个线程一定能检测到死锁。
      * </p>
-     * @param beanName Spring Bean名称
-     * @param objectFactory 对象工厂
-     * @return 单例实例
+     * @param lock 单例的创建锁
+     * @return 如果成功获取锁返回true，如果获取锁会导致死锁则返回false
      */
-    private Object getSingleton(String beanName, ObjectFactory<?> objectFactory) {
+    private boolean acquireSingletonCreationLock(SingletonCreationLock lock) {
+        if (lock.tryLock()) {
+            return true;
+        }
+        Thread currentThread = Thread.currentThread();
+        waitingSingletonCreationLocks.put(currentThread, lock);
         try {
-            beforeSingletonCreation(beanName);
-
-            Object singletonObject = singletonObjects.get(beanName);
-            if (singletonObject == null) {
-                singletonObject = objectFactory.getObject();
+            SingletonCreationLock waitingLock = lock;
+            Set<Thread> visited = new HashSet<>();
+            while (waitingLock != null) {
+                Thread owner = waitingLock.getOwnerThread();
+                if (owner == currentThread) {
+                    return false;
+                }
+                if (owner == null || !visited.add(owner)) {
+                    break;
+                }
+                waitingLock = waitingSingletonCreationLocks.get(owner);
             }
-            return singletonObject;
+            lock.lock();
+            return true;
         } finally {
-            afterSingletonCreation(beanName);
+            waitingSingletonCreationLocks.remove(currentThread);
         }
     }
 
@@ -343,54 +1801,191 @@ public class ApplicationContext {
      */
     private Object createBean(BeanDefinition beanDefinition) {
         Objects.requireNonNull(beanDefinition);
+        BeanMetrics currentMetrics = metrics;
+        StartupTrace trace = startupTrace;
+        if (currentMetrics == null && trace == null) {
+            return doCreateBean(beanDefinition);
+        }
+        if (trace != null) {
+            trace.beanStarted(beanDefinition.getName(), beanDefinition.getCls().getName(), beanDefinition.isSingleton());
+        }
+        long start = System.nanoTime();
+        try {
+            return doCreateBean(beanDefinition);
+        } finally {
+            if (currentMetrics != null) {
+                currentMetrics.recordCreateBean(beanDefinition.getName(), beanDefinition.getScope(), System.nanoTime() - start);
+            }
+            if (trace != null) {
+                trace.beanFinished();
+            }
+        }
+    }
+
+    /**
+     * 根据Spring Bean的定义创建Bean对象
+     * @param beanDefinition Spring Bean定义
+     * @return Bean对象
+     */
+    private Object doCreateBean(BeanDefinition beanDefinition) {
+        InjectionMetadata metadata = getInjectionMetadata(beanDefinition.getCls());
+        StartupTrace trace = startupTrace;
         // 创建Spring Bean实例
-        Object beanInstance = createBeanInstance(beanDefinition.getCls());
+        long instantiateStart = trace == null ? 0 : System.nanoTime();
+        Object beanInstance = createBeanInstance(beanDefinition, metadata);
+        if (trace != null) {
+            trace.recordPhase(StartupPhase.INSTANTIATE, instantiateStart);
+        }
 
         // 是否允许提前暴露单例实例
         boolean earlySingletonExposure = beanDefinition.isSingleton()
                 && allowCircularReferences
                 && isSingletonCurrentlyInCreation(beanDefinition.getName());
         if (earlySingletonExposure) {
-            // 这里暂未作任何加工
-            singletonFactories.put(beanDefinition.getName(), () -> beanInstance);
+            // 提前暴露的引用交给后置处理器加工，例如AOP代理
+            singletonFactories.put(beanDefinition.getName(), () -> getEarlyBeanReference(beanDefinition, beanInstance));
         }
 
         // 自动注入
-        populateBean(beanDefinition, beanInstance);
+        BeanMetrics currentMetrics = metrics;
+        if (currentMetrics == null && trace == null) {
+            populateBean(beanDefinition.getName(), metadata, beanInstance);
+        } else {
+            long start = System.nanoTime();
+            try {
+                populateBean(beanDefinition.getName(), metadata, beanInstance);
+            } finally {
+                if (currentMetrics != null) {
+                    currentMetrics.recordPopulateBean(System.nanoTime() - start);
+                }
+                if (trace != null) {
+                    trace.recordPhase(StartupPhase.POPULATE, start);
+                }
+            }
+        }
 
         // 初始化Spring Bean
         Object exposedBean = beanInstance;
-        exposedBean = initializeBean(beanDefinition.getName(), exposedBean);
+        exposedBean = initializeBean(beanDefinition, exposedBean);
+
+        if (earlySingletonExposure) {
+            // 已经被循环依赖的另一方获取过提前暴露的引用，最终的单例必须与之保持一致
+            Object earlySingletonReference = earlySingletonObjects.get(beanDefinition.getName());
+            if (earlySingletonReference != null) {
+                if (exposedBean == beanInstance) {
+                    exposedBean = earlySingletonReference;
+                } else if (exposedBean != earlySingletonReference) {
+                    throw new IllegalStateException("Spring Bean " + beanDefinition.getName()
+                            + " 已经以提前暴露的引用注入到其他Spring Bean中，但初始化后又被后置处理器替换成了其他对象！");
+                }
+            }
+        }
         return exposedBean;
     }
 
+    /**
+     * 获取提前暴露的单例引用，只有发生循环依赖时才会调用
+     * @param beanDefinition Spring Bean定义
+     * @param bean 尚未注入和初始化的实例
+     * @return 经过后置处理器加工的引用
+     */
+    private Object getEarlyBeanReference(BeanDefinition beanDefinition, Object bean) {
+        Object exposedObject = bean;
+        for (SmartInstantiationAwareBeanPostProcessor beanPostProcessor : getBeanPostProcessorChain(beanDefinition).getEarlyBeanReference()) {
+            exposedObject = beanPostProcessor.getEarlyBeanReference(beanDefinition.getName(), exposedObject);
+        }
+        return exposedObject;
+    }
+
     /**
      * 初始化实例对象
-     * @param beanName Spring Bean名称
+     * @param beanDefinition Spring Bean定义
      * @param bean 实例对象
      * @return 完成初始化的实例对象
      */
-    private Object initializeBean(String beanName, Object bean) {
+    private Object initializeBean(BeanDefinition beanDefinition, Object bean) {
+        String beanName = beanDefinition.getName();
+        BeanPostProcessorChain chain = getBeanPostProcessorChain(beanDefinition);
+        StartupTrace trace = startupTrace;
+        long phaseStart = trace == null ? 0 : System.nanoTime();
         invokeAwareMethods(beanName, bean);
+        if (trace != null) {
+            phaseStart = trace.recordPhase(StartupPhase.AWARE, phaseStart);
+        }
         Object wrappedBean = bean;
-        wrappedBean = applyBeanPostProcessorsBeforeInitialization(beanName, wrappedBean);
-        invokeInitMethods(beanName, wrappedBean);
-        wrappedBean = applyBeanPostProcessorsAfterInitialization(beanName, wrappedBean);
+        wrappedBean = applyBeanPostProcessorsBeforeInitialization(chain.getBeforeInitialization(), beanName, wrappedBean);
+        if (trace != null) {
+            phaseStart = trace.recordPhase(StartupPhase.POST_PROCESS, phaseStart);
+        }
+        invokeInitMethods(beanDefinition, wrappedBean);
+        if (trace != null) {
+            phaseStart = trace.recordPhase(StartupPhase.INIT, phaseStart);
+        }
+        wrappedBean = applyBeanPostProcessorsAfterInitialization(chain.getAfterInitialization(), beanName, wrappedBean);
+        if (trace != null) {
+            trace.recordPhase(StartupPhase.POST_PROCESS, phaseStart);
+        }
         return wrappedBean;
     }
 
+    /**
+     * 注册后置处理器，注册后已缓存的后置处理器链全部失效
+     * @param beanPostProcessor 后置处理器
+     */
+    public void addBeanPostProcessor(BeanPostProcessor beanPostProcessor) {
+        Objects.requireNonNull(beanPostProcessor, "后置处理器为空！");
+        if (beanPostProcessors.addIfAbsent(beanPostProcessor)) {
+            beanPostProcessorsVersion.incrementAndGet();
+        }
+    }
+
+    /**
+     * 移除后置处理器，移除后已缓存的后置处理器链全部失效
+     * @param beanPostProcessor 后置处理器
+     */
+    private void removeBeanPostProcessor(BeanPostProcessor beanPostProcessor) {
+        if (beanPostProcessors.remove(beanPostProcessor)) {
+            beanPostProcessorsVersion.incrementAndGet();
+        }
+    }
+
+    /**
+     * 获取某个BeanDefinition适用的后置处理器链，如果缓存的处理器链已经失效则重新构建
+     * <p>
+     *     先读取版本号再读取后置处理器集合，并发注册时最坏情况是用旧的版本号缓存了新的集合，下次使用时会再构建一次。
+     * </p>
+     * @param beanDefinition Spring Bean定义
+     * @return 后置处理器链
+     */
+    private BeanPostProcessorChain getBeanPostProcessorChain(BeanDefinition beanDefinition) {
+        int version = beanPostProcessorsVersion.get();
+        BeanPostProcessorChain chain = beanDefinition.getBeanPostProcessorChain();
+        if (chain == null || chain.getVersion() != version) {
+            chain = BeanPostProcessorChain.build(beanDefinition, beanPostProcessors, version);
+            beanDefinition.setBeanPostProcessorChain(chain);
+        }
+        return chain;
+    }
+
     /**
      * 在初始化之前应用后置处理器
      * <p>
      *     后置处理器使用了责任链模式，每次处理完的结果会交给下一个后置处理器，如果其中有个后置处理器返回null，则停止调用。
      * </p>
+     * @param processors 适用于该Spring Bean的后置处理器
      * @param beanName Spring Bean名称
      * @param bean Spring Bean实例
      * @return 处理后的Spring Bean
      */
-    private Object applyBeanPostProcessorsBeforeInitialization(String beanName, Object bean) {
-        for (BeanPostProcessor beanPostProcessor : beanPostProcessors) {
-            Object result = beanPostProcessor.postProcessAfterInitialization(beanName, bean);
+    private Object applyBeanPostProcessorsBeforeInitialization(BeanPostProcessor[] processors, String beanName, Object bean) {
+        BeanMetrics currentMetrics = metrics;
+        for (BeanPostProcessor beanPostProcessor : processors) {
+            long start = currentMetrics == null ? 0 : System.nanoTime();
+            Object result = beanPostProcessor.postProcessBeforeInitialization(beanName, bean);
+            if (currentMetrics != null) {
+                currentMetrics.recordBeanPostProcessor(beanName, beanPostProcessor.getClass(),
+                        BeanMetrics.BEFORE_INITIALIZATION, System.nanoTime() - start);
+            }
             if (result == null) {
                 return bean;
             }
@@ -404,13 +1999,20 @@ public class ApplicationContext {
      * <p>
      *     后置处理器使用了责任链模式，每次处理完的结果会交给下一个后置处理器，如果其中有个后置处理器返回null，则停止调用。
      * </p>
+     * @param processors 适用于该Spring Bean的后置处理器
      * @param beanName Spring Bean名称
      * @param bean Spring Bean实例
      * @return 处理后的Spring Bean
      */
-    private Object applyBeanPostProcessorsAfterInitialization(String beanName, Object bean) {
-        for (BeanPostProcessor beanPostProcessor : beanPostProcessors) {
+    private Object applyBeanPostProcessorsAfterInitialization(BeanPostProcessor[] processors, String beanName, Object bean) {
+        BeanMetrics currentMetrics = metrics;
+        for (BeanPostProcessor beanPostProcessor : processors) {
+            long start = currentMetrics == null ? 0 : System.nanoTime();
             Object result = beanPostProcessor.postProcessAfterInitialization(beanName, bean);
+            if (currentMetrics != null) {
+                currentMetrics.recordBeanPostProcessor(beanName, beanPostProcessor.getClass(),
+                        BeanMetrics.AFTER_INITIALIZATION, System.nanoTime() - start);
+            }
             if (result == null) {
                 return bean;
             }
@@ -421,13 +2023,61 @@ public class ApplicationContext {
 
     /**
      * 调用初始化方法
-     * @param beanName Spring Bean名称
+     * <p>
+     *     刷新过程中，单例的异步初始化在其依赖的异步初始化完成后开始，不会阻塞当前线程；
+     *     其余Spring Bean如果依赖了正在异步初始化的单例，则会先阻塞等待依赖完成。
+     *     在刷新之外创建的实例会同步等待自己的异步初始化完成。
+     * </p>
+     * @param beanDefinition Spring Bean定义
      * @param bean Spring Bean实例
      */
-    private void invokeInitMethods(String beanName, Object bean) {
+    private void invokeInitMethods(BeanDefinition beanDefinition, Object bean) {
+        String beanName = beanDefinition.getName();
+        AsyncInitialization initialization = asyncInitialization;
+        if (initialization != null) {
+            List<String> dependencies = getDependencyNames(beanDefinition);
+            if (bean instanceof AsyncInitializingBean && !(bean instanceof InitializingBean) && beanDefinition.isSingleton()) {
+                initialization.start(beanName, dependencies, (AsyncInitializingBean) bean);
+                return;
+            }
+            initialization.awaitDependencies(beanName, dependencies);
+        }
         if (bean instanceof InitializingBean) {
             ((InitializingBean) bean).afterPropertiesSet();
         }
+        if (bean instanceof AsyncInitializingBean) {
+            if (initialization != null && beanDefinition.isSingleton()) {
+                // 依赖已经等待完成，同步初始化之后直接开始异步初始化
+                initialization.start(beanName, Collections.emptyList(), (AsyncInitializingBean) bean);
+            } else {
+                AsyncInitialization.join(beanName, (AsyncInitializingBean) bean, asyncInitializationTimeout);
+            }
+        }
+    }
+
+    /**
+     * 获取Spring Bean通过构造器参数以及 {@link spring.annotation.Autowired} 字段和方法注入的依赖名称，集合注入点依赖除自身之外全部匹配的Spring Bean
+     * @param beanDefinition Spring Bean定义
+     * @return 依赖名称
+     */
+    private List<String> getDependencyNames(BeanDefinition beanDefinition) {
+        InjectionMetadata.InjectionPoint[] injectionPoints = getInjectionMetadata(beanDefinition.getCls()).getInjectionPoints();
+        List<String> dependencies = new ArrayList<>(injectionPoints.length);
+        for (InjectionMetadata.InjectionPoint injectionPoint : injectionPoints) {
+            if (injectionPoint.isMultiple()) {
+                for (BeanDefinition candidate : getOrderedCandidateBeanDefinitions(injectionPoint.getElementType())) {
+                    if (!candidate.getName().equals(beanDefinition.getName())) {
+                        dependencies.add(candidate.getName());
+                    }
+                }
+            } else {
+                String dependencyName = resolveDependencyName(injectionPoint);
+                if (dependencyName != null) {
+                    dependencies.add(dependencyName);
+                }
+            }
+        }
+        return dependencies;
     }
 
     /**
@@ -442,41 +2092,202 @@ public class ApplicationContext {
     }
 
     /**
-     * 创建Spring Bean实例
+     * 获取Spring Bean类的实例化及注入元数据，每个类只会解析一次
      * @param cls Spring Bean的类型对象
+     * @return 注入元数据
+     */
+    private InjectionMetadata getInjectionMetadata(Class<?> cls) {
+        InjectionMetadata metadata = injectionMetadataCache.get(cls);
+        if (metadata == null) {
+            metadata = injectionMetadataCache.computeIfAbsent(cls, InjectionMetadata::forClass);
+        }
+        return metadata;
+    }
+
+    /**
+     * 创建Spring Bean实例，构造器参数会先通过 {@link #resolveInjectedBean(String, InjectionMetadata.InjectionPoint)} 解析
+     * <br/>构造器参数无法使用提前暴露的引用，因此构造器参数之间的循环依赖无法解决，会抛出 {@link IllegalStateException}。
+     * <br/>构造器抛出的异常会连同Spring Bean名称一起包装为 {@link IllegalStateException} 抛出。
+     * @param beanDefinition Spring Bean定义
+     * @param metadata Spring Bean类的注入元数据
      * @return Spring Bean实例
      */
-    private Object createBeanInstance(Class<?> cls) {
+    private Object createBeanInstance(BeanDefinition beanDefinition, InjectionMetadata metadata) {
+        InjectionMetadata.InjectionPoint[] constructorArguments = metadata.getConstructorArguments();
+        // 无参构造器共享同一个空数组，创建实例时只分配实例本身
+        Object[] arguments = constructorArguments.length == 0 ? NO_ARGUMENTS : new Object[constructorArguments.length];
+        for (int i = 0; i < constructorArguments.length; i++) {
+            InjectionMetadata.InjectionPoint constructorArgument = constructorArguments[i];
+            arguments[i] = resolveInjectedBean(beanDefinition.getName(), constructorArgument);
+            if (arguments[i] == null && constructorArgument.isRequired()) {
+                throw new NullPointerException("未找到指定对象！");
+            }
+        }
         try {
-            Constructor<?> constructor = cls.getDeclaredConstructor();
-            return constructor.newInstance();
-        } catch (NoSuchMethodException | InstantiationException | IllegalAccessException | InvocationTargetException e) {
-            e.printStackTrace();
+            return metadata.newInstance(arguments);
+        } catch (Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException("创建Spring Bean " + beanDefinition.getName() + " 的实例失败！", e);
         }
-        return null;
     }
 
     /**
-     * 根据注解 {@link spring.annotation.Autowired} 自动注入填充Bean中的值
-     * @param beanDefinition 要进行自动填充Bean的BeanDefinition
+     * 根据注解 {@link spring.annotation.Autowired} 自动注入填充Bean中的字段，并调用setter方法
+     * <br/>setter方法抛出的受检异常会连同Spring Bean名称和成员名称一起包装为 {@link IllegalStateException} 抛出。
+     * @param beanName 要进行自动填充的Spring Bean名称
+     * @param metadata 要进行自动填充Bean的注入元数据
+     * @param bean Spring Bean实例
      */
-    private void populateBean(BeanDefinition beanDefinition, Object bean) {
-        for (Field field : beanDefinition.getCls().getDeclaredFields()) {
-            if (field.isAnnotationPresent(Autowired.class)) {
-                try {
-                    field.setAccessible(true);
-                    Autowired autowiredAnnotation = field.getDeclaredAnnotation(Autowired.class);
-                    String name = "".equals(autowiredAnnotation.value()) ? field.getName() : autowiredAnnotation.value();
-                    Object autowiredBean = getBean(name);
-                    if (autowiredBean == null && autowiredAnnotation.required()) {
-                        throw new NullPointerException("未找到指定对象！");
-                    }
-                    field.set(bean, autowiredBean);
-                } catch (IllegalAccessException e) {
-                    e.printStackTrace();
+    private void populateBean(String beanName, InjectionMetadata metadata, Object bean) {
+        for (InjectionMetadata.InjectedMember injectedMember : metadata.getInjectedMembers()) {
+            Object autowiredBean = resolveInjectedBean(beanName, injectedMember);
+            if (autowiredBean == null && injectedMember.isRequired()) {
+                throw new NullPointerException("未找到指定对象！");
+            }
+            try {
+                injectedMember.inject(bean, autowiredBean);
+            } catch (Error | RuntimeException e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException("为Spring Bean " + beanName + " 注入 " + injectedMember.getName() + " 失败！", e);
+            }
+        }
+    }
+
+    /**
+     * 解析要注入字段、setter方法或构造器参数的Spring Bean
+     * <br/>集合类型的注入点通过 {@link #resolveInjectedBeans(String, InjectionMetadata.InjectionPoint)} 注入全部匹配的Spring Bean，
+     * {@link ObjectProvider} 类型的注入点通过 {@link #resolveObjectProvider(InjectionMetadata.InjectionPoint)} 注入绑定好的提供者。
+     * <br/>如果目标是尚未创建的延迟初始化单例并且注入类型为接口，则注入一个在第一次调用时才解析目标的代理（同一个Spring Bean的同一个接口共享一个代理），否则直接获取目标实例。
+     * @param requestingBeanName 声明该注入点的Spring Bean名称
+     * @param injectionPoint 注入点
+     * @return 要注入的Spring Bean或代理
+     */
+    private Object resolveInjectedBean(String requestingBeanName, InjectionMetadata.InjectionPoint injectionPoint) {
+        if (injectionPoint.isMultiple()) {
+            return resolveInjectedBeans(requestingBeanName, injectionPoint);
+        }
+        if (injectionPoint.isProvider()) {
+            return resolveObjectProvider(injectionPoint);
+        }
+        String beanName = resolveDependencyName(injectionPoint);
+        if (beanName == null) {
+            return null;
+        }
+        Class<?> type = injectionPoint.getType();
+        BeanDefinition beanDefinition = beanDefinitionMap.get(beanName);
+        if (beanDefinition != null && beanDefinition.isLazyInit() && beanDefinition.isSingleton()
+                && type.isInterface() && !singletonObjects.containsKey(beanName)) {
+            return getLazyResolutionProxy(beanName, type);
+        }
+        return getBean(beanName);
+    }
+
+    /**
+     * 获取延迟初始化单例的延迟解析代理，每个Spring Bean的每个接口只创建一个代理，代理解析出的目标实例也只缓存一份
+     * @param beanName 延迟初始化单例的名称
+     * @param type 注入的接口类型
+     * @return 延迟解析代理
+     */
+    private Object getLazyResolutionProxy(String beanName, Class<?> type) {
+        return lazyResolutionProxies.computeIfAbsent(beanName, key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(type, key -> Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                        new LazyResolutionInvocationHandler(this, beanName)));
+    }
+
+    /**
+     * 获取单个注入点要注入的Spring Bean名称
+     * <br/>没有名称的注入点（未使用-parameters编译的构造器参数）通过类型索引查找唯一匹配的Spring Bean。
+     * @param injectionPoint 非集合类型的注入点
+     * @return Spring Bean名称，按类型没有找到匹配的Spring Bean时返回null
+     * @throws IllegalStateException 按类型匹配到多个Spring Bean时抛出
+     */
+    private String resolveDependencyName(InjectionMetadata.InjectionPoint injectionPoint) {
+        if (!injectionPoint.isByType()) {
+            return injectionPoint.getBeanName();
+        }
+        List<BeanDefinition> candidates = getCandidateBeanDefinitions(injectionPoint.getLookupType());
+        if (candidates.isEmpty()) {
+            return null;
+        }
+        if (candidates.size() > 1) {
+            throw new IllegalStateException("类型 " + injectionPoint.getLookupType().getName()
+                    + " 匹配到多个Spring Bean，请通过@Autowired指定要注入的Spring Bean名称或使用-parameters编译！");
+        }
+        return candidates.get(0).getName();
+    }
+
+    /**
+     * 为 {@link ObjectProvider} 类型的注入点创建提供者，提供者在此时绑定目标BeanDefinition，不会创建目标实例
+     * @param injectionPoint {@link ObjectProvider} 类型的注入点
+     * @return 绑定好的提供者，目标BeanDefinition不存在时返回null
+     */
+    private Object resolveObjectProvider(InjectionMetadata.InjectionPoint injectionPoint) {
+        String beanName = resolveDependencyName(injectionPoint);
+        BeanDefinition beanDefinition = beanName == null ? null : beanDefinitionMap.get(beanName);
+        if (beanDefinition == null) {
+            return null;
+        }
+        return new BeanDefinitionObjectProvider<>(this, beanDefinition, injectionPoint.getProvidedType());
+    }
+
+    /**
+     * 解析集合类型注入点的全部Spring Bean，按照 {@link spring.annotation.Order} 和名称排序
+     * <p>
+     *     候选全部为单例时结果会被缓存，之后相同元素类型的注入点直接共享同一个不可修改的 <b>List</b> 或 <b>Map</b>，
+     *     数组是可变的，每次注入的是缓存数组的副本。
+     * </p>
+     * <p>
+     *     声明注入点的Spring Bean自身不会出现在结果中，否则会注入尚未完成的自身引用，原型实例则会无限递归创建。
+     *     排除了自身的结果只属于这一个Spring Bean，不会被缓存。
+     * </p>
+     * <p>
+     *     结果保存在元素类型的数组中，因此每个候选都必须是元素类型的实例。
+     *     元素类型为具体类时，被后置处理器替换为JDK动态代理的候选无法注入，会抛出 {@link IllegalStateException}，
+     *     这种情况下需要使用接口作为元素类型。
+     * </p>
+     * @param requestingBeanName 声明该注入点的Spring Bean名称
+     * @param injectionPoint 集合类型的注入点
+     * @return 要注入的集合、数组或映射，没有匹配的Spring Bean时返回null
+     */
+    private Object resolveInjectedBeans(String requestingBeanName, InjectionMetadata.InjectionPoint injectionPoint) {
+        Class<?> elementType = injectionPoint.getElementType();
+        BeanDefinition[] candidates = getOrderedCandidateBeanDefinitions(elementType);
+        boolean selfExcluded = false;
+        for (BeanDefinition candidate : candidates) {
+            if (candidate.getName().equals(requestingBeanName)) {
+                selfExcluded = true;
+                break;
+            }
+        }
+        OrderedBeans orderedBeans = selfExcluded ? null : orderedSingletonsCache.get(elementType);
+        if (orderedBeans == null) {
+            int size = selfExcluded ? candidates.length - 1 : candidates.length;
+            String[] beanNames = new String[size];
+            Object[] beans = (Object[]) Array.newInstance(elementType, size);
+            boolean allSingletons = true;
+            int index = 0;
+            for (BeanDefinition candidate : candidates) {
+                String beanName = candidate.getName();
+                if (beanName.equals(requestingBeanName)) {
+                    continue;
+                }
+                Object bean = getBean(beanName);
+                if (!elementType.isInstance(bean)) {
+                    throw new IllegalStateException("Spring Bean " + beanName + " 的实例 " + bean.getClass().getName()
+                            + " 不是 " + elementType.getName() + " 类型，无法注入到 " + requestingBeanName + " 的集合中！");
                 }
+                beanNames[index] = beanName;
+                beans[index++] = bean;
+                allSingletons &= candidate.isSingleton();
+            }
+            orderedBeans = new OrderedBeans(beanNames, beans);
+            if (allSingletons && !selfExcluded) {
+                orderedSingletonsCache.put(elementType, orderedBeans);
             }
         }
+        return orderedBeans.isEmpty() ? null : orderedBeans.as(injectionPoint.getType());
     }
 
     /**
@@ -496,6 +2307,67 @@ public class ApplicationContext {
         }
     }
 
+    /**
+     * 并行扫描任务，目录会拆分为子任务，文件则直接在当前任务中构建BeanDefinition
+     */
+    private class ScanTask extends RecursiveTask<List<BeanDefinition>> {
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * 扫描根路径
+         */
+        private final ClassPathRoot root;
+
+        /**
+         * 要扫描的抽象路径
+         */
+        private final Path path;
+
+        ScanTask(ClassPathRoot root, Path path) {
+            this.root = root;
+            this.path = path;
+        }
+
+        @Override
+        protected List<BeanDefinition> compute() {
+            List<BeanDefinition> beanDefinitions = new ArrayList<>();
+            if (!Files.isDirectory(path)) {
+                BeanDefinition beanDefinition = buildBeanDefinition(root, path);
+                if (beanDefinition != null) {
+                    beanDefinitions.add(beanDefinition);
+                }
+                return beanDefinitions;
+            }
+
+            List<ScanTask> subtasks = new ArrayList<>();
+            for (Path p : listDirectory(path)) {
+                if (Files.isDirectory(p)) {
+                    subtasks.add(new ScanTask(root, p));
+                } else {
+                    BeanDefinition beanDefinition = buildBeanDefinition(root, p);
+                    if (beanDefinition != null) {
+                        beanDefinitions.add(beanDefinition);
+                    }
+                }
+            }
+            for (ScanTask subtask : ForkJoinTask.invokeAll(subtasks)) {
+                beanDefinitions.addAll(subtask.join());
+            }
+            return beanDefinitions;
+        }
+    }
+
+    /**
+     * 单例的创建锁，暴露持有线程以便检测死锁
+     */
+    private static class SingletonCreationLock extends ReentrantLock {
+        private static final long serialVersionUID = 1L;
+
+        Thread getOwnerThread() {
+            return getOwner();
+        }
+    }
+
     @FunctionalInterface
     private interface ObjectFactory<T> {
         /**
@@ -505,6 +2377,174 @@ public class ApplicationContext {
         T getObject();
     }
 
+    public Duration getDestroyTimeout() {
+        return destroyTimeout;
+    }
+
+    public void setDestroyTimeout(Duration destroyTimeout) {
+        this.destroyTimeout = Objects.requireNonNull(destroyTimeout, "超时时间不能为空！");
+    }
+
+    public boolean isHotReloadEnabled() {
+        return hotReloadEnabled;
+    }
+
+    /**
+     * @param hotReloadEnabled 是否在刷新后监听扫描路径并热重载变化的类，开启后上下文不能冻结
+     */
+    public void setHotReloadEnabled(boolean hotReloadEnabled) {
+        if (hotReloadEnabled && frozenBeanRegistry != null) {
+            throw new IllegalStateException("已冻结的上下文不能开启热重载！");
+        }
+        this.hotReloadEnabled = hotReloadEnabled;
+    }
+
+    public Duration getHotReloadQuietPeriod() {
+        return hotReloadQuietPeriod;
+    }
+
+    public void setHotReloadQuietPeriod(Duration hotReloadQuietPeriod) {
+        this.hotReloadQuietPeriod = Objects.requireNonNull(hotReloadQuietPeriod, "静默期不能为空！");
+    }
+
+    public boolean isAsyncEventsEnabled() {
+        return eventMulticaster.isAsync();
+    }
+
+    public void setAsyncEventsEnabled(boolean asyncEventsEnabled) {
+        eventMulticaster.setAsync(asyncEventsEnabled);
+    }
+
+    public Executor getEventExecutor() {
+        return eventMulticaster.getExecutor();
+    }
+
+    public void setEventExecutor(Executor eventExecutor) {
+        eventMulticaster.setExecutor(eventExecutor);
+    }
+
+    public int getEventBatchSize() {
+        return eventMulticaster.getBatchSize();
+    }
+
+    public void setEventBatchSize(int eventBatchSize) {
+        eventMulticaster.setBatchSize(eventBatchSize);
+    }
+
+    public Duration getAsyncInitializationTimeout() {
+        return asyncInitializationTimeout;
+    }
+
+    public void setAsyncInitializationTimeout(Duration asyncInitializationTimeout) {
+        this.asyncInitializationTimeout = Objects.requireNonNull(asyncInitializationTimeout, "超时时间不能为空！");
+    }
+
+    public Path getSnapshotPath() {
+        return snapshotPath;
+    }
+
+    /**
+     * 设置上下文快照文件，需要在扫描之前设置
+     * @param snapshotPath 快照文件，为null时不使用快照
+     */
+    public void setSnapshotPath(Path snapshotPath) {
+        this.snapshotPath = snapshotPath;
+        this.contextSnapshot = null;
+        this.contextSnapshotLoaded = false;
+    }
+
+    public boolean isMetadataReadingEnabled() {
+        return metadataReadingEnabled;
+    }
+
+    public void setMetadataReadingEnabled(boolean metadataReadingEnabled) {
+        this.metadataReadingEnabled = metadataReadingEnabled;
+    }
+
+    public boolean isComponentIndexEnabled() {
+        return componentIndexEnabled;
+    }
+
+    public void setComponentIndexEnabled(boolean componentIndexEnabled) {
+        this.componentIndexEnabled = componentIndexEnabled;
+    }
+
+    public boolean isParallelRefreshEnabled() {
+        return parallelRefreshEnabled;
+    }
+
+    public void setParallelRefreshEnabled(boolean parallelRefreshEnabled) {
+        this.parallelRefreshEnabled = parallelRefreshEnabled;
+    }
+
+    public Executor getRefreshExecutor() {
+        return refreshExecutor;
+    }
+
+    public void setRefreshExecutor(Executor refreshExecutor) {
+        this.refreshExecutor = Objects.requireNonNull(refreshExecutor, "执行器不能为空！");
+    }
+
+    public boolean isParallelScanEnabled() {
+        return parallelScanEnabled;
+    }
+
+    public void setParallelScanEnabled(boolean parallelScanEnabled) {
+        this.parallelScanEnabled = parallelScanEnabled;
+    }
+
+    /**
+     * 获取运行时指标
+     * @return 运行时指标，未开启时返回null
+     */
+    public BeanMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * 开启或关闭启动跟踪，开启后记录之后的扫描以及下一次刷新中每个Spring Bean的创建，刷新完成时结束
+     * @param startupTraceEnabled 是否开启
+     */
+    public void setStartupTraceEnabled(boolean startupTraceEnabled) {
+        this.startupTrace = startupTraceEnabled ? new StartupTrace() : null;
+    }
+
+    /**
+     * 获取启动跟踪
+     * @return 正在记录的启动跟踪，没有时返回最近一次完成的启动跟踪，从未开启时返回null
+     */
+    public StartupTrace getStartupTrace() {
+        StartupTrace trace = startupTrace;
+        return trace != null ? trace : completedStartupTrace;
+    }
+
+    public Path getStartupTraceDirectory() {
+        return startupTraceDirectory;
+    }
+
+    /**
+     * @param startupTraceDirectory 刷新完成后写入启动跟踪的目录，为null时不写入
+     */
+    public void setStartupTraceDirectory(Path startupTraceDirectory) {
+        this.startupTraceDirectory = startupTraceDirectory;
+    }
+
+    /**
+     * 开启或关闭运行时指标收集，重新开启时会清空之前的指标
+     * @param metricsEnabled 是否开启
+     */
+    public void setMetricsEnabled(boolean metricsEnabled) {
+        this.metrics = metricsEnabled ? new BeanMetrics() : null;
+    }
+
+    /**
+     * 使用指定的指标收集器，可以通过 {@link BeanMetrics#BeanMetrics(boolean)} 开启JFR事件
+     * @param metrics 指标收集器，为null时关闭指标收集
+     */
+    public void setMetrics(BeanMetrics metrics) {
+        this.metrics = metrics;
+    }
+
     public boolean isAllowCircularReferences() {
         return allowCircularReferences;
     }
@@ -0,0 +1,243 @@
+package spring;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 一次容器刷新中的异步初始化
+ * <p>
+ *     每个 {@link AsyncInitializingBean} 单例对应一个任务，任务在其依赖的异步初始化全部完成后才开始，
+ *     依赖失败的任务不再执行。同步初始化的Spring Bean如果依赖了异步初始化的单例，则会阻塞等待依赖完成。
+ *     所有等待都受同一个截止时间约束，刷新结束时统一等待剩余的任务并汇总报告。
+ * </p>
+ * @author GaoZiYang
+ * @since 2021年11月29日 10:05:12
+ */
+final class AsyncInitialization {
+    /**
+     * 超时时间
+     */
+    private final Duration timeout;
+
+    /**
+     * 截止时间（{@link System#nanoTime()}）
+     */
+    private final long deadline;
+
+    /**
+     * 异步初始化任务，key为Spring Bean名称
+     */
+    private final Map<String, Task> tasks = new ConcurrentHashMap<>();
+
+    AsyncInitialization(Duration timeout) {
+        this.timeout = timeout;
+        this.deadline = System.nanoTime() + timeout.toNanos();
+    }
+
+    /**
+     * 在依赖的异步初始化全部完成后开始某个单例的异步初始化，该方法不会阻塞
+     * @param beanName Spring Bean名称
+     * @param dependencies 依赖的Spring Bean名称
+     * @param bean Spring Bean实例
+     */
+    void start(String beanName, Collection<String> dependencies, AsyncInitializingBean bean) {
+        Task task = new Task(beanName);
+        List<Task> dependencyTasks = getTasks(dependencies);
+        CompletableFuture<?>[] dependencyFutures = new CompletableFuture<?>[dependencyTasks.size()];
+        for (int i = 0; i < dependencyFutures.length; i++) {
+            dependencyFutures[i] = dependencyTasks.get(i).future;
+        }
+        task.future = CompletableFuture.allOf(dependencyFutures)
+                .handle((ignored, failure) -> failure)
+                .thenCompose(failure -> {
+                    if (failure != null) {
+                        task.failedDependency = findFailedDependency(dependencyTasks);
+                        return failed(new IllegalStateException("依赖的 " + task.failedDependency + " 异步初始化失败！"));
+                    }
+                    task.startNanos = System.nanoTime();
+                    return invoke(bean);
+                })
+                .whenComplete((ignored, failure) -> {
+                    task.endNanos = System.nanoTime();
+                    if (failure != null && task.failedDependency == null) {
+                        task.failure = unwrap(failure);
+                    }
+                });
+        tasks.put(beanName, task);
+    }
+
+    /**
+     * 阻塞等待依赖的异步初始化完成，用于同步初始化的Spring Bean
+     * @param beanName Spring Bean名称
+     * @param dependencies 依赖的Spring Bean名称
+     */
+    void awaitDependencies(String beanName, Collection<String> dependencies) {
+        for (Task dependency : getTasks(dependencies)) {
+            try {
+                dependency.future.get(remainingNanos(), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                throw new IllegalStateException("Spring Bean " + beanName + " 等待依赖的 " + dependency.beanName
+                        + " 异步初始化超时！", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Spring Bean " + beanName + " 依赖的 " + dependency.beanName
+                        + " 异步初始化失败！", e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("等待异步初始化时被中断！", e);
+            }
+        }
+    }
+
+    /**
+     * 等待所有异步初始化完成
+     * @param refreshFailure 刷新过程中抛出的异常，没有则为null
+     * @throws AsyncInitializationException 有异步初始化失败或超时时抛出，刷新过程中的异常会作为被抑制的异常附加在上面
+     */
+    void await(RuntimeException refreshFailure) {
+        Map<String, Throwable> failures = new TreeMap<>();
+        Map<String, String> skipped = new TreeMap<>();
+        List<String> timedOut = new ArrayList<>();
+        for (Task task : new TreeMap<>(tasks).values()) {
+            try {
+                task.future.get(remainingNanos(), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                timedOut.add(task.beanName);
+            } catch (ExecutionException e) {
+                if (task.failedDependency != null) {
+                    skipped.put(task.beanName, task.failedDependency);
+                } else {
+                    failures.put(task.beanName, task.failure == null ? e.getCause() : task.failure);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("等待异步初始化时被中断！", e);
+            }
+        }
+        if (failures.isEmpty() && skipped.isEmpty() && timedOut.isEmpty()) {
+            return;
+        }
+
+        StringBuilder report = new StringBuilder();
+        report.append("异步初始化失败：").append(failures.size()).append(" 个失败，")
+                .append(skipped.size()).append(" 个因依赖失败而跳过，")
+                .append(timedOut.size()).append(" 个超时（超时时间 ").append(timeout.toMillis()).append(" ms）");
+        for (Map.Entry<String, Throwable> entry : failures.entrySet()) {
+            report.append("\n  [失败] ").append(entry.getKey())
+                    .append("（耗时 ").append(tasks.get(entry.getKey()).elapsedMillis()).append(" ms）：")
+                    .append(entry.getValue());
+        }
+        for (Map.Entry<String, String> entry : skipped.entrySet()) {
+            report.append("\n  [跳过] ").append(entry.getKey()).append("：依赖的 ").append(entry.getValue()).append(" 初始化失败");
+        }
+        for (String beanName : timedOut) {
+            report.append("\n  [超时] ").append(beanName);
+        }
+        AsyncInitializationException exception = new AsyncInitializationException(report.toString(), failures, skipped, timedOut);
+        if (refreshFailure != null) {
+            exception.addSuppressed(refreshFailure);
+        }
+        throw exception;
+    }
+
+    /**
+     * 在刷新之外同步完成异步初始化
+     * @param beanName Spring Bean名称
+     * @param bean Spring Bean实例
+     * @param timeout 超时时间
+     */
+    static void join(String beanName, AsyncInitializingBean bean, Duration timeout) {
+        try {
+            invoke(bean).get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Spring Bean " + beanName + " 异步初始化超时！", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Spring Bean " + beanName + " 异步初始化失败！", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("等待异步初始化时被中断！", e);
+        }
+    }
+
+    /**
+     * 调用异步初始化方法，同步抛出的异常也转换为失败的future
+     * @param bean Spring Bean实例
+     * @return 初始化完成时完成的future
+     */
+    private static CompletableFuture<Void> invoke(AsyncInitializingBean bean) {
+        try {
+            CompletableFuture<?> future = bean.afterPropertiesSetAsync();
+            return future == null ? CompletableFuture.completedFuture(null) : future.thenApply(result -> null);
+        } catch (Throwable e) {
+            return failed(e);
+        }
+    }
+
+    private static CompletableFuture<Void> failed(Throwable failure) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        future.completeExceptionally(failure);
+        return future;
+    }
+
+    private static Throwable unwrap(Throwable failure) {
+        return failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+    }
+
+    private static String findFailedDependency(List<Task> dependencyTasks) {
+        for (Task dependency : dependencyTasks) {
+            if (dependency.future.isCompletedExceptionally()) {
+                return dependency.beanName;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 获取依赖中正在异步初始化的任务
+     * @param dependencies 依赖的Spring Bean名称
+     * @return 任务
+     */
+    private List<Task> getTasks(Collection<String> dependencies) {
+        List<Task> result = new ArrayList<>();
+        for (String dependency : dependencies) {
+            Task task = tasks.get(dependency);
+            if (task != null) {
+                result.add(task);
+            }
+        }
+        return result;
+    }
+
+    private long remainingNanos() {
+        return Math.max(0, deadline - System.nanoTime());
+    }
+
+    /**
+     * 一个单例的异步初始化任务
+     */
+    private static final class Task {
+        private final String beanName;
+        private volatile CompletableFuture<Void> future;
+        private volatile String failedDependency;
+        private volatile Throwable failure;
+        private volatile long startNanos;
+        private volatile long endNanos;
+
+        Task(String beanName) {
+            this.beanName = beanName;
+        }
+
+        long elapsedMillis() {
+            return startNanos == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(endNanos - startNanos);
+        }
+    }
+}
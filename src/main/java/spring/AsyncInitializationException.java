@@ -0,0 +1,56 @@
+package spring;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 容器刷新时异步初始化失败的汇总报告
+ * <br/>异常信息列出了所有初始化失败、因依赖失败而跳过以及超时的Spring Bean，每个失败的原因都会作为被抑制的异常附加在该异常上。
+ * @author GaoZiYang
+ * @since 2021年11月29日 09:52:40
+ */
+public class AsyncInitializationException extends IllegalStateException {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 初始化失败的Spring Bean及原因
+     */
+    private final Map<String, Throwable> failures;
+
+    /**
+     * 因依赖失败或超时而没有执行初始化的Spring Bean，value为导致跳过的依赖名称
+     */
+    private final Map<String, String> skipped;
+
+    /**
+     * 超时的Spring Bean
+     */
+    private final List<String> timedOut;
+
+    AsyncInitializationException(String report, Map<String, Throwable> failures, Map<String, String> skipped,
+                                 List<String> timedOut) {
+        super(report);
+        // 复制到可序列化的集合中，异常被序列化时报告内容不会丢失
+        this.failures = Collections.unmodifiableMap(new TreeMap<>(failures));
+        this.skipped = Collections.unmodifiableMap(new TreeMap<>(skipped));
+        this.timedOut = Collections.unmodifiableList(new ArrayList<>(timedOut));
+        for (Throwable failure : failures.values()) {
+            addSuppressed(failure);
+        }
+    }
+
+    public Map<String, Throwable> getFailures() {
+        return failures;
+    }
+
+    public Map<String, String> getSkipped() {
+        return skipped;
+    }
+
+    public List<String> getTimedOut() {
+        return timedOut;
+    }
+}
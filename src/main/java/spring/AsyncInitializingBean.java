@@ -0,0 +1,24 @@
+package spring;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 异步初始化Spring Bean的钩子
+ * <p>
+ *     容器刷新时，单例的异步初始化会并发执行，依赖它的Spring Bean会在返回的 {@link CompletableFuture} 完成之后才进行初始化，
+ *     所有异步初始化都完成后 {@link ApplicationContext#refresh()} 才会返回。在刷新之外创建的实例（原型、延迟初始化的单例等）
+ *     会同步等待初始化完成。
+ * </p>
+ * <p>
+ *     该方法应当尽快返回，把耗时的I/O放到自己的执行器中；它可能在依赖的Spring Bean完成初始化的线程中被调用。
+ * </p>
+ * @author GaoZiYang
+ * @since 2021年11月29日 09:36:18
+ */
+public interface AsyncInitializingBean {
+    /**
+     * 开始异步初始化
+     * @return 初始化完成时完成的future，返回null表示已经同步完成
+     */
+    CompletableFuture<?> afterPropertiesSetAsync();
+}
@@ -1,5 +1,7 @@
 package spring;
 
+import spring.annotation.Order;
+
 import java.util.Objects;
 
 /**
@@ -23,6 +25,31 @@ public class BeanDefinition {
      */
     private String scope;
 
+    /**
+     * 是否延迟初始化
+     */
+    private boolean lazyInit;
+
+    /**
+     * 池化作用域下对象池的最小容量
+     */
+    private int poolMinSize = 0;
+
+    /**
+     * 池化作用域下对象池的最大容量
+     */
+    private int poolMaxSize = 8;
+
+    /**
+     * 排序值，注入集合时越小越靠前
+     */
+    private int order = Order.LOWEST_PRECEDENCE;
+
+    /**
+     * 缓存的后置处理器链，由容器在第一次创建实例时构建
+     */
+    private volatile BeanPostProcessorChain beanPostProcessorChain;
+
     public Class<?> getCls() {
         return clazz;
     }
@@ -47,6 +74,54 @@ public class BeanDefinition {
         this.scope = scope;
     }
 
+    public boolean isLazyInit() {
+        return lazyInit;
+    }
+
+    public void setLazyInit(boolean lazyInit) {
+        this.lazyInit = lazyInit;
+    }
+
+    public int getPoolMinSize() {
+        return poolMinSize;
+    }
+
+    public void setPoolMinSize(int poolMinSize) {
+        this.poolMinSize = poolMinSize;
+    }
+
+    public int getPoolMaxSize() {
+        return poolMaxSize;
+    }
+
+    public void setPoolMaxSize(int poolMaxSize) {
+        this.poolMaxSize = poolMaxSize;
+    }
+
+    public int getOrder() {
+        return order;
+    }
+
+    public void setOrder(int order) {
+        this.order = order;
+    }
+
+    BeanPostProcessorChain getBeanPostProcessorChain() {
+        return beanPostProcessorChain;
+    }
+
+    void setBeanPostProcessorChain(BeanPostProcessorChain beanPostProcessorChain) {
+        this.beanPostProcessorChain = beanPostProcessorChain;
+    }
+
+    /**
+     * 判断是否为池化实例
+     * @return 如果返回true表示实例从对象池中借出，用完后可以归还
+     */
+    public boolean isPooled() {
+        return "pooled".equals(scope);
+    }
+
     /**
      * 判断是否为单例
      * @return 如果返回true表示为单例实例，反之为原型实例
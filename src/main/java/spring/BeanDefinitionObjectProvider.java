@@ -0,0 +1,57 @@
+package spring;
+
+/**
+ * 绑定到某个BeanDefinition的 {@link ObjectProvider}
+ * <p>
+ *     单例在第一次获取后保存在提供者自己的字段中，之后只需要一次volatile读取；其余作用域直接交给容器按照已绑定的定义创建，
+ *     跳过按名称查找BeanDefinition、指标记录等步骤。绑定之后即使同名的BeanDefinition被覆盖，提供者仍然使用原有的定义。
+ * </p>
+ * @param <T> Spring Bean类型
+ * @author GaoZiYang
+ * @since 2021年12月03日 10:05:32
+ */
+final class BeanDefinitionObjectProvider<T> implements ObjectProvider<T> {
+    /**
+     * 所属的应用上下文
+     */
+    private final ApplicationContext context;
+
+    /**
+     * 绑定的Spring Bean定义
+     */
+    private final BeanDefinition beanDefinition;
+
+    /**
+     * Spring Bean类型
+     */
+    private final Class<T> type;
+
+    /**
+     * 已经获取过的单例
+     */
+    private volatile T singleton;
+
+    BeanDefinitionObjectProvider(ApplicationContext context, BeanDefinition beanDefinition, Class<T> type) {
+        this.context = context;
+        this.beanDefinition = beanDefinition;
+        this.type = type;
+    }
+
+    @Override
+    public T get() {
+        T bean = singleton;
+        if (bean != null) {
+            return bean;
+        }
+        bean = type.cast(context.getBean(beanDefinition));
+        if (beanDefinition.isSingleton()) {
+            singleton = bean;
+        }
+        return bean;
+    }
+
+    @Override
+    public String toString() {
+        return "ObjectProvider[" + beanDefinition.getName() + ": " + type.getName() + "]";
+    }
+}
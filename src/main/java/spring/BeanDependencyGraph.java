@@ -0,0 +1,209 @@
+package spring;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * 单例Spring Bean之间的 {@link spring.annotation.Autowired} 依赖图
+ * <p>
+ *     依赖图只包含单例实例，如果单例依赖了原型实例，则原型实例的依赖会被展开并归属到该单例上，
+ *     因为创建原型实例时同样会创建它所依赖的单例实例。
+ * </p>
+ * @author GaoZiYang
+ * @since 2021年11月18日 10:12:40
+ */
+class BeanDependencyGraph {
+    /**
+     * 每个单例所依赖的单例名称
+     */
+    private final Map<String, Set<String>> dependencies = new TreeMap<>();
+
+    /**
+     * 每个单例被哪些单例依赖
+     */
+    private final Map<String, Set<String>> dependents = new TreeMap<>();
+
+    /**
+     * 根据BeanDefinition构建依赖图
+     * @param beanDefinitions Spring Bean定义，key为Spring Bean名称
+     * @param metadataResolver 获取Spring Bean类注入元数据的函数
+     */
+    BeanDependencyGraph(Map<String, BeanDefinition> beanDefinitions, Function<Class<?>, InjectionMetadata> metadataResolver) {
+        for (BeanDefinition beanDefinition : beanDefinitions.values()) {
+            if (!beanDefinition.isSingleton()) {
+                continue;
+            }
+            Set<String> singletonDependencies = new TreeSet<>();
+            collectDependencies(beanDefinition, beanDefinitions, metadataResolver, singletonDependencies, new HashSet<>());
+            // 自身引用由三级缓存处理，不作为依赖边
+            singletonDependencies.remove(beanDefinition.getName());
+            dependencies.put(beanDefinition.getName(), singletonDependencies);
+            dependents.computeIfAbsent(beanDefinition.getName(), key -> new TreeSet<>());
+            for (String dependency : singletonDependencies) {
+                dependents.computeIfAbsent(dependency, key -> new TreeSet<>()).add(beanDefinition.getName());
+            }
+        }
+    }
+
+    /**
+     * 收集某个Spring Bean所依赖的单例，经过原型实例的依赖会继续展开
+     * @param beanDefinition Spring Bean定义
+     * @param beanDefinitions 全部Spring Bean定义
+     * @param metadataResolver 获取注入元数据的函数
+     * @param result 收集结果
+     * @param visitedPrototypes 已经展开过的原型实例，用于避免原型之间的循环引用导致死循环
+     */
+    private static void collectDependencies(BeanDefinition beanDefinition, Map<String, BeanDefinition> beanDefinitions,
+                                            Function<Class<?>, InjectionMetadata> metadataResolver,
+                                            Set<String> result, Set<String> visitedPrototypes) {
+        InjectionMetadata metadata = metadataResolver.apply(beanDefinition.getCls());
+        for (InjectionMetadata.InjectionPoint injectionPoint : metadata.getInjectionPoints()) {
+            if (injectionPoint.isMultiple()) {
+                // 集合注入点依赖全部匹配元素类型的Spring Bean
+                for (BeanDefinition dependency : beanDefinitions.values()) {
+                    if (injectionPoint.getElementType().isAssignableFrom(dependency.getCls())) {
+                        collectDependency(dependency, beanDefinitions, metadataResolver, result, visitedPrototypes);
+                    }
+                }
+            } else {
+                BeanDefinition dependency = injectionPoint.isByType()
+                        ? findUniqueCandidate(injectionPoint.getLookupType(), beanDefinitions)
+                        : beanDefinitions.get(injectionPoint.getBeanName());
+                if (dependency != null) {
+                    collectDependency(dependency, beanDefinitions, metadataResolver, result, visitedPrototypes);
+                }
+            }
+        }
+    }
+
+    /**
+     * 查找唯一匹配类型的Spring Bean
+     * @param type Spring Bean类型
+     * @param beanDefinitions 全部Spring Bean定义
+     * @return 唯一匹配的Spring Bean定义，没有匹配或匹配多个时返回null
+     */
+    private static BeanDefinition findUniqueCandidate(Class<?> type, Map<String, BeanDefinition> beanDefinitions) {
+        BeanDefinition candidate = null;
+        for (BeanDefinition beanDefinition : beanDefinitions.values()) {
+            if (type.isAssignableFrom(beanDefinition.getCls())) {
+                if (candidate != null) {
+                    return null;
+                }
+                candidate = beanDefinition;
+            }
+        }
+        return candidate;
+    }
+
+    /**
+     * 记录一个依赖，单例直接作为依赖，原型实例则继续展开其依赖
+     * @param dependency 依赖的Spring Bean定义
+     * @param beanDefinitions 全部Spring Bean定义
+     * @param metadataResolver 获取注入元数据的函数
+     * @param result 收集结果
+     * @param visitedPrototypes 已经展开过的原型实例
+     */
+    private static void collectDependency(BeanDefinition dependency, Map<String, BeanDefinition> beanDefinitions,
+                                          Function<Class<?>, InjectionMetadata> metadataResolver,
+                                          Set<String> result, Set<String> visitedPrototypes) {
+        if (dependency.isSingleton()) {
+            result.add(dependency.getName());
+        } else if (visitedPrototypes.add(dependency.getName())) {
+            collectDependencies(dependency, beanDefinitions, metadataResolver, result, visitedPrototypes);
+        }
+    }
+
+    /**
+     * 按照拓扑顺序将单例分层，同一层中的单例互不依赖，可以并行创建
+     * <p>
+     *     处于循环依赖中的单例（以及依赖它们的单例）无法分层，不会出现在结果中，需要通过 {@link #getCyclicBeanNames()} 获取。
+     * </p>
+     * @return 分层结果
+     */
+    List<List<String>> topologicalWaves() {
+        return layer(new ArrayList<>());
+    }
+
+    /**
+     * 获取处于循环依赖中（或依赖了循环依赖）而无法分层的单例
+     * @return 按名称排序的单例名称
+     */
+    List<String> getCyclicBeanNames() {
+        List<String> cyclic = new ArrayList<>();
+        layer(cyclic);
+        return cyclic;
+    }
+
+    /**
+     * 使用Kahn算法对依赖图进行分层
+     * @param cyclic 用于接收无法分层的单例名称
+     * @return 分层结果
+     */
+    private List<List<String>> layer(List<String> cyclic) {
+        Map<String, Integer> inDegrees = new HashMap<>(dependencies.size() * 2);
+        for (Map.Entry<String, Set<String>> entry : dependencies.entrySet()) {
+            inDegrees.put(entry.getKey(), entry.getValue().size());
+        }
+
+        List<List<String>> waves = new ArrayList<>();
+        List<String> wave = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : inDegrees.entrySet()) {
+            if (entry.getValue() == 0) {
+                wave.add(entry.getKey());
+            }
+        }
+        int resolved = 0;
+        while (!wave.isEmpty()) {
+            Collections.sort(wave);
+            waves.add(wave);
+            resolved += wave.size();
+            List<String> nextWave = new ArrayList<>();
+            for (String beanName : wave) {
+                for (String dependent : dependents.get(beanName)) {
+                    if (inDegrees.merge(dependent, -1, Integer::sum) == 0) {
+                        nextWave.add(dependent);
+                    }
+                }
+            }
+            wave = nextWave;
+        }
+
+        if (resolved < dependencies.size()) {
+            for (Map.Entry<String, Integer> entry : inDegrees.entrySet()) {
+                if (entry.getValue() > 0) {
+                    cyclic.add(entry.getKey());
+                }
+            }
+            Collections.sort(cyclic);
+        }
+        return waves;
+    }
+
+    /**
+     * 获取某个单例所依赖的单例
+     * @param beanName Spring Bean名称
+     * @return 依赖的单例名称，不会返回null
+     */
+    Set<String> getDependencies(String beanName) {
+        Set<String> result = dependencies.get(beanName);
+        return result == null ? Collections.emptySet() : Collections.unmodifiableSet(result);
+    }
+
+    /**
+     * 获取依赖某个单例的单例
+     * @param beanName Spring Bean名称
+     * @return 依赖该单例的单例名称，不会返回null
+     */
+    Set<String> getDependents(String beanName) {
+        Set<String> result = dependents.get(beanName);
+        return result == null ? Collections.emptySet() : Collections.unmodifiableSet(result);
+    }
+
+    /**
+     * 获取依赖图中的全部单例名称
+     * @return 单例名称
+     */
+    Set<String> getBeanNames() {
+        return Collections.unmodifiableSet(dependencies.keySet());
+    }
+}
@@ -0,0 +1,188 @@
+package spring;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 按照依赖的相反顺序销毁单例
+ * <p>
+ *     对象池中空闲的实例最先被并行销毁，因为池化实例只会依赖单例，而不会被单例依赖。
+ * </p>
+ * <p>
+ *     每个单例的销毁都是一个future，它在所有依赖该单例的单例销毁完成后才开始，因此互不依赖的分支会并行销毁，
+ *     某个分支中销毁较慢的单例不会阻塞其他分支。每个单例的销毁都有独立的超时时间，超时或失败都只会打印异常，
+ *     不会阻止它所依赖的单例继续销毁。
+ * </p>
+ * <p>
+ *     处于循环依赖中（或依赖了循环依赖）的单例无法确定顺序，它们会在其他单例之前被串行销毁，
+ *     每次选择没有尚未销毁的依赖方的单例，实在无法选择时按名称顺序打破循环。
+ * </p>
+ * @author GaoZiYang
+ * @since 2021年12月01日 10:02:51
+ */
+final class BeanDestroyer {
+    /**
+     * 单例之间的依赖图
+     */
+    private final BeanDependencyGraph dependencyGraph;
+
+    /**
+     * 需要销毁的实例，key为Spring Bean名称
+     */
+    private final Map<String, Object> singletons;
+
+    /**
+     * 需要销毁的对象池中的空闲实例，key为Spring Bean名称
+     */
+    private final Map<String, List<Object>> pooledInstances;
+
+    /**
+     * 每个实例的销毁超时时间
+     */
+    private final Duration timeout;
+
+    /**
+     * @param dependencyGraph 单例之间的依赖图
+     * @param singletons 需要销毁的实例，key为Spring Bean名称
+     * @param pooledInstances 需要销毁的对象池中的空闲实例，key为Spring Bean名称
+     * @param timeout 每个实例的销毁超时时间
+     */
+    BeanDestroyer(BeanDependencyGraph dependencyGraph, Map<String, Object> singletons, Map<String, List<Object>> pooledInstances,
+                  Duration timeout) {
+        this.dependencyGraph = dependencyGraph;
+        this.singletons = singletons;
+        this.pooledInstances = pooledInstances;
+        this.timeout = timeout;
+    }
+
+    /**
+     * 销毁所有实例，所有实例都销毁完成（或超时）后才返回
+     */
+    void destroy() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "LightSpring-Destroy-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        // 超时的销毁线程不会被中断，因此使用不限数量的线程池，避免超时的销毁占满线程
+        ExecutorService executor = Executors.newCachedThreadPool(threadFactory);
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        try {
+            List<CompletableFuture<Void>> pooledFutures = new ArrayList<>();
+            for (Map.Entry<String, List<Object>> entry : pooledInstances.entrySet()) {
+                for (Object bean : entry.getValue()) {
+                    pooledFutures.add(destroyAsync(entry.getKey(), bean, executor, scheduler));
+                }
+            }
+            CompletableFuture.allOf(pooledFutures.toArray(new CompletableFuture<?>[0])).join();
+
+            List<String> cyclic = dependencyGraph.getCyclicBeanNames();
+            for (String beanName : orderCyclic(cyclic)) {
+                destroyAsync(beanName, singletons.get(beanName), executor, scheduler).join();
+            }
+
+            Set<String> cyclicSet = new HashSet<>(cyclic);
+            Map<String, CompletableFuture<Void>> futures = new HashMap<>();
+            for (String beanName : dependencyGraph.getBeanNames()) {
+                if (!cyclicSet.contains(beanName)) {
+                    destroyAfterDependents(beanName, cyclicSet, futures, executor, scheduler);
+                }
+            }
+            CompletableFuture.allOf(futures.values().toArray(new CompletableFuture<?>[0])).join();
+        } finally {
+            executor.shutdown();
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * 创建在所有依赖方销毁完成后销毁单例的future
+     * <br/>依赖方只可能是无环部分的单例，循环依赖中的单例已经先被销毁。
+     */
+    private CompletableFuture<Void> destroyAfterDependents(String beanName, Set<String> cyclic, Map<String, CompletableFuture<Void>> futures,
+                                                           ExecutorService executor, ScheduledExecutorService scheduler) {
+        CompletableFuture<Void> future = futures.get(beanName);
+        if (future != null) {
+            return future;
+        }
+        List<CompletableFuture<Void>> dependentFutures = new ArrayList<>();
+        for (String dependent : dependencyGraph.getDependents(beanName)) {
+            if (!cyclic.contains(dependent)) {
+                dependentFutures.add(destroyAfterDependents(dependent, cyclic, futures, executor, scheduler));
+            }
+        }
+        future = CompletableFuture.allOf(dependentFutures.toArray(new CompletableFuture<?>[0]))
+                .thenCompose(ignored -> destroyAsync(beanName, singletons.get(beanName), executor, scheduler));
+        futures.put(beanName, future);
+        return future;
+    }
+
+    /**
+     * 在执行器中销毁实例
+     * @return 销毁完成或超时时完成的future，不会异常完成
+     */
+    private CompletableFuture<Void> destroyAsync(String beanName, Object bean, ExecutorService executor, ScheduledExecutorService scheduler) {
+        if (!(bean instanceof DisposableBean)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        executor.execute(() -> {
+            try {
+                ((DisposableBean) bean).destroy();
+            } catch (Throwable e) {
+                new IllegalStateException("Spring Bean " + beanName + " 销毁失败！", e).printStackTrace();
+            } finally {
+                result.complete(null);
+            }
+        });
+        scheduler.schedule(() -> {
+            if (result.complete(null)) {
+                new IllegalStateException("Spring Bean " + beanName + " 销毁超时（" + timeout.toMillis() + " ms），不再等待！").printStackTrace();
+            }
+        }, timeout.toNanos(), TimeUnit.NANOSECONDS);
+        return result;
+    }
+
+    /**
+     * 确定循环依赖中单例的销毁顺序
+     * @param cyclic 按名称排序的单例名称
+     * @return 销毁顺序
+     */
+    private List<String> orderCyclic(Collection<String> cyclic) {
+        List<String> remaining = new ArrayList<>(cyclic);
+        List<String> order = new ArrayList<>(remaining.size());
+        while (!remaining.isEmpty()) {
+            String next = remaining.get(0);
+            for (String beanName : remaining) {
+                boolean hasRemainingDependent = false;
+                for (String dependent : dependencyGraph.getDependents(beanName)) {
+                    if (!dependent.equals(beanName) && remaining.contains(dependent)) {
+                        hasRemainingDependent = true;
+                        break;
+                    }
+                }
+                if (!hasRemainingDependent) {
+                    next = beanName;
+                    break;
+                }
+            }
+            remaining.remove(next);
+            order.add(next);
+        }
+        return order;
+    }
+}
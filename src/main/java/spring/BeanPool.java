@@ -0,0 +1,152 @@
+package spring;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * 池化作用域的无锁有界对象池
+ * <p>
+ *     对象池由固定长度的槽位数组实现，借出和归还都只通过CAS操作槽位，不需要加锁，也不会在借出或归还时分配额外的对象。
+ *     对象池为空时借出会直接创建新实例，对象池已满时归还的实例会交给丢弃回调处理（通常是销毁）。
+ * </p>
+ * @author GaoZiYang
+ * @since 2021年11月22日 14:32:09
+ */
+class BeanPool {
+    /**
+     * 缓存实例的槽位
+     */
+    private final AtomicReferenceArray<Object> slots;
+
+    /**
+     * 对象池的最小容量
+     */
+    private final int minSize;
+
+    /**
+     * 创建新实例的工厂
+     */
+    private final Supplier<Object> factory;
+
+    /**
+     * 处理无法放入对象池的实例
+     */
+    private final Consumer<Object> discarder;
+
+    /**
+     * 对象池创建的实例的实际类型，经过后置处理器包装的实例（例如代理）与Spring Bean类并不相同
+     */
+    private volatile Class<?> instanceType;
+
+    BeanPool(int minSize, int maxSize, Supplier<Object> factory, Consumer<Object> discarder) {
+        if (maxSize <= 0 || minSize < 0 || minSize > maxSize) {
+            throw new IllegalArgumentException("对象池容量配置错误：minSize=" + minSize + "，maxSize=" + maxSize);
+        }
+        this.slots = new AtomicReferenceArray<>(maxSize);
+        this.minSize = minSize;
+        this.factory = factory;
+        this.discarder = discarder;
+    }
+
+    /**
+     * 预先创建最小容量的实例
+     * <br/>只为空槽位创建实例，如果创建期间槽位已被其他线程填充，新实例会被丢弃。
+     */
+    void prefill() {
+        for (int i = 0; i < minSize; i++) {
+            if (slots.get(i) != null) {
+                continue;
+            }
+            Object bean = create();
+            if (!slots.compareAndSet(i, null, bean)) {
+                discarder.accept(bean);
+            }
+        }
+    }
+
+    /**
+     * 借出实例，对象池为空时创建新实例
+     * @return 实例
+     */
+    Object borrow() {
+        int length = slots.length();
+        int start = probe(length);
+        for (int i = 0; i < length; i++) {
+            int index = (start + i) % length;
+            if (slots.get(index) != null) {
+                Object bean = slots.getAndSet(index, null);
+                if (bean != null) {
+                    return bean;
+                }
+            }
+        }
+        return create();
+    }
+
+    /**
+     * 归还实例
+     * @param bean 实例
+     * @return 如果实例被放回对象池则返回true，对象池已满时实例会被丢弃并返回false
+     */
+    boolean giveBack(Object bean) {
+        int length = slots.length();
+        int start = probe(length);
+        for (int i = 0; i < length; i++) {
+            int index = (start + i) % length;
+            if (slots.get(index) == null && slots.compareAndSet(index, null, bean)) {
+                return true;
+            }
+        }
+        discarder.accept(bean);
+        return false;
+    }
+
+    /**
+     * 判断对象是否可能是由对象池创建的实例
+     * @param bean 对象
+     * @return 如果对象的类型与对象池创建的实例类型一致则返回true
+     */
+    boolean isPoolInstance(Object bean) {
+        Class<?> type = instanceType;
+        return type != null && type.isInstance(bean);
+    }
+
+    /**
+     * 取出对象池中所有空闲的实例，用于关闭容器时销毁
+     * @return 空闲的实例
+     */
+    List<Object> drain() {
+        List<Object> beans = new ArrayList<>();
+        for (int i = 0; i < slots.length(); i++) {
+            Object bean = slots.getAndSet(i, null);
+            if (bean != null) {
+                beans.add(bean);
+            }
+        }
+        return beans;
+    }
+
+    /**
+     * 创建新实例并记录实例的实际类型
+     * @return 新实例
+     */
+    private Object create() {
+        Object bean = factory.get();
+        if (instanceType == null) {
+            instanceType = bean.getClass();
+        }
+        return bean;
+    }
+
+    /**
+     * 根据当前线程计算起始槽位，使不同线程尽量操作不同的槽位以减少CAS冲突
+     * @param length 槽位数量
+     * @return 起始槽位
+     */
+    private static int probe(int length) {
+        return (int) (Thread.currentThread().getId() % length);
+    }
+}
@@ -2,10 +2,27 @@ package spring;
 
 /**
  * Spring Bean的后置处理器
+ * <p>
+ *     后置处理器可以通过 {@link #supports(String, Class)} 声明自己只处理哪些Spring Bean，
+ *     容器会为每个BeanDefinition预先筛选出适用的后置处理器，不适用的后置处理器在创建实例时不会被调用。
+ * </p>
  * @author GaoZiYang
  * @since 2021年11月10日 17:45:33
  */
 public interface BeanPostProcessor {
+    /**
+     * 判断该后置处理器是否需要处理某个Spring Bean
+     * <p>
+     *     每个BeanDefinition只会判断一次，结果会被缓存，直到有新的后置处理器被注册，因此实现中不应依赖可变的状态。
+     * </p>
+     * @param beanName Bean名称
+     * @param beanClass Spring Bean的类型
+     * @return 如果返回false，则不会为该Spring Bean调用任何钩子函数
+     */
+    default boolean supports(String beanName, Class<?> beanClass) {
+        return true;
+    }
+
     /**
      * Spring Bean初始化前的钩子函数
      * @param bean Spring Bean对象
@@ -0,0 +1,122 @@
+package spring;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 某个BeanDefinition适用的后置处理器链
+ * <p>
+ *     在第一次创建该Spring Bean时，根据 {@link BeanPostProcessor#supports(String, Class)} 以及后置处理器是否重写了对应的钩子函数，
+ *     预先筛选出初始化前后（以及提前暴露单例引用时）需要调用的后置处理器数组，之后每次创建实例（尤其是原型实例）时直接遍历数组，不再调用无事可做的后置处理器。
+ * </p>
+ * <p>
+ *     处理器链记录了构建时后置处理器集合的版本号，注册新的后置处理器后版本号会增加，旧的处理器链随之失效并在下次使用时重新构建。
+ * </p>
+ * @author GaoZiYang
+ * @since 2021年11月27日 10:21:47
+ */
+final class BeanPostProcessorChain {
+    /**
+     * 初始化前钩子函数的名称
+     */
+    private static final String BEFORE_INITIALIZATION_METHOD = "postProcessBeforeInitialization";
+    /**
+     * 初始化后钩子函数的名称
+     */
+    private static final String AFTER_INITIALIZATION_METHOD = "postProcessAfterInitialization";
+    /**
+     * 获取提前暴露引用的钩子函数名称
+     */
+    private static final String EARLY_BEAN_REFERENCE_METHOD = "getEarlyBeanReference";
+
+    /**
+     * 构建时后置处理器集合的版本号
+     */
+    private final int version;
+
+    /**
+     * 初始化前需要调用的后置处理器
+     */
+    private final BeanPostProcessor[] beforeInitialization;
+
+    /**
+     * 初始化后需要调用的后置处理器
+     */
+    private final BeanPostProcessor[] afterInitialization;
+
+    /**
+     * 提前暴露单例引用时需要调用的后置处理器
+     */
+    private final SmartInstantiationAwareBeanPostProcessor[] earlyBeanReference;
+
+    private BeanPostProcessorChain(int version, BeanPostProcessor[] beforeInitialization, BeanPostProcessor[] afterInitialization,
+                                   SmartInstantiationAwareBeanPostProcessor[] earlyBeanReference) {
+        this.version = version;
+        this.beforeInitialization = beforeInitialization;
+        this.afterInitialization = afterInitialization;
+        this.earlyBeanReference = earlyBeanReference;
+    }
+
+    /**
+     * 为某个BeanDefinition筛选后置处理器
+     * @param beanDefinition Spring Bean定义
+     * @param beanPostProcessors 当前注册的全部后置处理器，按照注册顺序排列
+     * @param version 后置处理器集合的版本号
+     * @return 处理器链
+     */
+    static BeanPostProcessorChain build(BeanDefinition beanDefinition, List<BeanPostProcessor> beanPostProcessors, int version) {
+        List<BeanPostProcessor> before = new ArrayList<>();
+        List<BeanPostProcessor> after = new ArrayList<>();
+        List<SmartInstantiationAwareBeanPostProcessor> earlyReference = new ArrayList<>();
+        for (BeanPostProcessor beanPostProcessor : beanPostProcessors) {
+            if (!beanPostProcessor.supports(beanDefinition.getName(), beanDefinition.getCls())) {
+                continue;
+            }
+            if (overrides(beanPostProcessor, BEFORE_INITIALIZATION_METHOD, BeanPostProcessor.class)) {
+                before.add(beanPostProcessor);
+            }
+            if (overrides(beanPostProcessor, AFTER_INITIALIZATION_METHOD, BeanPostProcessor.class)) {
+                after.add(beanPostProcessor);
+            }
+            if (beanPostProcessor instanceof SmartInstantiationAwareBeanPostProcessor
+                    && overrides(beanPostProcessor, EARLY_BEAN_REFERENCE_METHOD, SmartInstantiationAwareBeanPostProcessor.class)) {
+                earlyReference.add((SmartInstantiationAwareBeanPostProcessor) beanPostProcessor);
+            }
+        }
+        return new BeanPostProcessorChain(version,
+                before.toArray(new BeanPostProcessor[0]), after.toArray(new BeanPostProcessor[0]),
+                earlyReference.toArray(new SmartInstantiationAwareBeanPostProcessor[0]));
+    }
+
+    /**
+     * 判断后置处理器是否重写了某个钩子函数，使用接口默认实现的钩子函数原样返回实例，无需调用
+     * @param beanPostProcessor 后置处理器
+     * @param methodName 钩子函数名称
+     * @param defaultDeclaringClass 声明默认实现的接口
+     * @return 如果返回true表示重写了该钩子函数
+     */
+    private static boolean overrides(BeanPostProcessor beanPostProcessor, String methodName, Class<?> defaultDeclaringClass) {
+        try {
+            return beanPostProcessor.getClass().getMethod(methodName, String.class, Object.class).getDeclaringClass()
+                    != defaultDeclaringClass;
+        } catch (NoSuchMethodException e) {
+            return true;
+        }
+    }
+
+    int getVersion() {
+        return version;
+    }
+
+    BeanPostProcessor[] getBeforeInitialization() {
+        return beforeInitialization;
+    }
+
+    BeanPostProcessor[] getAfterInitialization() {
+        return afterInitialization;
+    }
+
+    SmartInstantiationAwareBeanPostProcessor[] getEarlyBeanReference() {
+        return earlyBeanReference;
+    }
+}
@@ -0,0 +1,73 @@
+package spring;
+
+/**
+ * 冻结后的上下文中某个Spring Bean的类型化句柄
+ * <p>
+ *     句柄在创建时已经确定了Spring Bean在冻结注册表中的下标，对于冻结时已经创建的单例，{@link #get()} 只需要一次数组读取，
+ *     不再进行任何Map查找；其他Spring Bean会回退到 {@link ApplicationContext#getBean(String)}。
+ *     适合在热点路径上代替按名称动态获取Spring Bean，句柄本身可以被缓存并在多个线程间共享。
+ * </p>
+ * @param <T> Spring Bean类型
+ * @author GaoZiYang
+ * @since 2021年11月30日 10:31:05
+ */
+public final class BeanRef<T> {
+    /**
+     * 所属的应用上下文
+     */
+    private final ApplicationContext context;
+
+    /**
+     * 冻结注册表中的单例数组
+     */
+    private final Object[] singletons;
+
+    /**
+     * Spring Bean在冻结注册表中的下标
+     */
+    private final int index;
+
+    /**
+     * Spring Bean名称
+     */
+    private final String name;
+
+    /**
+     * Spring Bean类型
+     */
+    private final Class<T> type;
+
+    BeanRef(ApplicationContext context, Object[] singletons, int index, String name, Class<T> type) {
+        this.context = context;
+        this.singletons = singletons;
+        this.index = index;
+        this.name = name;
+        this.type = type;
+    }
+
+    /**
+     * 获取Spring Bean对象
+     * @return Spring Bean对象
+     */
+    @SuppressWarnings("unchecked")
+    public T get() {
+        Object bean = singletons[index];
+        if (bean != null) {
+            return (T) bean;
+        }
+        return type.cast(context.getBean(name));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Class<T> getType() {
+        return type;
+    }
+
+    @Override
+    public String toString() {
+        return "BeanRef[" + name + ": " + type.getName() + "]";
+    }
+}
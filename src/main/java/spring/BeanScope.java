@@ -0,0 +1,29 @@
+package spring;
+
+import java.util.function.Supplier;
+
+/**
+ * Spring Bean作用域的扩展接口
+ * <p>
+ *     通过 {@link ApplicationContext#registerScope(String, BeanScope)} 注册后，<code>@Scope</code> 的值与注册名称相同的Spring Bean
+ *     都会交给该作用域管理，由作用域决定何时复用已有实例、何时创建新实例。
+ * </p>
+ * @author GaoZiYang
+ * @since 2021年11月23日 10:05:27
+ */
+public interface BeanScope {
+    /**
+     * 从作用域中获取实例，如果作用域中没有则通过对象工厂创建并缓存
+     * @param beanName Spring Bean名称
+     * @param objectFactory 创建新实例的对象工厂
+     * @return 实例对象
+     */
+    Object get(String beanName, Supplier<Object> objectFactory);
+
+    /**
+     * 从作用域中移除实例
+     * @param beanName Spring Bean名称
+     * @return 被移除的实例，如果作用域中没有则返回null
+     */
+    Object remove(String beanName);
+}
@@ -0,0 +1,51 @@
+package spring;
+
+/**
+ * 从字节码中读取的类元数据，用于在不加载类的情况下判断其是否为Spring Bean
+ * @author GaoZiYang
+ * @since 2021年11月12日 10:21:37
+ */
+public class ClassMetadata {
+    /**
+     * 类的全限定名
+     */
+    private final String className;
+
+    /**
+     * 是否被 {@link spring.annotation.Component} 声明
+     */
+    private final boolean component;
+
+    /**
+     * 组件名称，未指定时为空字符串
+     */
+    private final String componentName;
+
+    /**
+     * 作用域，未声明 {@link spring.annotation.Scope} 时为null
+     */
+    private final String scope;
+
+    public ClassMetadata(String className, boolean component, String componentName, String scope) {
+        this.className = className;
+        this.component = component;
+        this.componentName = componentName;
+        this.scope = scope;
+    }
+
+    public String getClassName() {
+        return className;
+    }
+
+    public boolean isComponent() {
+        return component;
+    }
+
+    public String getComponentName() {
+        return componentName;
+    }
+
+    public String getScope() {
+        return scope;
+    }
+}
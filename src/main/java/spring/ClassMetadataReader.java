@@ -0,0 +1,272 @@
+package spring;
+
+import spring.annotation.Component;
+import spring.annotation.Scope;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 字节码元数据读取器
+ * <p>
+ *     直接解析class文件的常量池以及 <b>RuntimeVisibleAnnotations</b> 属性，从而在不加载类（不触发验证和静态初始化）的情况下
+ *     读取 {@link spring.annotation.Component} 和 {@link spring.annotation.Scope} 注解的信息。
+ * </p>
+ * @author GaoZiYang
+ * @since 2021年11月12日 10:35:02
+ */
+public final class ClassMetadataReader {
+    /**
+     * class文件的魔数
+     */
+    private static final int MAGIC = 0xCAFEBABE;
+    /**
+     * 运行时可见注解的属性名称
+     */
+    private static final String RUNTIME_VISIBLE_ANNOTATIONS = "RuntimeVisibleAnnotations";
+    /**
+     * Component注解的类型描述符
+     */
+    private static final String COMPONENT_DESCRIPTOR = descriptorOf(Component.class);
+    /**
+     * Scope注解的类型描述符
+     */
+    private static final String SCOPE_DESCRIPTOR = descriptorOf(Scope.class);
+    /**
+     * 注解中value属性的名称
+     */
+    private static final String VALUE = "value";
+
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_INTEGER = 3;
+    private static final int CONSTANT_FLOAT = 4;
+    private static final int CONSTANT_LONG = 5;
+    private static final int CONSTANT_DOUBLE = 6;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_STRING = 8;
+    private static final int CONSTANT_FIELD_REF = 9;
+    private static final int CONSTANT_METHOD_REF = 10;
+    private static final int CONSTANT_INTERFACE_METHOD_REF = 11;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+    private static final int CONSTANT_METHOD_HANDLE = 15;
+    private static final int CONSTANT_METHOD_TYPE = 16;
+    private static final int CONSTANT_DYNAMIC = 17;
+    private static final int CONSTANT_INVOKE_DYNAMIC = 18;
+    private static final int CONSTANT_MODULE = 19;
+    private static final int CONSTANT_PACKAGE = 20;
+
+    private ClassMetadataReader() {}
+
+    /**
+     * 读取class文件的元数据
+     * @param inputStream class文件输入流，调用方负责关闭
+     * @return 类元数据
+     * @throws IOException 读取失败或文件格式不正确时抛出
+     */
+    public static ClassMetadata read(InputStream inputStream) throws IOException {
+        DataInputStream in = new DataInputStream(inputStream);
+        if (in.readInt() != MAGIC) {
+            throw new IOException("不是合法的class文件！");
+        }
+        // minor_version、major_version
+        in.readUnsignedShort();
+        in.readUnsignedShort();
+
+        // 常量池中只保留UTF8常量和Class常量指向的名称索引，其余常量直接跳过
+        int constantPoolCount = in.readUnsignedShort();
+        String[] utf8Constants = new String[constantPoolCount];
+        int[] classNameIndexes = new int[constantPoolCount];
+        for (int i = 1; i < constantPoolCount; i++) {
+            int tag = in.readUnsignedByte();
+            switch (tag) {
+                case CONSTANT_UTF8:
+                    utf8Constants[i] = in.readUTF();
+                    break;
+                case CONSTANT_CLASS:
+                    classNameIndexes[i] = in.readUnsignedShort();
+                    break;
+                case CONSTANT_STRING:
+                case CONSTANT_METHOD_TYPE:
+                case CONSTANT_MODULE:
+                case CONSTANT_PACKAGE:
+                    skipFully(in, 2);
+                    break;
+                case CONSTANT_METHOD_HANDLE:
+                    skipFully(in, 3);
+                    break;
+                case CONSTANT_INTEGER:
+                case CONSTANT_FLOAT:
+                case CONSTANT_FIELD_REF:
+                case CONSTANT_METHOD_REF:
+                case CONSTANT_INTERFACE_METHOD_REF:
+                case CONSTANT_NAME_AND_TYPE:
+                case CONSTANT_DYNAMIC:
+                case CONSTANT_INVOKE_DYNAMIC:
+                    skipFully(in, 4);
+                    break;
+                case CONSTANT_LONG:
+                case CONSTANT_DOUBLE:
+                    skipFully(in, 8);
+                    // long和double常量占用两个常量池槽位
+                    i++;
+                    break;
+                default:
+                    throw new IOException("未知的常量池类型：" + tag);
+            }
+        }
+
+        // access_flags
+        in.readUnsignedShort();
+        String className = utf8Constants[classNameIndexes[in.readUnsignedShort()]].replace('/', '.');
+        // super_class
+        in.readUnsignedShort();
+        int interfacesCount = in.readUnsignedShort();
+        skipFully(in, interfacesCount * 2);
+        // 跳过字段表和方法表
+        skipMembers(in);
+        skipMembers(in);
+
+        boolean component = false;
+        String componentName = "";
+        String scope = null;
+        int attributesCount = in.readUnsignedShort();
+        for (int i = 0; i < attributesCount; i++) {
+            String attributeName = utf8Constants[in.readUnsignedShort()];
+            int attributeLength = in.readInt();
+            if (!RUNTIME_VISIBLE_ANNOTATIONS.equals(attributeName)) {
+                skipFully(in, attributeLength);
+                continue;
+            }
+            int annotationsCount = in.readUnsignedShort();
+            for (int j = 0; j < annotationsCount; j++) {
+                String annotationType = utf8Constants[in.readUnsignedShort()];
+                String value = readAnnotationValue(in, utf8Constants);
+                if (COMPONENT_DESCRIPTOR.equals(annotationType)) {
+                    component = true;
+                    componentName = value == null ? "" : value;
+                } else if (SCOPE_DESCRIPTOR.equals(annotationType)) {
+                    scope = value == null ? "singleton" : value;
+                }
+            }
+        }
+        return new ClassMetadata(className, component, componentName, scope);
+    }
+
+    /**
+     * 读取注解的全部属性，返回其中字符串类型的value属性
+     * @param in 输入流
+     * @param utf8Constants 常量池中的UTF8常量
+     * @return value属性的值，未显式指定时返回null
+     * @throws IOException 读取失败时抛出
+     */
+    private static String readAnnotationValue(DataInputStream in, String[] utf8Constants) throws IOException {
+        String value = null;
+        int pairsCount = in.readUnsignedShort();
+        for (int i = 0; i < pairsCount; i++) {
+            String elementName = utf8Constants[in.readUnsignedShort()];
+            int tag = in.readUnsignedByte();
+            if (VALUE.equals(elementName) && tag == 's') {
+                value = utf8Constants[in.readUnsignedShort()];
+            } else {
+                skipElementValueBody(in, tag);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * 跳过一个注解（不包括类型索引）
+     * @param in 输入流
+     * @throws IOException 读取失败时抛出
+     */
+    private static void skipAnnotationBody(DataInputStream in) throws IOException {
+        int pairsCount = in.readUnsignedShort();
+        for (int i = 0; i < pairsCount; i++) {
+            in.readUnsignedShort();
+            skipElementValueBody(in, in.readUnsignedByte());
+        }
+    }
+
+    /**
+     * 跳过注解属性值（不包括标签）
+     * @param in 输入流
+     * @param tag 属性值的标签
+     * @throws IOException 读取失败时抛出
+     */
+    private static void skipElementValueBody(DataInputStream in, int tag) throws IOException {
+        switch (tag) {
+            case 'B':
+            case 'C':
+            case 'D':
+            case 'F':
+            case 'I':
+            case 'J':
+            case 'S':
+            case 'Z':
+            case 's':
+            case 'c':
+                skipFully(in, 2);
+                break;
+            case 'e':
+                skipFully(in, 4);
+                break;
+            case '@':
+                in.readUnsignedShort();
+                skipAnnotationBody(in);
+                break;
+            case '[':
+                int valuesCount = in.readUnsignedShort();
+                for (int i = 0; i < valuesCount; i++) {
+                    skipElementValueBody(in, in.readUnsignedByte());
+                }
+                break;
+            default:
+                throw new IOException("未知的注解属性类型：" + (char) tag);
+        }
+    }
+
+    /**
+     * 跳过字段表或方法表
+     * @param in 输入流
+     * @throws IOException 读取失败时抛出
+     */
+    private static void skipMembers(DataInputStream in) throws IOException {
+        int membersCount = in.readUnsignedShort();
+        for (int i = 0; i < membersCount; i++) {
+            // access_flags、name_index、descriptor_index
+            skipFully(in, 6);
+            int attributesCount = in.readUnsignedShort();
+            for (int j = 0; j < attributesCount; j++) {
+                in.readUnsignedShort();
+                skipFully(in, in.readInt());
+            }
+        }
+    }
+
+    /**
+     * 跳过指定数量的字节
+     * @param in 输入流
+     * @param length 字节数
+     * @throws IOException 读取失败时抛出
+     */
+    private static void skipFully(DataInputStream in, int length) throws IOException {
+        int skipped = 0;
+        while (skipped < length) {
+            int n = in.skipBytes(length - skipped);
+            if (n <= 0) {
+                throw new IOException("class文件不完整！");
+            }
+            skipped += n;
+        }
+    }
+
+    /**
+     * 获取注解类型的描述符
+     * @param annotationType 注解类型
+     * @return 描述符，例如 Lspring/annotation/Component;
+     */
+    private static String descriptorOf(Class<?> annotationType) {
+        return "L" + annotationType.getName().replace('.', '/') + ";";
+    }
+}
@@ -0,0 +1,307 @@
+package spring;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.ProviderNotFoundException;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 类路径扫描的根路径
+ * <p>
+ *     基于 {@link java.nio.file} 实现，既可以是普通目录，也可以是jar包中的目录（通过zip文件系统直接读取，无需解压），
+ *     还支持 <code>jar:file:/app.jar!/BOOT-INF/classes!/com/example</code> 以及
+ *     <code>jar:file:/app.jar!/BOOT-INF/lib/lib.jar!/com/example</code> 这类嵌套的类路径。
+ * </p>
+ * <p>
+ *     Java 8的zip文件系统只能打开默认文件系统中的文件，无法直接打开嵌套在jar包中的jar包，
+ *     此时会先将内层jar包复制为临时文件再打开，临时文件在关闭扫描根路径时删除。
+ * </p>
+ * @author GaoZiYang
+ * @since 2021年11月16日 09:42:15
+ */
+class ClassPathRoot implements Closeable {
+    /**
+     * jar包URL的协议
+     */
+    private static final String JAR_PROTOCOL = "jar";
+    /**
+     * 文件URL的协议
+     */
+    private static final String FILE_PROTOCOL = "file";
+    /**
+     * jar包URL中的路径分隔符
+     */
+    private static final String JAR_URL_SEPARATOR = "!/";
+    /**
+     * class文件的后缀
+     */
+    private static final String CLASS_FILE_SUFFIX = ".class";
+    /**
+     * 复制内层jar包时临时文件的前缀
+     */
+    private static final String NESTED_JAR_PREFIX = "lightspring-nested-";
+
+    /**
+     * 扫描路径对应的目录
+     */
+    private final Path path;
+
+    /**
+     * 扫描路径对应的包名
+     */
+    private final String basePackage;
+
+    /**
+     * 为读取jar包而打开的文件系统，在扫描结束后需要关闭
+     */
+    private final List<FileSystem> fileSystems;
+
+    /**
+     * 为打开内层jar包而复制出的临时文件，在文件系统关闭后删除
+     */
+    private final List<Path> temporaryFiles;
+
+    private ClassPathRoot(Path path, String basePackage, List<FileSystem> fileSystems, List<Path> temporaryFiles) {
+        this.path = path;
+        this.basePackage = basePackage;
+        this.fileSystems = fileSystems;
+        this.temporaryFiles = temporaryFiles;
+    }
+
+    /**
+     * 根据类加载器返回的资源URL打开扫描根路径
+     * @param url 资源URL，支持file和jar协议
+     * @param basePackage 包名
+     * @return 扫描根路径
+     * @throws IOException 无法打开jar包时抛出
+     */
+    static ClassPathRoot open(URL url, String basePackage) throws IOException {
+        String normalizedPackage = basePackage.replaceAll("\\.+", ".");
+        try {
+            if (FILE_PROTOCOL.equals(url.getProtocol())) {
+                return new ClassPathRoot(Paths.get(url.toURI()), normalizedPackage, new ArrayList<>(), new ArrayList<>());
+            }
+            if (!JAR_PROTOCOL.equals(url.getProtocol())) {
+                throw new IllegalStateException("不支持的类路径协议：" + url);
+            }
+
+            // jar:file:/app.jar!/BOOT-INF/classes!/com/example
+            String[] segments = url.toString().substring(JAR_PROTOCOL.length() + 1).split(JAR_URL_SEPARATOR);
+            List<FileSystem> fileSystems = new ArrayList<>();
+            List<Path> temporaryFiles = new ArrayList<>();
+            try {
+                FileSystem fileSystem = FileSystems.newFileSystem(Paths.get(new URI(segments[0])), (ClassLoader) null);
+                fileSystems.add(fileSystem);
+                Path current = fileSystem.getPath("/");
+                for (int i = 1; i < segments.length; i++) {
+                    // URL中的片段仍然是百分号编码的，例如空格为%20
+                    current = current.resolve(decode(segments[i]));
+                    // 中间的片段如果是一个文件，说明是嵌套在jar包中的jar包，需要继续打开
+                    if (i < segments.length - 1 && Files.isRegularFile(current)) {
+                        FileSystem nestedFileSystem = openNestedJar(current, temporaryFiles);
+                        fileSystems.add(nestedFileSystem);
+                        current = nestedFileSystem.getPath("/");
+                    }
+                }
+                return new ClassPathRoot(current, normalizedPackage, fileSystems, temporaryFiles);
+            } catch (IOException | RuntimeException e) {
+                close(fileSystems, temporaryFiles);
+                throw e;
+            }
+        } catch (URISyntaxException e) {
+            throw new IOException("无法解析类路径：" + url, e);
+        }
+    }
+
+    /**
+     * 打开嵌套在jar包中的jar包
+     * <br/>Java 12及以上的zip文件系统可以直接打开位于其他zip文件系统中的文件；更早的版本会抛出 {@link ProviderNotFoundException}，
+     * 此时先将内层jar包复制为临时文件再打开。
+     * @param nestedJar 内层jar包在外层文件系统中的路径
+     * @param temporaryFiles 复制出的临时文件，用于在关闭时删除
+     * @return 内层jar包的文件系统
+     * @throws IOException 无法读取或复制内层jar包时抛出
+     */
+    private static FileSystem openNestedJar(Path nestedJar, List<Path> temporaryFiles) throws IOException {
+        try {
+            return FileSystems.newFileSystem(nestedJar, (ClassLoader) null);
+        } catch (ProviderNotFoundException e) {
+            return openCopiedJar(nestedJar, temporaryFiles);
+        }
+    }
+
+    /**
+     * 将内层jar包复制为本地临时文件并打开
+     * @param nestedJar 内层jar包在外层文件系统中的路径
+     * @param temporaryFiles 复制出的临时文件，用于在关闭时删除
+     * @return 临时文件的文件系统
+     * @throws IOException 无法复制内层jar包时抛出
+     */
+    private static FileSystem openCopiedJar(Path nestedJar, List<Path> temporaryFiles) throws IOException {
+        Path temporaryFile = Files.createTempFile(NESTED_JAR_PREFIX, ".jar");
+        temporaryFiles.add(temporaryFile);
+        try (InputStream inputStream = Files.newInputStream(nestedJar)) {
+            Files.copy(inputStream, temporaryFile, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return FileSystems.newFileSystem(temporaryFile, (ClassLoader) null);
+    }
+
+    /**
+     * 解码URL片段中的百分号编码，按照UTF-8解析。与 {@link java.net.URLDecoder} 不同，加号不会被解码为空格
+     * @param segment URL片段
+     * @return 解码后的片段
+     */
+    private static String decode(String segment) {
+        if (segment.indexOf('%') < 0) {
+            return segment;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(segment.length());
+        for (int i = 0; i < segment.length(); i++) {
+            char c = segment.charAt(i);
+            if (c == '%' && i + 2 < segment.length() && Character.digit(segment.charAt(i + 1), 16) >= 0
+                    && Character.digit(segment.charAt(i + 2), 16) >= 0) {
+                bytes.write(Character.digit(segment.charAt(i + 1), 16) << 4 | Character.digit(segment.charAt(i + 2), 16));
+                i += 2;
+            } else {
+                byte[] encoded = String.valueOf(c).getBytes(StandardCharsets.UTF_8);
+                bytes.write(encoded, 0, encoded.length);
+            }
+        }
+        return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 查找某个包在类路径中对应的全部资源URL，同一个包可能同时存在于多个类路径（目录或jar包）中
+     * @param classLoader 类加载器
+     * @param basePackage 包名
+     * @return 资源URL，至少包含一个
+     * @throws IOException 无法读取类路径时抛出
+     */
+    static List<URL> findResources(ClassLoader classLoader, String basePackage) throws IOException {
+        String resolvedScanPath = basePackage.replaceAll("\\.+", "/");
+        List<URL> urls = Collections.list(classLoader.getResources(resolvedScanPath));
+        if (urls.isEmpty()) {
+            throw new NullPointerException("未找到此路径！");
+        }
+        return urls;
+    }
+
+    /**
+     * 打开多个包在类路径中对应的全部扫描根路径，同一个包可能同时存在于多个类路径（目录或jar包）中
+     * @param classLoader 类加载器
+     * @param basePackages 包名
+     * @return 扫描根路径，使用完毕后需要逐个关闭
+     * @throws IOException 无法打开jar包时抛出
+     */
+    static List<ClassPathRoot> openAll(ClassLoader classLoader, String...basePackages) throws IOException {
+        List<ClassPathRoot> roots = new ArrayList<>(basePackages.length);
+        try {
+            for (String basePackage : basePackages) {
+                for (URL url : findResources(classLoader, basePackage)) {
+                    roots.add(open(url, basePackage));
+                }
+            }
+            return roots;
+        } catch (IOException | RuntimeException e) {
+            for (ClassPathRoot root : roots) {
+                try {
+                    root.close();
+                } catch (IOException closeException) {
+                    e.addSuppressed(closeException);
+                }
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 根据class文件的路径解析类的全限定名
+     * @param classFile class文件的路径，必须位于扫描根路径之下
+     * @return 类的全限定名
+     */
+    String resolveClassName(Path classFile) {
+        StringBuilder className = new StringBuilder(basePackage);
+        for (Path element : path.relativize(classFile)) {
+            if (className.length() > 0) {
+                className.append('.');
+            }
+            className.append(element.toString());
+        }
+        className.setLength(className.length() - CLASS_FILE_SUFFIX.length());
+        return className.toString();
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    /**
+     * 判断扫描根路径是否为本地文件系统中的目录，只有这类根路径可以被监听
+     * @return 如果为本地目录则返回true
+     */
+    boolean isLocalDirectory() {
+        return fileSystems.isEmpty() && path.getFileSystem() == FileSystems.getDefault() && Files.isDirectory(path);
+    }
+
+    /**
+     * 获取扫描路径所在的类路径目录，即去掉包名对应的各级目录后的路径
+     * @return 类路径目录
+     */
+    Path getClassPathDirectory() {
+        Path directory = path;
+        if (!basePackage.isEmpty()) {
+            for (int i = basePackage.split("\\.").length; i > 0; i--) {
+                directory = directory.getParent();
+            }
+        }
+        return directory;
+    }
+
+    @Override
+    public void close() throws IOException {
+        close(fileSystems, temporaryFiles);
+    }
+
+    /**
+     * 按照打开的相反顺序关闭文件系统，然后删除复制出的临时文件
+     * @param fileSystems 文件系统集合
+     * @param temporaryFiles 临时文件集合
+     * @throws IOException 关闭或删除失败时抛出
+     */
+    private static void close(List<FileSystem> fileSystems, List<Path> temporaryFiles) throws IOException {
+        IOException exception = null;
+        for (int i = fileSystems.size() - 1; i >= 0; i--) {
+            try {
+                fileSystems.get(i).close();
+            } catch (IOException e) {
+                exception = e;
+            }
+        }
+        fileSystems.clear();
+        for (Path temporaryFile : temporaryFiles) {
+            try {
+                Files.deleteIfExists(temporaryFile);
+            } catch (IOException e) {
+                exception = e;
+            }
+        }
+        temporaryFiles.clear();
+        if (exception != null) {
+            throw exception;
+        }
+    }
+}
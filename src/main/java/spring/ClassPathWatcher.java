@@ -0,0 +1,208 @@
+package spring;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 通过 {@link WatchService} 监听扫描路径下的class文件
+ * <p>
+ *     扫描路径下的每一级目录都会被注册（WatchService不会递归监听子目录），新建的目录也会被自动注册。
+ *     发生变化后会继续等待一段静默期，将编译器在这段时间内写出的所有class文件合并为一批，
+ *     再在监听线程中以“类的全限定名 -> class文件路径”的形式回调，被删除的class文件也包含在内。
+ * </p>
+ * @author GaoZiYang
+ * @since 2021年11月30日 14:41:50
+ */
+final class ClassPathWatcher implements Closeable {
+    /**
+     * class文件的后缀
+     */
+    private static final String CLASS_FILE_SUFFIX = ".class";
+
+    /**
+     * 被监听的扫描根路径
+     */
+    private final List<ClassPathRoot> roots;
+
+    /**
+     * 变化合并的静默期（毫秒）
+     */
+    private final long quietPeriodMillis;
+
+    /**
+     * 变化的回调
+     */
+    private final Consumer<Map<String, Path>> listener;
+
+    private final WatchService watchService;
+
+    /**
+     * 每个注册的目录所属的扫描根路径
+     */
+    private final Map<WatchKey, ClassPathRoot> watchedDirectories = new ConcurrentHashMap<>();
+
+    private final Thread thread;
+
+    /**
+     * @param roots 扫描根路径，必须都是本地目录
+     * @param quietPeriodMillis 变化合并的静默期（毫秒）
+     * @param listener 变化的回调
+     * @throws IOException 无法注册目录时抛出
+     */
+    ClassPathWatcher(List<ClassPathRoot> roots, long quietPeriodMillis, Consumer<Map<String, Path>> listener) throws IOException {
+        this.roots = roots;
+        this.quietPeriodMillis = quietPeriodMillis;
+        this.listener = listener;
+        this.watchService = FileSystems.getDefault().newWatchService();
+        try {
+            for (ClassPathRoot root : roots) {
+                registerRecursively(root, root.getPath(), null);
+            }
+        } catch (IOException e) {
+            watchService.close();
+            throw e;
+        }
+        this.thread = new Thread(this::run, "LightSpring-HotReload");
+        this.thread.setDaemon(true);
+    }
+
+    void start() {
+        thread.start();
+    }
+
+    /**
+     * 获取所有被监听的类路径目录
+     * @return 类路径目录
+     */
+    Set<Path> getClassPathDirectories() {
+        Set<Path> directories = new LinkedHashSet<>();
+        for (ClassPathRoot root : roots) {
+            directories.add(root.getClassPathDirectory());
+        }
+        return directories;
+    }
+
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+        thread.interrupt();
+    }
+
+    private void run() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                Map<String, Path> changes = new TreeMap<>();
+                // 阻塞等待第一个变化，之后一直收集到静默期内没有新的变化为止
+                WatchKey key = watchService.take();
+                while (key != null) {
+                    collect(key, changes);
+                    key = watchService.poll(quietPeriodMillis, TimeUnit.MILLISECONDS);
+                }
+                if (changes.isEmpty()) {
+                    continue;
+                }
+                try {
+                    listener.accept(changes);
+                } catch (RuntimeException | LinkageError e) {
+                    // 重载失败不能终止监听，下一次修改后会再次尝试
+                    e.printStackTrace();
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // 监听已关闭
+        }
+    }
+
+    /**
+     * 收集一个目录中的变化
+     * @param key 目录的监听键
+     * @param changes 变化的class文件
+     */
+    private void collect(WatchKey key, Map<String, Path> changes) {
+        ClassPathRoot root = watchedDirectories.get(key);
+        Path directory = (Path) key.watchable();
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (root == null) {
+                continue;
+            }
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                // 事件丢失时将整个目录视为变化
+                try {
+                    registerRecursively(root, directory, changes);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+                continue;
+            }
+            Path path = directory.resolve((Path) event.context());
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(path)) {
+                try {
+                    registerRecursively(root, path, changes);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            } else if (isClassFile(path)) {
+                changes.put(root.resolveClassName(path), path);
+            }
+        }
+        if (!key.reset()) {
+            watchedDirectories.remove(key);
+        }
+    }
+
+    /**
+     * 注册目录及其所有子目录
+     * @param root 扫描根路径
+     * @param directory 目录
+     * @param changes 不为null时，目录中已有的class文件也会被视为变化
+     * @throws IOException 无法注册目录时抛出
+     */
+    private void registerRecursively(ClassPathRoot root, Path directory, Map<String, Path> changes) throws IOException {
+        Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                WatchKey key = dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+                watchedDirectories.put(key, root);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (changes != null && isClassFile(file)) {
+                    changes.put(root.resolveClassName(file), file);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * 判断是否为class文件，类名中不可能包含“-”，以此排除package-info和module-info
+     * @param path 文件路径
+     * @return 如果为class文件则返回true
+     */
+    private static boolean isClassFile(Path path) {
+        String name = path.getFileName().toString();
+        return name.endsWith(CLASS_FILE_SUFFIX) && name.indexOf('-') < 0;
+    }
+}
@@ -0,0 +1,112 @@
+package spring;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+
+/**
+ * 编译期生成的组件索引
+ * <p>
+ *     索引文件 <b>META-INF/lightspring.components</b> 由 <b>lightspring-processor</b> 模块中的注解处理器生成，
+ *     每行对应一个组件，格式为：<code>Spring Bean名称\t类的二进制名称\t作用域</code>。
+ * </p>
+ * <p>
+ *     索引只描述其所在类路径（目录或jar包）中的组件，没有索引文件的类路径需要通过 {@link #covers(URL)} 判断后回退为扫描。
+ * </p>
+ * @author GaoZiYang
+ * @since 2021年11月15日 15:20:44
+ */
+public class ComponentIndex {
+    /**
+     * 组件索引文件的位置
+     */
+    public static final String COMPONENT_INDEX_LOCATION = "META-INF/lightspring.components";
+
+    /**
+     * 索引中的全部组件
+     */
+    private final List<ClassMetadata> components;
+
+    /**
+     * 包含索引文件的类路径URL，例如 <code>file:/app/classes/</code> 或 <code>jar:file:/app/lib.jar!/</code>
+     */
+    private final List<String> indexedClassPaths;
+
+    private ComponentIndex(List<ClassMetadata> components, List<String> indexedClassPaths) {
+        this.components = components;
+        this.indexedClassPaths = indexedClassPaths;
+    }
+
+    /**
+     * 从类加载器中读取所有组件索引文件
+     * @param classLoader 类加载器
+     * @return 组件索引，如果类路径中没有索引文件则返回null
+     */
+    public static ComponentIndex load(ClassLoader classLoader) {
+        List<ClassMetadata> components = new ArrayList<>();
+        List<String> indexedClassPaths = new ArrayList<>();
+        try {
+            Enumeration<URL> urls = classLoader.getResources(COMPONENT_INDEX_LOCATION);
+            while (urls.hasMoreElements()) {
+                URL url = urls.nextElement();
+                String location = url.toString();
+                indexedClassPaths.add(location.substring(0, location.length() - COMPONENT_INDEX_LOCATION.length()));
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(url.openStream(), StandardCharsets.UTF_8))) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        line = line.trim();
+                        if (line.isEmpty() || line.startsWith("#")) {
+                            continue;
+                        }
+                        String[] parts = line.split("\t");
+                        if (parts.length != 3) {
+                            throw new IllegalStateException("组件索引格式错误：" + url + " -> " + line);
+                        }
+                        components.add(new ClassMetadata(parts[1], true, parts[0], parts[2]));
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("读取组件索引失败！", e);
+        }
+        return indexedClassPaths.isEmpty() ? null
+                : new ComponentIndex(Collections.unmodifiableList(components), Collections.unmodifiableList(indexedClassPaths));
+    }
+
+    /**
+     * 判断某个包在类路径中的资源URL是否被索引覆盖，即该包所在的目录或jar包中是否存在索引文件
+     * @param packageUrl 类加载器返回的包资源URL
+     * @return 如果被索引覆盖则返回true，否则需要扫描该类路径
+     */
+    public boolean covers(URL packageUrl) {
+        String location = packageUrl.toString();
+        for (String indexedClassPath : indexedClassPaths) {
+            if (location.startsWith(indexedClassPath)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 获取指定包及其子包下的所有组件
+     * @param basePackage 包名
+     * @return 组件元数据集合
+     */
+    public List<ClassMetadata> getCandidateComponents(String basePackage) {
+        String prefix = basePackage.replaceAll("\\.+", ".") + ".";
+        List<ClassMetadata> candidates = new ArrayList<>();
+        for (ClassMetadata component : components) {
+            if (component.getClassName().startsWith(prefix)) {
+                candidates.add(component);
+            }
+        }
+        return candidates;
+    }
+}
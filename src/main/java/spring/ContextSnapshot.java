@@ -0,0 +1,447 @@
+package spring;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * 上下文快照
+ * <p>
+ *     记录每次扫描得到的Spring Bean名称、类、作用域以及已经解析好的 {@link spring.annotation.Autowired} 注入关系，
+ *     以紧凑的二进制格式保存在文件中。下次启动时如果快照仍然有效，则直接根据快照注册BeanDefinition并构建注入元数据，
+ *     跳过扫描、注解解析以及注入名称的解析。
+ * </p>
+ * <p>
+ *     快照按照扫描路径分段，每段的有效性单独校验：
+ *     <ul>
+ *         <li>扫描路径下所有class文件的名称和大小的指纹不变，即没有新增、删除或修改过的类；</li>
+ *         <li>每个Spring Bean类文件的CRC32校验和不变。</li>
+ *     </ul>
+ *     快照文件不可读或格式不符时视为不存在，不会影响正常启动。
+ * </p>
+ * @author GaoZiYang
+ * @since 2021年11月28日 10:14:52
+ */
+final class ContextSnapshot {
+    /**
+     * 文件头的魔数："LSSN"
+     */
+    private static final int MAGIC = 0x4C53534E;
+    /**
+     * 快照格式的版本号
+     */
+    private static final int FORMAT_VERSION = 3;
+    /**
+     * class文件的后缀
+     */
+    private static final String CLASS_FILE_SUFFIX = ".class";
+
+    /**
+     * 按扫描路径分段的快照，key为 {@link #key(String...)}
+     */
+    private final Map<String, Section> sections;
+
+    ContextSnapshot(Map<String, Section> sections) {
+        this.sections = sections;
+    }
+
+    /**
+     * 获取某次扫描对应的快照分段
+     * @param basePackages 扫描路径
+     * @return 快照分段，没有则返回null
+     */
+    Section getSection(String...basePackages) {
+        return sections.get(key(basePackages));
+    }
+
+    /**
+     * 生成扫描路径对应的分段名称
+     * @param basePackages 扫描路径
+     * @return 分段名称
+     */
+    static String key(String...basePackages) {
+        return String.join(",", basePackages);
+    }
+
+    /**
+     * 读取快照文件
+     * @param path 快照文件
+     * @return 快照，如果文件不存在、不可读或格式不符则返回null
+     */
+    static ContextSnapshot read(Path path) {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (input.readInt() != MAGIC || input.readInt() != FORMAT_VERSION) {
+                return null;
+            }
+            int sectionCount = input.readInt();
+            Map<String, Section> sections = new LinkedHashMap<>(sectionCount * 2);
+            for (int i = 0; i < sectionCount; i++) {
+                Section section = Section.read(input);
+                sections.put(key(section.getBasePackages()), section);
+            }
+            return new ContextSnapshot(sections);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException | RuntimeException e) {
+            // 快照只是启动加速手段，损坏时重新扫描即可
+            return null;
+        }
+    }
+
+    /**
+     * 写入快照文件
+     * <br/>先写入同目录下的临时文件再替换，多个实例同时启动时不会读到写了一半的快照。
+     * @param path 快照文件
+     * @throws IOException 写入失败时抛出
+     */
+    void write(Path path) throws IOException {
+        Path absolutePath = path.toAbsolutePath();
+        Path directory = absolutePath.getParent();
+        if (directory != null) {
+            Files.createDirectories(directory);
+        }
+        // 不使用Files.createTempFile，避免快照文件只对当前用户可读
+        Path temporaryFile = absolutePath.resolveSibling(absolutePath.getFileName() + "." + UUID.randomUUID() + ".tmp");
+        try {
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(temporaryFile, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)))) {
+                output.writeInt(MAGIC);
+                output.writeInt(FORMAT_VERSION);
+                output.writeInt(sections.size());
+                for (Section section : sections.values()) {
+                    section.write(output);
+                }
+            }
+            try {
+                Files.move(temporaryFile, absolutePath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporaryFile, absolutePath, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporaryFile);
+        }
+    }
+
+    /**
+     * 计算扫描路径下所有class文件的指纹
+     * <br/>只列出文件名称和大小，不读取文件内容。
+     * @param classLoader 类加载器
+     * @param basePackages 扫描路径
+     * @return 指纹
+     * @throws IOException 无法读取扫描路径时抛出
+     */
+    static long fingerprint(ClassLoader classLoader, String...basePackages) throws IOException {
+        List<String> entries = new ArrayList<>();
+        List<ClassPathRoot> roots = ClassPathRoot.openAll(classLoader, basePackages);
+        try {
+            for (ClassPathRoot root : roots) {
+                try (Stream<Path> paths = Files.walk(root.getPath())) {
+                    for (Path path : (Iterable<Path>) paths::iterator) {
+                        if (path.getFileName() != null && path.getFileName().toString().endsWith(CLASS_FILE_SUFFIX)
+                                && Files.isRegularFile(path)) {
+                            entries.add(root.resolveClassName(path) + ':' + Files.size(path));
+                        }
+                    }
+                }
+            }
+        } finally {
+            for (ClassPathRoot root : roots) {
+                root.close();
+            }
+        }
+        Collections.sort(entries);
+        CRC32 crc = new CRC32();
+        for (String entry : entries) {
+            crc.update(entry.getBytes(StandardCharsets.UTF_8));
+            crc.update('\n');
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * 计算类文件的CRC32校验和
+     * @param classLoader 类加载器
+     * @param className 类的全限定名
+     * @return 校验和，类文件不存在时返回-1
+     * @throws IOException 读取失败时抛出
+     */
+    static long checksum(ClassLoader classLoader, String className) throws IOException {
+        try (InputStream input = classLoader.getResourceAsStream(className.replace('.', '/') + CLASS_FILE_SUFFIX)) {
+            if (input == null) {
+                return -1;
+            }
+            CRC32 crc = new CRC32();
+            byte[] buffer = new byte[8192];
+            int length;
+            while ((length = input.read(buffer)) != -1) {
+                crc.update(buffer, 0, length);
+            }
+            return crc.getValue();
+        }
+    }
+
+    /**
+     * 一次扫描的快照
+     */
+    static final class Section {
+        /**
+         * 扫描路径
+         */
+        private final String[] basePackages;
+
+        /**
+         * 扫描路径下class文件的指纹
+         */
+        private final long fingerprint;
+
+        /**
+         * 扫描到的Spring Bean，按照注册顺序排列
+         */
+        private final BeanSnapshot[] beans;
+
+        Section(String[] basePackages, long fingerprint, BeanSnapshot[] beans) {
+            this.basePackages = basePackages;
+            this.fingerprint = fingerprint;
+            this.beans = beans;
+        }
+
+        /**
+         * 校验快照是否仍然有效
+         * @param classLoader 类加载器
+         * @return 如果扫描路径下的类没有变化则返回true
+         */
+        boolean isValid(ClassLoader classLoader) {
+            try {
+                if (fingerprint(classLoader, basePackages) != fingerprint) {
+                    return false;
+                }
+                for (BeanSnapshot bean : beans) {
+                    if (checksum(classLoader, bean.getClassName()) != bean.getChecksum()) {
+                        return false;
+                    }
+                }
+                return true;
+            } catch (IOException | RuntimeException e) {
+                return false;
+            }
+        }
+
+        String[] getBasePackages() {
+            return basePackages;
+        }
+
+        BeanSnapshot[] getBeans() {
+            return beans;
+        }
+
+        private void write(DataOutputStream output) throws IOException {
+            output.writeInt(basePackages.length);
+            for (String basePackage : basePackages) {
+                output.writeUTF(basePackage);
+            }
+            output.writeLong(fingerprint);
+            output.writeInt(beans.length);
+            for (BeanSnapshot bean : beans) {
+                bean.write(output);
+            }
+        }
+
+        private static Section read(DataInputStream input) throws IOException {
+            String[] basePackages = new String[input.readInt()];
+            for (int i = 0; i < basePackages.length; i++) {
+                basePackages[i] = input.readUTF();
+            }
+            long fingerprint = input.readLong();
+            BeanSnapshot[] beans = new BeanSnapshot[input.readInt()];
+            for (int i = 0; i < beans.length; i++) {
+                beans[i] = BeanSnapshot.read(input);
+            }
+            return new Section(basePackages, fingerprint, beans);
+        }
+    }
+
+    /**
+     * 一个Spring Bean的快照
+     */
+    static final class BeanSnapshot {
+        private final String name;
+        private final String className;
+        private final String scope;
+        private final boolean lazyInit;
+        private final int poolMinSize;
+        private final int poolMaxSize;
+        private final int order;
+
+        /**
+         * 类文件的CRC32校验和
+         */
+        private final long checksum;
+
+        /**
+         * 已经解析好的注入字段和setter方法
+         */
+        private final MemberSnapshot[] members;
+
+        BeanSnapshot(BeanDefinition beanDefinition, long checksum, MemberSnapshot[] members) {
+            this(beanDefinition.getName(), beanDefinition.getCls().getName(), beanDefinition.getScope(),
+                    beanDefinition.isLazyInit(), beanDefinition.getPoolMinSize(), beanDefinition.getPoolMaxSize(),
+                    beanDefinition.getOrder(), checksum, members);
+        }
+
+        private BeanSnapshot(String name, String className, String scope, boolean lazyInit,
+                             int poolMinSize, int poolMaxSize, int order, long checksum, MemberSnapshot[] members) {
+            this.name = name;
+            this.className = className;
+            this.scope = scope;
+            this.lazyInit = lazyInit;
+            this.poolMinSize = poolMinSize;
+            this.poolMaxSize = poolMaxSize;
+            this.order = order;
+            this.checksum = checksum;
+            this.members = members;
+        }
+
+        /**
+         * 还原BeanDefinition
+         * @param beanClass 已加载的Spring Bean类
+         * @return Spring Bean定义
+         */
+        BeanDefinition toBeanDefinition(Class<?> beanClass) {
+            BeanDefinition beanDefinition = new BeanDefinition();
+            beanDefinition.setCls(beanClass);
+            beanDefinition.setName(name);
+            beanDefinition.setScope(scope);
+            beanDefinition.setLazyInit(lazyInit);
+            beanDefinition.setPoolMinSize(poolMinSize);
+            beanDefinition.setPoolMaxSize(poolMaxSize);
+            beanDefinition.setOrder(order);
+            return beanDefinition;
+        }
+
+        String getClassName() {
+            return className;
+        }
+
+        long getChecksum() {
+            return checksum;
+        }
+
+        MemberSnapshot[] getMembers() {
+            return members;
+        }
+
+        private void write(DataOutputStream output) throws IOException {
+            output.writeUTF(name);
+            output.writeUTF(className);
+            output.writeUTF(scope == null ? "" : scope);
+            output.writeBoolean(lazyInit);
+            output.writeInt(poolMinSize);
+            output.writeInt(poolMaxSize);
+            output.writeInt(order);
+            output.writeLong(checksum);
+            output.writeInt(members.length);
+            for (MemberSnapshot member : members) {
+                output.writeUTF(member.getName());
+                output.writeUTF(member.getParameterType() == null ? "" : member.getParameterType());
+                output.writeUTF(member.getBeanName());
+                output.writeBoolean(member.isRequired());
+                output.writeBoolean(member.isMultiple());
+            }
+        }
+
+        private static BeanSnapshot read(DataInputStream input) throws IOException {
+            String name = input.readUTF();
+            String className = input.readUTF();
+            String scope = input.readUTF();
+            boolean lazyInit = input.readBoolean();
+            int poolMinSize = input.readInt();
+            int poolMaxSize = input.readInt();
+            int order = input.readInt();
+            long checksum = input.readLong();
+            MemberSnapshot[] members = new MemberSnapshot[input.readInt()];
+            for (int i = 0; i < members.length; i++) {
+                String memberName = input.readUTF();
+                String parameterType = input.readUTF();
+                members[i] = new MemberSnapshot(memberName, parameterType.isEmpty() ? null : parameterType,
+                        input.readUTF(), input.readBoolean(), input.readBoolean());
+            }
+            return new BeanSnapshot(name, className, scope, lazyInit, poolMinSize, poolMaxSize, order, checksum, members);
+        }
+    }
+
+    /**
+     * 一个注入字段或setter方法的快照
+     */
+    static final class MemberSnapshot {
+        /**
+         * 字段或方法名称
+         */
+        private final String name;
+
+        /**
+         * setter方法参数类型的全限定名，字段为null
+         */
+        private final String parameterType;
+
+        /**
+         * 已经解析好的要注入的Spring Bean名称
+         */
+        private final String beanName;
+
+        /**
+         * 是否必须注入
+         */
+        private final boolean required;
+
+        /**
+         * 是否按照元素类型注入全部匹配的Spring Bean
+         */
+        private final boolean multiple;
+
+        MemberSnapshot(String name, String parameterType, String beanName, boolean required, boolean multiple) {
+            this.name = name;
+            this.parameterType = parameterType;
+            this.beanName = beanName;
+            this.required = required;
+            this.multiple = multiple;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        String getParameterType() {
+            return parameterType;
+        }
+
+        String getBeanName() {
+            return beanName;
+        }
+
+        boolean isRequired() {
+            return required;
+        }
+
+        boolean isMultiple() {
+            return multiple;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package spring;
+
+/**
+ * 销毁Spring Bean的钩子
+ * <p>
+ *     关闭应用上下文时，单例会按照依赖的相反顺序销毁：依赖某个单例的Spring Bean全部销毁之后，才会销毁该单例，
+ *     互不依赖的分支会并行销毁。对象池中空闲的实例也会被销毁，原型实例以及被借出的池化实例不受容器管理，需要使用者自行销毁。
+ * </p>
+ * @author GaoZiYang
+ * @since 2021年12月01日 09:40:16
+ */
+public interface DisposableBean {
+    /**
+     * 释放Spring Bean持有的资源
+     * @throws Exception 销毁失败时抛出，异常会被打印，不会影响其他Spring Bean的销毁
+     */
+    void destroy() throws Exception;
+}
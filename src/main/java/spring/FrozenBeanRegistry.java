@@ -0,0 +1,81 @@
+package spring;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 冻结后的Spring Bean注册表
+ * <p>
+ *     冻结时将所有BeanDefinition按名称排序后压缩进数组，每个Spring Bean分配一个固定的下标，已经创建的单例放入同一下标的单例数组。
+ *     注册表创建之后不再修改，因此可以无锁读取；{@link BeanRef} 持有单例数组和下标，获取单例时只需一次数组读取。
+ * </p>
+ * <p>
+ *     冻结之后才创建的单例（例如延迟初始化的单例）以及非单例的Spring Bean不在单例数组中，仍然通过 {@link ApplicationContext#getBean(String)} 获取。
+ * </p>
+ * @author GaoZiYang
+ * @since 2021年11月30日 10:12:37
+ */
+final class FrozenBeanRegistry {
+    /**
+     * Spring Bean名称到下标的映射
+     */
+    private final Map<String, Integer> indexes;
+
+    /**
+     * 按下标排列的Spring Bean定义
+     */
+    private final BeanDefinition[] beanDefinitions;
+
+    /**
+     * 按下标排列的单例，冻结时尚未创建的单例及非单例为null
+     */
+    private final Object[] singletons;
+
+    /**
+     * @param beanDefinitionMap 所有Spring Bean定义
+     * @param singletonObjects 单例池
+     */
+    FrozenBeanRegistry(Map<String, BeanDefinition> beanDefinitionMap, Map<String, Object> singletonObjects) {
+        String[] beanNames = beanDefinitionMap.keySet().toArray(new String[0]);
+        Arrays.sort(beanNames);
+        this.indexes = new HashMap<>(beanNames.length * 2);
+        this.beanDefinitions = new BeanDefinition[beanNames.length];
+        this.singletons = new Object[beanNames.length];
+        for (int i = 0; i < beanNames.length; i++) {
+            indexes.put(beanNames[i], i);
+            beanDefinitions[i] = beanDefinitionMap.get(beanNames[i]);
+            if (beanDefinitions[i].isSingleton()) {
+                singletons[i] = singletonObjects.get(beanNames[i]);
+            }
+        }
+    }
+
+    /**
+     * 获取Spring Bean的下标
+     * @param beanName Spring Bean名称
+     * @return 下标，不存在时返回-1
+     */
+    int indexOf(String beanName) {
+        Integer index = indexes.get(beanName);
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * 获取冻结时已经创建的单例
+     * @param beanName Spring Bean名称
+     * @return 单例，不存在时返回null
+     */
+    Object getSingleton(String beanName) {
+        Integer index = indexes.get(beanName);
+        return index == null ? null : singletons[index];
+    }
+
+    BeanDefinition getBeanDefinition(int index) {
+        return beanDefinitions[index];
+    }
+
+    Object[] getSingletons() {
+        return singletons;
+    }
+}
@@ -0,0 +1,62 @@
+package spring;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Set;
+
+/**
+ * 热重载使用的类加载器
+ * <p>
+ *     每次重载都会创建一个新的类加载器，只有需要重新加载的类（及其内部类）由它自己从类路径目录中加载，
+ *     其余的类交给父类加载器，即上一次重载的类加载器或应用的类加载器，因此没有变化的Spring Bean仍然使用原来的类。
+ * </p>
+ * @author GaoZiYang
+ * @since 2021年11月30日 15:02:26
+ */
+final class HotReloadClassLoader extends URLClassLoader {
+    static {
+        ClassLoader.registerAsParallelCapable();
+    }
+
+    /**
+     * 需要重新加载的顶层类的全限定名
+     */
+    private final Set<String> reloadedClassNames;
+
+    /**
+     * @param urls 类路径目录
+     * @param parent 父类加载器
+     * @param reloadedClassNames 需要重新加载的顶层类的全限定名
+     */
+    HotReloadClassLoader(URL[] urls, ClassLoader parent, Set<String> reloadedClassNames) {
+        super(urls, parent);
+        this.reloadedClassNames = reloadedClassNames;
+    }
+
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+        if (!reloadedClassNames.contains(topLevelClassName(name))) {
+            return super.loadClass(name, resolve);
+        }
+        synchronized (getClassLoadingLock(name)) {
+            Class<?> loadedClass = findLoadedClass(name);
+            if (loadedClass == null) {
+                loadedClass = findClass(name);
+            }
+            if (resolve) {
+                resolveClass(loadedClass);
+            }
+            return loadedClass;
+        }
+    }
+
+    /**
+     * 获取内部类所在的顶层类的全限定名
+     * @param className 类的全限定名
+     * @return 顶层类的全限定名
+     */
+    static String topLevelClassName(String className) {
+        int index = className.indexOf('$', className.lastIndexOf('.') + 1);
+        return index < 0 ? className : className.substring(0, index);
+    }
+}
@@ -0,0 +1,524 @@
+package spring;
+
+import spring.annotation.Autowired;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Parameter;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 每个Spring Bean类的实例化及注入元数据
+ * <p>
+ *     在第一次创建某个类的实例时解析构造器以及 {@link spring.annotation.Autowired} 字段和方法，并将其预先绑定为 {@link MethodHandle}，
+ *     之后每次创建实例（尤其是原型实例）时都不再需要反射查找、检查注解或调用 <b>setAccessible</b>。
+ * </p>
+ * <p>
+ *     构造器的选择顺序为：标注了 {@link spring.annotation.Autowired} 的构造器、唯一声明的有参构造器、无参构造器。
+ *     构造器参数注入的Spring Bean名称由参数上的 {@link spring.annotation.Autowired} 指定，未指定时使用参数名称（需要以 <b>-parameters</b> 编译）。
+ * </p>
+ * <p>
+ *     未显式指定Spring Bean名称的 <b>List&lt;T&gt;</b>、<b>Collection&lt;T&gt;</b>、<b>T[]</b> 和 <b>Map&lt;String, T&gt;</b>
+ *     注入点会按照元素类型 <b>T</b> 注入全部匹配的Spring Bean，元素类型同样只在解析时读取一次泛型信息。
+ *     <b>ObjectProvider&lt;T&gt;</b> 注入点按照名称注入一个绑定到目标Spring Bean的 {@link ObjectProvider}。
+ * </p>
+ * @author GaoZiYang
+ * @since 2021年11月17日 16:03:51
+ */
+final class InjectionMetadata {
+    /**
+     * 构造器的统一调用类型：(Object[])Object
+     */
+    private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class, Object[].class);
+    /**
+     * 字段写入器及setter方法的统一调用类型：(Object, Object)void
+     */
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+    /**
+     * setter方法名称前缀
+     */
+    private static final String SETTER_PREFIX = "set";
+
+    /**
+     * Spring Bean类
+     */
+    private final Class<?> beanClass;
+
+    /**
+     * 构造器，参数展开为一个数组
+     */
+    private final MethodHandle constructor;
+
+    /**
+     * 构造器参数
+     */
+    private final InjectionPoint[] constructorArguments;
+
+    /**
+     * 需要自动注入的字段和方法
+     */
+    private final InjectedMember[] injectedMembers;
+
+    /**
+     * 全部注入点，先是构造器参数，然后是注入的字段和方法
+     */
+    private final InjectionPoint[] injectionPoints;
+
+    private InjectionMetadata(Class<?> beanClass, ResolvedConstructor resolvedConstructor, InjectedMember[] injectedMembers) {
+        this.beanClass = beanClass;
+        this.constructor = resolvedConstructor.handle;
+        this.constructorArguments = resolvedConstructor.arguments;
+        this.injectedMembers = injectedMembers;
+        this.injectionPoints = new InjectionPoint[constructorArguments.length + injectedMembers.length];
+        System.arraycopy(constructorArguments, 0, injectionPoints, 0, constructorArguments.length);
+        System.arraycopy(injectedMembers, 0, injectionPoints, constructorArguments.length, injectedMembers.length);
+    }
+
+    /**
+     * 解析指定类的实例化及注入元数据
+     * @param beanClass Spring Bean类
+     * @return 注入元数据
+     */
+    static InjectionMetadata forClass(Class<?> beanClass) {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        List<InjectedMember> injectedMembers = new ArrayList<>();
+        for (Field field : beanClass.getDeclaredFields()) {
+            if (field.isAnnotationPresent(Autowired.class)) {
+                Autowired autowiredAnnotation = field.getDeclaredAnnotation(Autowired.class);
+                boolean byType = "".equals(autowiredAnnotation.value());
+                String name = byType ? field.getName() : autowiredAnnotation.value();
+                try {
+                    injectedMembers.add(createInjectedField(lookup, field, name, autowiredAnnotation.required(), byType));
+                } catch (IllegalAccessException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+        for (Method method : beanClass.getDeclaredMethods()) {
+            if (method.isBridge() || method.isSynthetic() || !method.isAnnotationPresent(Autowired.class)) {
+                continue;
+            }
+            Autowired autowiredAnnotation = method.getDeclaredAnnotation(Autowired.class);
+            boolean byType = "".equals(autowiredAnnotation.value());
+            String name = byType ? propertyName(method) : autowiredAnnotation.value();
+            try {
+                injectedMembers.add(createInjectedMethod(lookup, method, name, autowiredAnnotation.required(), byType));
+            } catch (IllegalAccessException e) {
+                e.printStackTrace();
+            }
+        }
+        return new InjectionMetadata(beanClass, resolveConstructor(lookup, beanClass), injectedMembers.toArray(new InjectedMember[0]));
+    }
+
+    /**
+     * 根据上下文快照中记录的注入关系构建元数据，不再检查字段和方法上的注解，也不再解析要注入的Spring Bean名称
+     * @param beanClass Spring Bean类
+     * @param members 快照中记录的注入字段和方法
+     * @return 注入元数据
+     * @throws NoSuchFieldException 快照中的字段已经不存在时抛出
+     * @throws NoSuchMethodException 快照中的方法已经不存在时抛出
+     * @throws IllegalAccessException 无法访问字段或方法时抛出
+     */
+    static InjectionMetadata forSnapshot(Class<?> beanClass, ContextSnapshot.MemberSnapshot[] members)
+            throws NoSuchFieldException, NoSuchMethodException, IllegalAccessException {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        InjectedMember[] injectedMembers = new InjectedMember[members.length];
+        for (int i = 0; i < members.length; i++) {
+            ContextSnapshot.MemberSnapshot member = members[i];
+            if (member.getParameterType() == null) {
+                Field field = beanClass.getDeclaredField(member.getName());
+                injectedMembers[i] = createInjectedField(lookup, field, member.getBeanName(), member.isRequired(), member.isMultiple());
+            } else {
+                Method method = findSetter(beanClass, member.getName(), member.getParameterType());
+                injectedMembers[i] = createInjectedMethod(lookup, method, member.getBeanName(), member.isRequired(), member.isMultiple());
+            }
+        }
+        return new InjectionMetadata(beanClass, resolveConstructor(lookup, beanClass), injectedMembers);
+    }
+
+    /**
+     * 解析用于实例化的构造器
+     * @param lookup 方法句柄查找器
+     * @param beanClass Spring Bean类
+     * @return 构造器句柄及参数
+     * @throws IllegalStateException 有多个 {@link spring.annotation.Autowired} 构造器、没有可用的构造器或者构造器无法访问时抛出
+     */
+    private static ResolvedConstructor resolveConstructor(MethodHandles.Lookup lookup, Class<?> beanClass) {
+        Constructor<?>[] declaredConstructors = beanClass.getDeclaredConstructors();
+        Constructor<?> constructor = null;
+        for (Constructor<?> declaredConstructor : declaredConstructors) {
+            if (declaredConstructor.isAnnotationPresent(Autowired.class)) {
+                if (constructor != null) {
+                    throw new IllegalStateException("类 " + beanClass.getName() + " 只能有一个标注@Autowired的构造器！");
+                }
+                constructor = declaredConstructor;
+            }
+        }
+        if (constructor == null) {
+            try {
+                constructor = declaredConstructors.length == 1 ? declaredConstructors[0] : beanClass.getDeclaredConstructor();
+            } catch (NoSuchMethodException e) {
+                throw new IllegalStateException("类 " + beanClass.getName()
+                        + " 有多个构造器，但既没有无参构造器，也没有标注@Autowired的构造器！", e);
+            }
+        }
+        try {
+            constructor.setAccessible(true);
+            MethodHandle handle = lookup.unreflectConstructor(constructor)
+                    .asSpreader(Object[].class, constructor.getParameterCount())
+                    .asType(CONSTRUCTOR_TYPE);
+            return new ResolvedConstructor(handle, resolveConstructorArguments(constructor));
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("无法访问类 " + beanClass.getName() + " 的构造器！", e);
+        }
+    }
+
+    /**
+     * 解析构造器参数要注入的Spring Bean
+     * <br/>参数名称可用（使用-parameters编译）时按参数名称注入，否则按参数类型注入唯一匹配的Spring Bean，
+     * 通过@Autowired显式指定名称时总是按名称注入。
+     * @param constructor 构造器
+     * @return 构造器参数
+     */
+    private static InjectionPoint[] resolveConstructorArguments(Constructor<?> constructor) {
+        Autowired constructorAnnotation = constructor.getDeclaredAnnotation(Autowired.class);
+        boolean defaultRequired = constructorAnnotation == null || constructorAnnotation.required();
+        Parameter[] parameters = constructor.getParameters();
+        InjectionPoint[] arguments = new InjectionPoint[parameters.length];
+        for (int i = 0; i < parameters.length; i++) {
+            Parameter parameter = parameters[i];
+            Autowired autowiredAnnotation = parameter.getDeclaredAnnotation(Autowired.class);
+            boolean byType = autowiredAnnotation == null || "".equals(autowiredAnnotation.value());
+            Class<?> elementType = byType ? resolveElementType(parameter.getType(), parameter.getParameterizedType()) : null;
+            String name;
+            if (!byType) {
+                name = autowiredAnnotation.value();
+            } else if (parameter.isNamePresent() || elementType != null) {
+                name = parameter.getName();
+            } else {
+                // 没有参数名称时在注入时按照类型查找
+                name = null;
+            }
+            boolean required = autowiredAnnotation == null ? defaultRequired : autowiredAnnotation.required();
+            arguments[i] = new InjectionPoint(name, parameter.getType(),
+                    elementType, resolveProvidedType(parameter.getType(), parameter.getParameterizedType()), required);
+        }
+        return arguments;
+    }
+
+    /**
+     * 为字段创建注入信息
+     * @param lookup 方法句柄查找器
+     * @param field 字段
+     * @param beanName 要注入的Spring Bean名称
+     * @param required 是否必须注入
+     * @param byType 集合类型的字段是否按照元素类型注入，只有未显式指定Spring Bean名称时才会按照类型注入
+     * @return 注入字段
+     * @throws IllegalAccessException 无法访问字段时抛出
+     */
+    private static InjectedMember createInjectedField(MethodHandles.Lookup lookup, Field field, String beanName,
+                                                      boolean required, boolean byType) throws IllegalAccessException {
+        field.setAccessible(true);
+        MethodHandle setter = lookup.unreflectSetter(field).asType(SETTER_TYPE);
+        Class<?> elementType = byType ? resolveElementType(field.getType(), field.getGenericType()) : null;
+        Class<?> providedType = resolveProvidedType(field.getType(), field.getGenericType());
+        return new InjectedMember(field.getName(), null, beanName, field.getType(), elementType, providedType, required, setter);
+    }
+
+    /**
+     * 为setter方法创建注入信息，方法必须是只有一个参数的实例方法
+     * @param lookup 方法句柄查找器
+     * @param method setter方法
+     * @param beanName 要注入的Spring Bean名称
+     * @param required 是否必须注入
+     * @param byType 集合类型的参数是否按照元素类型注入，只有未显式指定Spring Bean名称时才会按照类型注入
+     * @return 注入方法
+     * @throws IllegalAccessException 无法访问方法时抛出
+     */
+    private static InjectedMember createInjectedMethod(MethodHandles.Lookup lookup, Method method, String beanName,
+                                                       boolean required, boolean byType) throws IllegalAccessException {
+        if (Modifier.isStatic(method.getModifiers()) || method.getParameterCount() != 1) {
+            throw new IllegalStateException("@Autowired方法 " + method + " 必须是只有一个参数的实例方法！");
+        }
+        method.setAccessible(true);
+        // 转换为void返回值时会丢弃setter的返回值，因此也支持链式setter
+        MethodHandle setter = lookup.unreflect(method).asType(SETTER_TYPE);
+        Class<?> parameterType = method.getParameterTypes()[0];
+        Type genericParameterType = method.getGenericParameterTypes()[0];
+        Class<?> elementType = byType ? resolveElementType(parameterType, genericParameterType) : null;
+        Class<?> providedType = resolveProvidedType(parameterType, genericParameterType);
+        return new InjectedMember(method.getName(), parameterType.getName(), beanName, parameterType,
+                elementType, providedType, required, setter);
+    }
+
+    /**
+     * 解析集合类型注入点的元素类型
+     * @param type 注入类型
+     * @param genericType 带泛型信息的注入类型
+     * @return 元素类型，如果不是 <b>List&lt;T&gt;</b>、<b>Collection&lt;T&gt;</b>、<b>T[]</b> 或 <b>Map&lt;String, T&gt;</b> 则返回null
+     */
+    private static Class<?> resolveElementType(Class<?> type, Type genericType) {
+        if (type.isArray()) {
+            return type.getComponentType().isPrimitive() ? null : type.getComponentType();
+        }
+        if (type == List.class || type == Collection.class) {
+            return typeArgument(genericType, 0);
+        }
+        if (type == Map.class && typeArgument(genericType, 0) == String.class) {
+            return typeArgument(genericType, 1);
+        }
+        return null;
+    }
+
+    /**
+     * 解析 {@link ObjectProvider} 类型注入点所提供的Spring Bean类型
+     * @param type 注入类型
+     * @param genericType 带泛型信息的注入类型
+     * @return 提供的Spring Bean类型，未声明泛型参数时为 {@link Object}，不是 {@link ObjectProvider} 时返回null
+     */
+    private static Class<?> resolveProvidedType(Class<?> type, Type genericType) {
+        if (type != ObjectProvider.class) {
+            return null;
+        }
+        Class<?> providedType = typeArgument(genericType, 0);
+        return providedType == null ? Object.class : providedType;
+    }
+
+    /**
+     * 获取泛型参数的原始类型，通配符取其上界
+     * @param genericType 带泛型信息的类型
+     * @param index 泛型参数的下标
+     * @return 泛型参数的原始类型，无法确定时返回null
+     */
+    private static Class<?> typeArgument(Type genericType, int index) {
+        if (!(genericType instanceof ParameterizedType)) {
+            return null;
+        }
+        Type argument = ((ParameterizedType) genericType).getActualTypeArguments()[index];
+        if (argument instanceof WildcardType) {
+            argument = ((WildcardType) argument).getUpperBounds()[0];
+        }
+        if (argument instanceof ParameterizedType) {
+            argument = ((ParameterizedType) argument).getRawType();
+        }
+        return argument instanceof Class ? (Class<?>) argument : null;
+    }
+
+    /**
+     * 根据名称和参数类型查找setter方法
+     * @param beanClass Spring Bean类
+     * @param methodName 方法名称
+     * @param parameterType 参数类型的全限定名
+     * @return setter方法
+     * @throws NoSuchMethodException 方法不存在时抛出
+     */
+    private static Method findSetter(Class<?> beanClass, String methodName, String parameterType) throws NoSuchMethodException {
+        for (Method method : beanClass.getDeclaredMethods()) {
+            if (method.getName().equals(methodName) && method.getParameterCount() == 1
+                    && method.getParameterTypes()[0].getName().equals(parameterType)) {
+                return method;
+            }
+        }
+        throw new NoSuchMethodException(beanClass.getName() + "." + methodName + "(" + parameterType + ")");
+    }
+
+    /**
+     * 根据setter方法名称推断属性名称，例如 <b>setUserService</b> 对应 <b>userService</b>，不符合setter命名规范时直接使用方法名称
+     * @param method setter方法
+     * @return 属性名称
+     */
+    private static String propertyName(Method method) {
+        String methodName = method.getName();
+        if (methodName.length() <= SETTER_PREFIX.length() || !methodName.startsWith(SETTER_PREFIX)) {
+            return methodName;
+        }
+        String propertyName = methodName.substring(SETTER_PREFIX.length());
+        return Character.toLowerCase(propertyName.charAt(0)) + propertyName.substring(1);
+    }
+
+    /**
+     * 通过构造器创建实例
+     * @param arguments 构造器参数，数量与 {@link #getConstructorArguments()} 一致
+     * @return 实例对象
+     * @throws Throwable 构造器抛出的异常
+     */
+    Object newInstance(Object[] arguments) throws Throwable {
+        return (Object) constructor.invokeExact(arguments);
+    }
+
+    Class<?> getBeanClass() {
+        return beanClass;
+    }
+
+    InjectionPoint[] getConstructorArguments() {
+        return constructorArguments;
+    }
+
+    InjectedMember[] getInjectedMembers() {
+        return injectedMembers;
+    }
+
+    InjectionPoint[] getInjectionPoints() {
+        return injectionPoints;
+    }
+
+    /**
+     * 解析得到的构造器
+     */
+    private static final class ResolvedConstructor {
+        private final MethodHandle handle;
+        private final InjectionPoint[] arguments;
+
+        ResolvedConstructor(MethodHandle handle, InjectionPoint[] arguments) {
+            this.handle = handle;
+            this.arguments = arguments;
+        }
+    }
+
+    /**
+     * 注入点，即构造器参数、注入字段或setter方法
+     */
+    static class InjectionPoint {
+        /**
+         * 要注入的Spring Bean名称，按类型注入唯一匹配的Spring Bean时为null
+         */
+        private final String beanName;
+
+        /**
+         * 注入类型
+         */
+        private final Class<?> type;
+
+        /**
+         * 集合类型注入点的元素类型，按名称注入时为null
+         */
+        private final Class<?> elementType;
+
+        /**
+         * {@link ObjectProvider} 类型注入点所提供的Spring Bean类型，其余注入点为null
+         */
+        private final Class<?> providedType;
+
+        /**
+         * 是否必须注入
+         */
+        private final boolean required;
+
+        InjectionPoint(String beanName, Class<?> type, Class<?> elementType, Class<?> providedType, boolean required) {
+            this.beanName = beanName;
+            this.type = type;
+            this.elementType = elementType;
+            this.providedType = providedType;
+            this.required = required;
+        }
+
+        /**
+         * 判断是否按照元素类型注入全部匹配的Spring Bean
+         * @return 如果是集合类型的注入点则返回true，按名称注入时返回false
+         */
+        boolean isMultiple() {
+            return elementType != null;
+        }
+
+        /**
+         * 判断是否注入绑定到目标Spring Bean的 {@link ObjectProvider}
+         * @return 如果是 {@link ObjectProvider} 类型的注入点则返回true
+         */
+        boolean isProvider() {
+            return providedType != null;
+        }
+
+        /**
+         * 判断是否按照类型注入唯一匹配的Spring Bean，只有无法获取名称的构造器参数会按类型注入
+         * @return 如果没有Spring Bean名称并且不是集合类型的注入点则返回true
+         */
+        boolean isByType() {
+            return beanName == null && elementType == null;
+        }
+
+        /**
+         * 获取按类型注入时用于查找Spring Bean的类型
+         * @return {@link ObjectProvider} 类型的注入点返回所提供的类型，其余注入点返回注入类型
+         */
+        Class<?> getLookupType() {
+            return providedType != null ? providedType : type;
+        }
+
+        String getBeanName() {
+            return beanName;
+        }
+
+        Class<?> getType() {
+            return type;
+        }
+
+        Class<?> getElementType() {
+            return elementType;
+        }
+
+        Class<?> getProvidedType() {
+            return providedType;
+        }
+
+        boolean isRequired() {
+            return required;
+        }
+    }
+
+    /**
+     * 需要自动注入的字段或setter方法
+     */
+    static final class InjectedMember extends InjectionPoint {
+        /**
+         * 字段或方法名称
+         */
+        private final String name;
+
+        /**
+         * setter方法参数类型的全限定名，字段为null
+         */
+        private final String parameterType;
+
+        /**
+         * 字段写入器或setter方法
+         */
+        private final MethodHandle setter;
+
+        InjectedMember(String name, String parameterType, String beanName, Class<?> type, Class<?> elementType,
+                       Class<?> providedType, boolean required, MethodHandle setter) {
+            super(beanName, type, elementType, providedType, required);
+            this.name = name;
+            this.parameterType = parameterType;
+            this.setter = setter;
+        }
+
+        /**
+         * 为目标对象注入字段值或调用setter方法
+         * @param target 目标对象
+         * @param value 要注入的值
+         * @throws Throwable 写入失败或setter方法抛出异常时抛出
+         */
+        void inject(Object target, Object value) throws Throwable {
+            setter.invokeExact(target, value);
+        }
+
+        String getName() {
+            return name;
+        }
+
+        String getParameterType() {
+            return parameterType;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package spring;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 延迟解析代理的调用处理器
+ * <br/>在第一次调用代理方法时才通过容器获取目标实例，之后直接使用缓存的目标实例。
+ * <br/>每个方法在第一次调用时编译出调用句柄，之后通过方法句柄调用目标方法，不再使用反射。
+ * @author GaoZiYang
+ * @since 2021年11月19日 11:40:52
+ */
+class LazyResolutionInvocationHandler implements InvocationHandler {
+    /**
+     * 目标方法调用句柄的统一类型：(Object target, Object[] args)Object
+     */
+    private static final MethodType INVOKER_TYPE = MethodType.methodType(Object.class, Object.class, Object[].class);
+
+    /**
+     * 无参方法共享的空参数数组
+     */
+    private static final Object[] NO_ARGS = new Object[0];
+
+    /**
+     * Spring应用上下文
+     */
+    private final ApplicationContext applicationContext;
+
+    /**
+     * 目标Spring Bean名称
+     */
+    private final String beanName;
+
+    /**
+     * 每个代理方法的调用句柄
+     */
+    private final Map<Method, MethodHandle> invokers = new ConcurrentHashMap<>();
+
+    /**
+     * 解析后的目标实例
+     */
+    private volatile Object target;
+
+    LazyResolutionInvocationHandler(ApplicationContext applicationContext, String beanName) {
+        this.applicationContext = applicationContext;
+        this.beanName = beanName;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        Object[] arguments = args == null ? NO_ARGS : args;
+        Object resolvedTarget = target;
+        if (resolvedTarget == null) {
+            resolvedTarget = applicationContext.getBean(beanName);
+            target = resolvedTarget;
+        }
+        MethodHandle invoker = invokers.get(method);
+        if (invoker == null) {
+            invoker = invokers.computeIfAbsent(method, LazyResolutionInvocationHandler::createInvoker);
+        }
+        return (Object) invoker.invokeExact(resolvedTarget, arguments);
+    }
+
+    /**
+     * 为代理方法编译调用句柄
+     * @param method 代理接口中的方法
+     * @return 调用句柄
+     */
+    private static MethodHandle createInvoker(Method method) {
+        try {
+            method.setAccessible(true);
+            return MethodHandles.lookup().unreflect(method)
+                    .asSpreader(Object[].class, method.getParameterCount())
+                    .asType(INVOKER_TYPE);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("无法访问方法 " + method + "！", e);
+        }
+    }
+}
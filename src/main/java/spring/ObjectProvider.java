@@ -0,0 +1,21 @@
+package spring;
+
+/**
+ * 可以注入的Spring Bean提供者，用于在单例中按需获取原型等短生命周期的Spring Bean
+ * <p>
+ *     通过 {@link spring.annotation.Autowired} 注入 <b>ObjectProvider&lt;T&gt;</b> 时，提供者在注入时就绑定到目标Spring Bean的定义，
+ *     之后每次调用 {@link #get()} 不再按名称查找BeanDefinition：原型直接创建新实例，单例在第一次获取后缓存在提供者中。
+ *     注入点的Spring Bean名称与普通注入相同，即注解指定的名称或者字段名称。
+ * </p>
+ * @param <T> Spring Bean类型
+ * @author GaoZiYang
+ * @since 2021年12月03日 09:42:17
+ */
+@FunctionalInterface
+public interface ObjectProvider<T> {
+    /**
+     * 获取Spring Bean对象，原型每次调用都会创建新的实例
+     * @return Spring Bean对象
+     */
+    T get();
+}
@@ -0,0 +1,62 @@
+package spring;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 某个元素类型的全部Spring Bean，已经按照 {@link BeanDefinition#getOrder()} 和名称排好序
+ * <p>
+ *     实例保存在一个元素类型的数组中，<b>List</b> 和 <b>Map</b> 视图在构造时一次性创建并且不可修改。
+ *     候选全部为单例时，同一个实例会被容器缓存并注入到所有相同元素类型的注入点中，不再重复查找和排序。
+ * </p>
+ * @author GaoZiYang
+ * @since 2021年12月02日 11:08:15
+ */
+final class OrderedBeans {
+    /**
+     * Spring Bean实例，数组的组件类型为元素类型
+     */
+    private final Object[] beans;
+
+    /**
+     * 不可修改的列表视图
+     */
+    private final List<Object> list;
+
+    /**
+     * 不可修改的名称与实例的映射，保持排序
+     */
+    private final Map<String, Object> map;
+
+    OrderedBeans(String[] beanNames, Object[] beans) {
+        this.beans = beans;
+        this.list = Collections.unmodifiableList(Arrays.asList(beans));
+        Map<String, Object> map = new LinkedHashMap<>(beanNames.length * 2);
+        for (int i = 0; i < beanNames.length; i++) {
+            map.put(beanNames[i], beans[i]);
+        }
+        this.map = Collections.unmodifiableMap(map);
+    }
+
+    /**
+     * 转换为注入类型，数组是可变的，所以每次都返回一个副本
+     * @param type 注入类型，<b>List</b>、<b>Collection</b>、<b>Map</b> 或数组
+     * @return 要注入的值
+     */
+    Object as(Class<?> type) {
+        if (type.isArray()) {
+            return beans.clone();
+        }
+        if (type == Map.class) {
+            return map;
+        }
+        return list;
+    }
+
+    boolean isEmpty() {
+        return beans.length == 0;
+    }
+}
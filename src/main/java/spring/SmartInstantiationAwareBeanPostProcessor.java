@@ -0,0 +1,27 @@
+package spring;
+
+/**
+ * 可以参与提前暴露单例实例的后置处理器
+ * <p>
+ *     发生循环依赖时，正在创建的单例会通过三级缓存提前暴露给其他Spring Bean，此时还没有经过初始化后的后置处理器。
+ *     如果后置处理器会把实例替换为代理（例如AOP），就需要实现 {@link #getEarlyBeanReference(String, Object)}，
+ *     保证提前注入到其他Spring Bean中的引用与最终放入单例池中的对象是同一个。
+ * </p>
+ * @author GaoZiYang
+ * @since 2021年11月27日 14:08:36
+ */
+public interface SmartInstantiationAwareBeanPostProcessor extends BeanPostProcessor {
+    /**
+     * 获取提前暴露的单例引用，只有当单例被循环依赖的另一方获取时才会调用
+     * <p>
+     *     如果在这里返回了代理，{@link #postProcessAfterInitialization(String, Object)} 应该原样返回实例，
+     *     容器会用提前暴露的引用作为最终的单例。
+     * </p>
+     * @param beanName Bean名称
+     * @param bean 已经实例化但尚未注入和初始化的Spring Bean对象
+     * @return 提前暴露的引用
+     */
+    default Object getEarlyBeanReference(String beanName, Object bean) {
+        return bean;
+    }
+}
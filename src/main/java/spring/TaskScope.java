@@ -0,0 +1,165 @@
+package spring;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * 任务作用域，每个任务拥有各自的实例，与执行任务的线程无关
+ * <p>
+ *     任务通过 {@link #run(Runnable)} 或 {@link #call(Callable)} 开启，实例缓存在任务自己的槽位中，任务结束时槽位随之丢弃，
+ *     执行任务的线程上不会残留任何状态。因此无论任务运行在被复用的线程池线程上，还是运行在共享载体线程的虚拟线程上，
+ *     实例都不会泄露到其他任务中。
+ * </p>
+ * <p>
+ *     任务拆分出的子任务可以通过 {@link #wrap(Runnable)} 或 {@link #wrap(Callable)} 包装后提交给其他线程，以共享同一个任务的实例。
+ * </p>
+ * @author GaoZiYang
+ * @since 2021年11月23日 10:48:13
+ */
+public class TaskScope implements BeanScope {
+    /**
+     * 当前线程正在执行的任务，只在任务执行期间绑定，结束后立即恢复
+     */
+    private static final ThreadLocal<TaskContext> CURRENT_TASK = new ThreadLocal<>();
+
+    @Override
+    public Object get(String beanName, Supplier<Object> objectFactory) {
+        Map<String, Object> beans = currentTask().getBeans(this);
+        Object bean = beans.get(beanName);
+        if (bean == null) {
+            // 创建实例时可能会递归获取同一作用域中的其他实例，因此不能使用computeIfAbsent
+            bean = objectFactory.get();
+            Object existingBean = beans.putIfAbsent(beanName, bean);
+            if (existingBean != null) {
+                bean = existingBean;
+            }
+        }
+        return bean;
+    }
+
+    @Override
+    public Object remove(String beanName) {
+        TaskContext task = CURRENT_TASK.get();
+        return task == null ? null : task.getBeans(this).remove(beanName);
+    }
+
+    /**
+     * 在一个新任务中执行
+     * @param task 任务
+     */
+    public static void run(Runnable task) {
+        TaskContext previous = CURRENT_TASK.get();
+        CURRENT_TASK.set(new TaskContext());
+        try {
+            task.run();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    /**
+     * 在一个新任务中执行
+     * @param task 任务
+     * @param <V> 任务结果类型
+     * @return 任务结果
+     * @throws Exception 任务抛出的异常
+     */
+    public static <V> V call(Callable<V> task) throws Exception {
+        TaskContext previous = CURRENT_TASK.get();
+        CURRENT_TASK.set(new TaskContext());
+        try {
+            return task.call();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    /**
+     * 包装子任务，使其在其他线程中执行时仍属于当前任务
+     * @param task 子任务
+     * @return 包装后的子任务
+     */
+    public static Runnable wrap(Runnable task) {
+        TaskContext context = currentTask();
+        return () -> {
+            TaskContext previous = CURRENT_TASK.get();
+            CURRENT_TASK.set(context);
+            try {
+                task.run();
+            } finally {
+                restore(previous);
+            }
+        };
+    }
+
+    /**
+     * 包装子任务，使其在其他线程中执行时仍属于当前任务
+     * @param task 子任务
+     * @param <V> 任务结果类型
+     * @return 包装后的子任务
+     */
+    public static <V> Callable<V> wrap(Callable<V> task) {
+        TaskContext context = currentTask();
+        return () -> {
+            TaskContext previous = CURRENT_TASK.get();
+            CURRENT_TASK.set(context);
+            try {
+                return task.call();
+            } finally {
+                restore(previous);
+            }
+        };
+    }
+
+    /**
+     * 判断当前线程是否正在执行任务
+     * @return 如果正在执行任务则返回true
+     */
+    public static boolean isActive() {
+        return CURRENT_TASK.get() != null;
+    }
+
+    /**
+     * 获取当前任务
+     * @return 当前任务
+     */
+    private static TaskContext currentTask() {
+        TaskContext task = CURRENT_TASK.get();
+        if (task == null) {
+            throw new IllegalStateException("当前线程不在任务作用域中，请通过 TaskScope.run 或 TaskScope.call 执行！");
+        }
+        return task;
+    }
+
+    /**
+     * 恢复之前绑定的任务，如果之前没有任务则清除线程上的绑定
+     * @param previous 之前绑定的任务
+     */
+    private static void restore(TaskContext previous) {
+        if (previous == null) {
+            CURRENT_TASK.remove();
+        } else {
+            CURRENT_TASK.set(previous);
+        }
+    }
+
+    /**
+     * 任务上下文，保存任务内各作用域的实例槽位
+     */
+    private static class TaskContext {
+        /**
+         * 每个作用域的实例槽位，子任务可能并发访问
+         */
+        private final Map<TaskScope, Map<String, Object>> beans = new ConcurrentHashMap<>(4);
+
+        Map<String, Object> getBeans(TaskScope scope) {
+            Map<String, Object> scopeBeans = beans.get(scope);
+            if (scopeBeans == null) {
+                scopeBeans = beans.computeIfAbsent(scope, key -> new ConcurrentHashMap<>());
+            }
+            return scopeBeans;
+        }
+    }
+}
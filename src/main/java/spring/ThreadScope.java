@@ -0,0 +1,50 @@
+package spring;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * 线程作用域，每个线程拥有各自的实例
+ * <p>
+ *     实例缓存在当前线程的槽位中，线程被线程池复用时实例也会被复用；如果需要在任务结束时释放实例，
+ *     可以调用 {@link #clear()}，或者使用与线程无关的 {@link TaskScope}。
+ * </p>
+ * @author GaoZiYang
+ * @since 2021年11月23日 10:21:44
+ */
+public class ThreadScope implements BeanScope {
+    /**
+     * 当前线程的实例槽位，只在线程第一次获取实例时创建
+     */
+    private final ThreadLocal<Map<String, Object>> threadBeans = new ThreadLocal<>();
+
+    @Override
+    public Object get(String beanName, Supplier<Object> objectFactory) {
+        Map<String, Object> beans = threadBeans.get();
+        if (beans == null) {
+            beans = new HashMap<>();
+            threadBeans.set(beans);
+        }
+        Object bean = beans.get(beanName);
+        if (bean == null) {
+            // 创建实例时可能会递归获取同一作用域中的其他实例，因此不能使用computeIfAbsent
+            bean = objectFactory.get();
+            beans.put(beanName, bean);
+        }
+        return bean;
+    }
+
+    @Override
+    public Object remove(String beanName) {
+        Map<String, Object> beans = threadBeans.get();
+        return beans == null ? null : beans.remove(beanName);
+    }
+
+    /**
+     * 清除当前线程中的全部实例
+     */
+    public void clear() {
+        threadBeans.remove();
+    }
+}
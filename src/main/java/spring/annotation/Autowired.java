@@ -7,11 +7,12 @@ import java.lang.annotation.Target;
 
 /**
  * 自动注入注解，先根据类型进行自动注入，如果未找到指定类型对象或者找到多个，就通过Bean名称进行查找，如果还是未找到，则返回空或抛出异常
+ * <br/>可以标注在字段、只有一个参数的setter方法、构造器以及构造器参数上，标注在构造器上时 {@link #value()} 没有作用，参数的Bean名称由参数上的注解或参数名称决定。
  * @author GaoZiYang
  * @since 2021年11月09日 14:55:33
  */
 @Retention(RetentionPolicy.RUNTIME)
-@Target({ElementType.FIELD, ElementType.METHOD})
+@Target({ElementType.FIELD, ElementType.METHOD, ElementType.CONSTRUCTOR, ElementType.PARAMETER})
 public @interface Autowired {
     /**
      * 指定要注入Bean的名称
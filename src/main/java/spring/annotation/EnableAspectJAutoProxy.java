@@ -0,0 +1,17 @@
+package spring.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 开启AOP，声明在配置类上
+ * <br/>容器会注册 {@link spring.aop.AspectJAutoProxyCreator}，为匹配到 <code>@Aspect</code> 切面中通知的Spring Bean创建JDK动态代理。
+ * @author GaoZiYang
+ * @since 2021年11月27日 14:12:05
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface EnableAspectJAutoProxy {
+}
@@ -0,0 +1,22 @@
+package spring.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 延迟初始化标识，被声明的单例不会在容器刷新时创建，而是在第一次获取时才创建
+ * <br/>注入到其他Spring Bean中时，如果字段类型为接口，注入的是一个在第一次调用时才解析目标实例的代理。
+ * @author GaoZiYang
+ * @since 2021年11月19日 11:26:08
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Lazy {
+    /**
+     * 是否延迟初始化
+     * @return 如果延迟初始化则返回true，反之返回false
+     */
+    boolean value() default true;
+}
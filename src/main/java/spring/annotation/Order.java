@@ -0,0 +1,26 @@
+package spring.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Spring Bean的排序，注入 <b>List</b>、数组或 <b>Map</b> 时按照该值从小到大排列，值相同或未声明时按照Spring Bean名称排列
+ * @author GaoZiYang
+ * @since 2021年12月02日 10:26:41
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Order {
+    /**
+     * 优先级最低的排序值，未声明 {@link Order} 的Spring Bean使用该值
+     */
+    int LOWEST_PRECEDENCE = Integer.MAX_VALUE;
+
+    /**
+     * 排序值，越小越靠前
+     * @return 排序值
+     */
+    int value() default LOWEST_PRECEDENCE;
+}
@@ -0,0 +1,27 @@
+package spring.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 用于配置池化（pooled）作用域的对象池大小，需要与 <code>@Scope("pooled")</code> 一起使用
+ * @author GaoZiYang
+ * @since 2021年11月22日 14:17:35
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Pooled {
+    /**
+     * 容器刷新时预先创建的实例数量
+     * @return 对象池的最小容量
+     */
+    int minSize() default 0;
+
+    /**
+     * 对象池最多缓存的实例数量，超出的实例在归还时会被丢弃
+     * @return 对象池的最大容量
+     */
+    int maxSize() default 8;
+}
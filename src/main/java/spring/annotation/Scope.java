@@ -15,6 +15,16 @@ import java.lang.annotation.Target;
  *     <li>
  *         prototype：原型。
  *     </li>
+ *     <li>
+ *         pooled：池化，实例通过 <code>ApplicationContext.borrowBean</code> 从对象池中借出并在用完后通过 <code>returnBean</code> 归还，
+ *         对象池大小可以通过 {@link spring.annotation.Pooled} 配置；<code>getBean</code> 和依赖注入会在对象池之外创建新实例。
+ *     </li>
+ *     <li>
+ *         thread：线程，每个线程拥有各自的实例。
+ *     </li>
+ *     <li>
+ *         task：任务，每个通过 {@link spring.TaskScope} 执行的任务拥有各自的实例。
+ *     </li>
  * </ol>
  * @author GaoZiYang
  * @since 2021年11月09日 11:02:06
@@ -0,0 +1,179 @@
+package spring.aop;
+
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.weaver.tools.PointcutExpression;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * 切面中的一个通知，同时也是作用在匹配方法上的拦截器
+ * <p>
+ *     通知方法在解析切面时被绑定为统一类型 <code>(Object joinPoint, Object value)Object</code> 的 {@link MethodHandle}，
+ *     每个参数根据类型取连接点或绑定值（返回值、异常），调用通知时不需要创建参数数组，也不使用反射。
+ * </p>
+ * <p>
+ *     通知方法的参数只能是 {@link JoinPoint}、{@link ProceedingJoinPoint}（仅环绕通知），
+ *     以及通过 <code>returning</code> 或 <code>throwing</code> 绑定的返回值或异常。由于编译后不一定保留参数名称，
+ *     返回值或异常按照参数位置绑定，即除连接点以外唯一的那个参数。
+ * </p>
+ * @author GaoZiYang
+ * @since 2021年11月27日 15:02:27
+ */
+abstract class AbstractAspectJAdvice implements MethodInterceptor {
+    /**
+     * 通知方法调用句柄的统一类型：(Object joinPoint, Object value)Object
+     */
+    private static final MethodType ADVICE_TYPE = MethodType.methodType(Object.class, Object.class, Object.class);
+    /**
+     * 参数取连接点
+     */
+    private static final int JOIN_POINT_ARGUMENT = 0;
+    /**
+     * 参数取绑定值
+     */
+    private static final int BINDING_ARGUMENT = 1;
+
+    /**
+     * 切面的Spring Bean名称
+     */
+    private final String aspectName;
+
+    /**
+     * 通知方法
+     */
+    private final Method adviceMethod;
+
+    /**
+     * 切点表达式
+     */
+    private final PointcutExpression pointcut;
+
+    /**
+     * 通知方法的调用句柄，已经绑定了切面实例
+     */
+    private final MethodHandle adviceHandle;
+
+    /**
+     * 绑定值的类型（基本类型已转换为包装类型），没有绑定参数时为null
+     */
+    private final Class<?> bindingType;
+
+    /**
+     * 绑定参数是否为基本类型，基本类型的参数无法接收null
+     */
+    private final boolean primitiveBinding;
+
+    /**
+     * @param aspectName 切面的Spring Bean名称
+     * @param aspectInstance 切面实例
+     * @param adviceMethod 通知方法
+     * @param pointcut 切点表达式
+     * @param bindingAllowed 是否允许绑定返回值或异常
+     */
+    protected AbstractAspectJAdvice(String aspectName, Object aspectInstance, Method adviceMethod,
+                                    PointcutExpression pointcut, boolean bindingAllowed) {
+        this.aspectName = aspectName;
+        this.adviceMethod = adviceMethod;
+        this.pointcut = pointcut;
+        if (Modifier.isStatic(adviceMethod.getModifiers())) {
+            throw new IllegalStateException("通知方法不能是静态方法：" + adviceMethod);
+        }
+
+        Class<?>[] parameterTypes = adviceMethod.getParameterTypes();
+        int[] reorder = new int[parameterTypes.length];
+        Class<?> binding = null;
+        for (int i = 0; i < parameterTypes.length; i++) {
+            if (ProceedingJoinPoint.class.isAssignableFrom(parameterTypes[i]) && !(this instanceof AspectJAroundAdvice)) {
+                throw new IllegalStateException("只有环绕通知可以声明ProceedingJoinPoint参数：" + adviceMethod);
+            }
+            if (JoinPoint.class.isAssignableFrom(parameterTypes[i])) {
+                reorder[i] = JOIN_POINT_ARGUMENT;
+            } else if (bindingAllowed && binding == null) {
+                reorder[i] = BINDING_ARGUMENT;
+                binding = parameterTypes[i];
+            } else {
+                throw new IllegalStateException("不支持的通知参数 " + parameterTypes[i].getName() + "：" + adviceMethod);
+            }
+        }
+        this.bindingType = binding == null ? null : wrap(binding);
+        this.primitiveBinding = binding != null && binding.isPrimitive();
+
+        try {
+            adviceMethod.setAccessible(true);
+            MethodHandle handle = MethodHandles.lookup().unreflect(adviceMethod).bindTo(aspectInstance);
+            this.adviceHandle = MethodHandles.permuteArguments(handle.asType(handle.type().generic()), ADVICE_TYPE, reorder);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("无法访问通知方法：" + adviceMethod, e);
+        }
+    }
+
+    /**
+     * 判断该通知是否可能作用于某个类中的方法，用于在创建Spring Bean之前快速排除无关的类
+     * @param targetClass 目标类
+     * @return 如果返回false则该类中的所有方法都不会匹配
+     */
+    boolean couldMatch(Class<?> targetClass) {
+        return pointcut.couldMatchJoinPointsInType(targetClass);
+    }
+
+    /**
+     * 判断该通知是否作用于某个方法，只在创建代理时调用一次
+     * <p>
+     *     只有静态可以确定匹配的方法才会被拦截，需要在运行时根据参数判断的切点不会匹配。
+     * </p>
+     * @param method 目标类中的实现方法
+     * @return 如果返回true表示需要拦截该方法
+     */
+    boolean matches(Method method) {
+        return pointcut.matchesMethodExecution(method).alwaysMatches();
+    }
+
+    /**
+     * 调用通知方法
+     * @param joinPoint 连接点
+     * @param value 绑定值，没有绑定参数时忽略
+     * @return 通知方法的返回值，void方法返回null
+     * @throws Throwable 通知方法抛出的异常
+     */
+    protected Object invokeAdviceMethod(JoinPoint joinPoint, Object value) throws Throwable {
+        return (Object) adviceHandle.invokeExact((Object) joinPoint, value);
+    }
+
+    /**
+     * 判断某个值能否绑定到通知方法的参数上，不能绑定时不调用通知方法
+     * @param value 返回值或异常
+     * @return 如果返回true表示可以绑定
+     */
+    protected boolean canBind(Object value) {
+        if (bindingType == null) {
+            return true;
+        }
+        return value == null ? !primitiveBinding : bindingType.isInstance(value);
+    }
+
+    String getAspectName() {
+        return aspectName;
+    }
+
+    Method getAdviceMethod() {
+        return adviceMethod;
+    }
+
+    private static Class<?> wrap(Class<?> type) {
+        if (!type.isPrimitive()) {
+            return type;
+        }
+        return MethodType.methodType(type).wrap().returnType();
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + ": " + aspectName + "#" + adviceMethod.getName()
+                + " [" + pointcut.getPointcutExpression() + "]";
+    }
+}
@@ -0,0 +1,167 @@
+package spring.aop;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 某个目标类的代理元数据
+ * <p>
+ *     在第一次为该类创建代理时，对接口中的每个方法执行一次切点匹配，并编译出对应的 {@link AdvisedMethod}，
+ *     之后同一个类（例如原型实例）再创建代理时直接复用，只需要创建新的调用处理器和代理对象。
+ * </p>
+ * @author GaoZiYang
+ * @since 2021年11月27日 15:52:19
+ */
+final class AdvisedClass {
+    /**
+     * 代理实现的接口
+     */
+    private final Class<?>[] interfaces;
+
+    /**
+     * 接口方法对应的被代理方法
+     */
+    private final Map<Method, AdvisedMethod> advisedMethods;
+
+    /**
+     * 是否有方法需要被拦截，如果没有则不需要创建代理
+     */
+    private final boolean advised;
+
+    private AdvisedClass(Class<?>[] interfaces, Map<Method, AdvisedMethod> advisedMethods, boolean advised) {
+        this.interfaces = interfaces;
+        this.advisedMethods = advisedMethods;
+        this.advised = advised;
+    }
+
+    /**
+     * 为目标类匹配通知并编译被代理的方法
+     * @param targetClass 目标类
+     * @param advices 全部通知，按照调用顺序排列
+     * @return 代理元数据
+     */
+    static AdvisedClass build(Class<?> targetClass, AbstractAspectJAdvice[] advices) {
+        Set<Class<?>> interfaces = new LinkedHashSet<>();
+        for (Class<?> cls = targetClass; cls != null; cls = cls.getSuperclass()) {
+            for (Class<?> anInterface : cls.getInterfaces()) {
+                interfaces.add(anInterface);
+            }
+        }
+        if (interfaces.isEmpty()) {
+            for (Method method : targetClass.getMethods()) {
+                if (method.getDeclaringClass() != Object.class && match(method, advices).length > 0) {
+                    throw new IllegalStateException(targetClass.getName() + " 的方法 " + method.getName()
+                            + " 匹配了通知，但该类没有实现任何接口，无法创建JDK动态代理！");
+                }
+            }
+            return new AdvisedClass(new Class<?>[0], new HashMap<>(), false);
+        }
+
+        Map<Method, AdvisedMethod> advisedMethods = new HashMap<>();
+        // 多个接口声明的同一个方法共享同一个实现方法
+        Map<Method, AdvisedMethod> implementations = new HashMap<>();
+        boolean advised = false;
+        try {
+            for (Class<?> anInterface : interfaces) {
+                for (Method interfaceMethod : anInterface.getMethods()) {
+                    // 接口的静态方法不会被继承，代理也不会分发这些方法
+                    if (Modifier.isStatic(interfaceMethod.getModifiers())) {
+                        continue;
+                    }
+                    Method implementation = targetClass.getMethod(interfaceMethod.getName(), interfaceMethod.getParameterTypes());
+                    if (implementation.isBridge()) {
+                        implementation = findBridgedMethod(targetClass, implementation);
+                    }
+                    AdvisedMethod advisedMethod = implementations.get(implementation);
+                    if (advisedMethod == null) {
+                        // 连接点按照创建顺序编号，同一个类的所有代理实例共享
+                        advisedMethod = new AdvisedMethod(implementation, targetClass, implementations.size(),
+                                match(implementation, advices));
+                        implementations.put(implementation, advisedMethod);
+                    }
+                    advisedMethods.put(interfaceMethod, advisedMethod);
+                    advised |= advisedMethod.isAdvised();
+                }
+            }
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new IllegalStateException("无法为 " + targetClass.getName() + " 创建代理！", e);
+        }
+        return new AdvisedClass(interfaces.toArray(new Class<?>[0]), advisedMethods, advised);
+    }
+
+    /**
+     * 查找桥接方法所桥接的实际方法，泛型接口的方法按擦除后的参数类型查找时得到的是编译器生成的桥接方法，
+     * 切点需要与实际方法的签名进行匹配
+     * @param targetClass 目标类
+     * @param bridge 桥接方法
+     * @return 名称和参数数量相同、参数类型可以赋值给桥接方法参数类型的非桥接方法，找不到时返回桥接方法本身
+     */
+    private static Method findBridgedMethod(Class<?> targetClass, Method bridge) {
+        Class<?>[] bridgeParameterTypes = bridge.getParameterTypes();
+        for (Method candidate : targetClass.getMethods()) {
+            if (candidate.isBridge() || !candidate.getName().equals(bridge.getName())
+                    || candidate.getParameterCount() != bridgeParameterTypes.length
+                    || !bridge.getReturnType().isAssignableFrom(candidate.getReturnType())) {
+                continue;
+            }
+            Class<?>[] parameterTypes = candidate.getParameterTypes();
+            boolean assignable = true;
+            for (int i = 0; i < parameterTypes.length && assignable; i++) {
+                assignable = bridgeParameterTypes[i].isAssignableFrom(parameterTypes[i]);
+            }
+            if (assignable) {
+                return candidate;
+            }
+        }
+        return bridge;
+    }
+
+    /**
+     * 筛选出作用于某个方法的通知
+     * @param method 目标类中的实现方法
+     * @param advices 全部通知
+     * @return 拦截器数组
+     */
+    private static MethodInterceptor[] match(Method method, AbstractAspectJAdvice[] advices) {
+        List<MethodInterceptor> interceptors = new ArrayList<>();
+        for (AbstractAspectJAdvice advice : advices) {
+            if (advice.matches(method)) {
+                interceptors.add(advice);
+            }
+        }
+        return interceptors.isEmpty() ? AdvisedMethod.NO_INTERCEPTORS : interceptors.toArray(new MethodInterceptor[0]);
+    }
+
+    /**
+     * 为目标对象创建代理
+     * @param target 目标对象
+     * @return JDK动态代理
+     */
+    Object newProxy(Object target) {
+        ClassLoader classLoader = target.getClass().getClassLoader();
+        if (classLoader == null) {
+            classLoader = interfaces[0].getClassLoader();
+        }
+        return Proxy.newProxyInstance(classLoader, interfaces, new JdkDynamicAopProxy(target, this));
+    }
+
+    /**
+     * 获取接口方法对应的被代理方法
+     * @param method 代理对象被调用的接口方法
+     * @return 被代理的方法，如果不是接口方法则返回null
+     */
+    AdvisedMethod getAdvisedMethod(Method method) {
+        return advisedMethods.get(method);
+    }
+
+    boolean isAdvised() {
+        return advised;
+    }
+}
@@ -0,0 +1,80 @@
+package spring.aop;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+
+/**
+ * 被代理的方法，在创建代理时预先编译好目标方法的调用句柄和拦截器数组
+ * <p>
+ *     同一个类的所有代理实例共享同一份编译结果，调用时不再进行切点匹配，也不使用反射调用目标方法。
+ * </p>
+ * @author GaoZiYang
+ * @since 2021年11月27日 14:35:18
+ */
+final class AdvisedMethod {
+    /**
+     * 目标方法调用句柄的统一类型：(Object target, Object[] args)Object
+     */
+    private static final MethodType INVOKER_TYPE = MethodType.methodType(Object.class, Object.class, Object[].class);
+
+    /**
+     * 不需要拦截的方法共享的空拦截器数组
+     */
+    static final MethodInterceptor[] NO_INTERCEPTORS = new MethodInterceptor[0];
+
+    /**
+     * 连接点的静态部分
+     */
+    private final MethodExecutionStaticPart staticPart;
+
+    /**
+     * 目标方法的调用句柄
+     */
+    private final MethodHandle invoker;
+
+    /**
+     * 按顺序排列的拦截器
+     */
+    private final MethodInterceptor[] interceptors;
+
+    /**
+     * @param method 目标类中的实现方法
+     * @param targetClass 目标类
+     * @param id 连接点编号，在同一个目标类中唯一
+     * @param interceptors 按顺序排列的拦截器
+     * @throws IllegalAccessException 无法访问目标方法时抛出
+     */
+    AdvisedMethod(Method method, Class<?> targetClass, int id, MethodInterceptor[] interceptors) throws IllegalAccessException {
+        method.setAccessible(true);
+        this.staticPart = new MethodExecutionStaticPart(method, targetClass, id);
+        this.invoker = MethodHandles.lookup().unreflect(method)
+                .asSpreader(Object[].class, method.getParameterCount())
+                .asType(INVOKER_TYPE);
+        this.interceptors = interceptors;
+    }
+
+    /**
+     * 直接调用目标方法
+     * @param target 目标对象
+     * @param args 方法参数
+     * @return 方法返回值
+     * @throws Throwable 目标方法抛出的异常
+     */
+    Object invokeTarget(Object target, Object[] args) throws Throwable {
+        return (Object) invoker.invokeExact(target, args);
+    }
+
+    MethodExecutionStaticPart getStaticPart() {
+        return staticPart;
+    }
+
+    MethodInterceptor[] getInterceptors() {
+        return interceptors;
+    }
+
+    boolean isAdvised() {
+        return interceptors.length > 0;
+    }
+}
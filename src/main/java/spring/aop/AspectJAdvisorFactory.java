@@ -0,0 +1,159 @@
+package spring.aop;
+
+import org.aspectj.lang.annotation.After;
+import org.aspectj.lang.annotation.AfterReturning;
+import org.aspectj.lang.annotation.AfterThrowing;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Before;
+import org.aspectj.weaver.tools.PointcutExpression;
+import org.aspectj.weaver.tools.PointcutParser;
+import org.aspectj.weaver.tools.PointcutParameter;
+import org.aspectj.weaver.tools.PointcutPrimitive;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 解析 {@link Aspect} 切面中的通知
+ * <p>
+ *     切点表达式由AspectJ解析，只支持可以在创建代理时静态确定匹配结果的切点：<b>execution</b>、<b>within</b>、
+ *     <b>@annotation</b>、<b>@within</b> 以及对 {@link org.aspectj.lang.annotation.Pointcut} 方法的引用，
+ *     这样每次调用代理方法时都不需要再进行匹配。
+ * </p>
+ * <p>
+ *     同一个切面中的通知按照 环绕、前置、后置、返回、异常 的顺序排列，同类通知按方法名称排序。
+ * </p>
+ * @author GaoZiYang
+ * @since 2021年11月27日 15:36:02
+ */
+final class AspectJAdvisorFactory {
+    /**
+     * 支持的切点类型
+     */
+    private static final Set<PointcutPrimitive> SUPPORTED_PRIMITIVES = new HashSet<>();
+
+    static {
+        SUPPORTED_PRIMITIVES.add(PointcutPrimitive.EXECUTION);
+        SUPPORTED_PRIMITIVES.add(PointcutPrimitive.WITHIN);
+        SUPPORTED_PRIMITIVES.add(PointcutPrimitive.REFERENCE);
+        SUPPORTED_PRIMITIVES.add(PointcutPrimitive.AT_ANNOTATION);
+        SUPPORTED_PRIMITIVES.add(PointcutPrimitive.AT_WITHIN);
+    }
+
+    private AspectJAdvisorFactory() {
+    }
+
+    /**
+     * 解析切面实例中的全部通知
+     * @param aspectName 切面的Spring Bean名称
+     * @param aspectInstance 切面实例
+     * @return 排好序的通知
+     */
+    static List<AbstractAspectJAdvice> getAdvices(String aspectName, Object aspectInstance) {
+        Class<?> aspectClass = aspectInstance.getClass();
+        if (!aspectClass.isAnnotationPresent(Aspect.class)) {
+            throw new IllegalArgumentException(aspectClass.getName() + " 没有声明@Aspect注解！");
+        }
+        PointcutParser parser = PointcutParser
+                .getPointcutParserSupportingSpecifiedPrimitivesAndUsingSpecifiedClassLoaderForResolution(
+                        SUPPORTED_PRIMITIVES, aspectClass.getClassLoader());
+
+        List<Method> adviceMethods = new ArrayList<>();
+        for (Class<?> cls = aspectClass; cls != null && cls != Object.class; cls = cls.getSuperclass()) {
+            for (Method method : cls.getDeclaredMethods()) {
+                if (!method.isSynthetic() && !method.isBridge() && adviceOrder(method) >= 0) {
+                    adviceMethods.add(method);
+                }
+            }
+        }
+        adviceMethods.sort(Comparator.comparingInt(AspectJAdvisorFactory::adviceOrder)
+                .thenComparing(Method::getName)
+                .thenComparing(Method::toString));
+
+        List<AbstractAspectJAdvice> advices = new ArrayList<>(adviceMethods.size());
+        for (Method method : adviceMethods) {
+            advices.add(createAdvice(parser, aspectName, aspectInstance, method));
+        }
+        return advices;
+    }
+
+    /**
+     * 根据通知注解创建通知
+     * @param parser 切点表达式解析器
+     * @param aspectName 切面的Spring Bean名称
+     * @param aspectInstance 切面实例
+     * @param method 通知方法
+     * @return 通知
+     */
+    private static AbstractAspectJAdvice createAdvice(PointcutParser parser, String aspectName, Object aspectInstance, Method method) {
+        Around around = method.getDeclaredAnnotation(Around.class);
+        if (around != null) {
+            return new AspectJAroundAdvice(aspectName, aspectInstance, method, parse(parser, around.value(), method));
+        }
+        Before before = method.getDeclaredAnnotation(Before.class);
+        if (before != null) {
+            return new AspectJMethodBeforeAdvice(aspectName, aspectInstance, method, parse(parser, before.value(), method));
+        }
+        After after = method.getDeclaredAnnotation(After.class);
+        if (after != null) {
+            return new AspectJAfterAdvice(aspectName, aspectInstance, method, parse(parser, after.value(), method));
+        }
+        AfterReturning afterReturning = method.getDeclaredAnnotation(AfterReturning.class);
+        if (afterReturning != null) {
+            String expression = "".equals(afterReturning.pointcut()) ? afterReturning.value() : afterReturning.pointcut();
+            return new AspectJAfterReturningAdvice(aspectName, aspectInstance, method, parse(parser, expression, method),
+                    !"".equals(afterReturning.returning()));
+        }
+        AfterThrowing afterThrowing = method.getDeclaredAnnotation(AfterThrowing.class);
+        String expression = "".equals(afterThrowing.pointcut()) ? afterThrowing.value() : afterThrowing.pointcut();
+        return new AspectJAfterThrowingAdvice(aspectName, aspectInstance, method, parse(parser, expression, method),
+                !"".equals(afterThrowing.throwing()));
+    }
+
+    /**
+     * 解析切点表达式，表达式中引用的切点方法在通知方法所在的类中查找
+     * @param parser 切点表达式解析器
+     * @param expression 切点表达式
+     * @param method 通知方法
+     * @return 切点表达式
+     */
+    private static PointcutExpression parse(PointcutParser parser, String expression, Method method) {
+        if (expression == null || "".equals(expression.trim())) {
+            throw new IllegalStateException("通知没有声明切点表达式：" + method);
+        }
+        try {
+            return parser.parsePointcutExpression(expression, method.getDeclaringClass(), new PointcutParameter[0]);
+        } catch (RuntimeException e) {
+            throw new IllegalStateException("无法解析切点表达式 \"" + expression + "\"：" + method, e);
+        }
+    }
+
+    /**
+     * 获取通知方法的排序，不是通知方法则返回-1
+     * @param method 方法
+     * @return 排序
+     */
+    private static int adviceOrder(Method method) {
+        if (method.isAnnotationPresent(Around.class)) {
+            return 0;
+        }
+        if (method.isAnnotationPresent(Before.class)) {
+            return 1;
+        }
+        if (method.isAnnotationPresent(After.class)) {
+            return 2;
+        }
+        if (method.isAnnotationPresent(AfterReturning.class)) {
+            return 3;
+        }
+        if (method.isAnnotationPresent(AfterThrowing.class)) {
+            return 4;
+        }
+        return -1;
+    }
+}
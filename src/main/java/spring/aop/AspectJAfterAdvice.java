@@ -0,0 +1,25 @@
+package spring.aop;
+
+import org.aspectj.weaver.tools.PointcutExpression;
+
+import java.lang.reflect.Method;
+
+/**
+ * 后置通知，无论目标方法正常返回还是抛出异常都会调用
+ * @author GaoZiYang
+ * @since 2021年11月27日 15:21:32
+ */
+class AspectJAfterAdvice extends AbstractAspectJAdvice {
+    AspectJAfterAdvice(String aspectName, Object aspectInstance, Method adviceMethod, PointcutExpression pointcut) {
+        super(aspectName, aspectInstance, adviceMethod, pointcut, false);
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        try {
+            return invocation.proceed();
+        } finally {
+            invokeAdviceMethod(invocation, null);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package spring.aop;
+
+import org.aspectj.weaver.tools.PointcutExpression;
+
+import java.lang.reflect.Method;
+
+/**
+ * 返回通知，在目标方法正常返回后调用，可以通过 <code>returning</code> 绑定返回值
+ * <br/>如果返回值的类型与绑定参数的类型不符，则不调用该通知。
+ * @author GaoZiYang
+ * @since 2021年11月27日 15:23:10
+ */
+class AspectJAfterReturningAdvice extends AbstractAspectJAdvice {
+    AspectJAfterReturningAdvice(String aspectName, Object aspectInstance, Method adviceMethod,
+                                PointcutExpression pointcut, boolean returningBound) {
+        super(aspectName, aspectInstance, adviceMethod, pointcut, returningBound);
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Object returnValue = invocation.proceed();
+        if (canBind(returnValue)) {
+            invokeAdviceMethod(invocation, returnValue);
+        }
+        return returnValue;
+    }
+}
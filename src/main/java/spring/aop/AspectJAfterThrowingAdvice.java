@@ -0,0 +1,30 @@
+package spring.aop;
+
+import org.aspectj.weaver.tools.PointcutExpression;
+
+import java.lang.reflect.Method;
+
+/**
+ * 异常通知，在目标方法抛出异常后调用，可以通过 <code>throwing</code> 绑定异常
+ * <br/>如果异常的类型与绑定参数的类型不符，则不调用该通知。通知执行完毕后原异常会继续抛出。
+ * @author GaoZiYang
+ * @since 2021年11月27日 15:24:47
+ */
+class AspectJAfterThrowingAdvice extends AbstractAspectJAdvice {
+    AspectJAfterThrowingAdvice(String aspectName, Object aspectInstance, Method adviceMethod,
+                               PointcutExpression pointcut, boolean throwingBound) {
+        super(aspectName, aspectInstance, adviceMethod, pointcut, throwingBound);
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        try {
+            return invocation.proceed();
+        } catch (Throwable ex) {
+            if (canBind(ex)) {
+                invokeAdviceMethod(invocation, ex);
+            }
+            throw ex;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package spring.aop;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.weaver.tools.PointcutExpression;
+
+import java.lang.reflect.Method;
+
+/**
+ * 环绕通知，由通知方法决定是否以及何时调用 {@link ProceedingJoinPoint#proceed()}
+ * @author GaoZiYang
+ * @since 2021年11月27日 15:18:44
+ */
+class AspectJAroundAdvice extends AbstractAspectJAdvice {
+    AspectJAroundAdvice(String aspectName, Object aspectInstance, Method adviceMethod, PointcutExpression pointcut) {
+        super(aspectName, aspectInstance, adviceMethod, pointcut, false);
+        Class<?>[] parameterTypes = adviceMethod.getParameterTypes();
+        if (parameterTypes.length == 0 || parameterTypes[0] != ProceedingJoinPoint.class) {
+            throw new IllegalStateException("环绕通知的第一个参数必须是ProceedingJoinPoint：" + adviceMethod);
+        }
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        return invokeAdviceMethod(invocation, null);
+    }
+}
@@ -0,0 +1,158 @@
+package spring.aop;
+
+import org.aspectj.lang.annotation.Aspect;
+import spring.ApplicationContext;
+import spring.BeanDefinition;
+import spring.BeanPostProcessor;
+import spring.SmartInstantiationAwareBeanPostProcessor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 根据 {@link Aspect} 切面自动创建AOP代理的后置处理器
+ * <p>
+ *     第一次判断是否需要处理某个Spring Bean时，从容器中取出所有声明了 {@link Aspect} 的Spring Bean并解析其中的通知，
+ *     之后通过 {@link #supports(String, Class)} 只对可能被通知匹配的类生效，其他Spring Bean不会调用该后置处理器。
+ *     代理在初始化之后创建；如果单例因为循环依赖被提前获取，则在 {@link #getEarlyBeanReference(String, Object)} 中提前创建，
+ *     保证其他Spring Bean注入的是同一个代理。
+ * </p>
+ * <p>
+ *     代理基于JDK动态代理，只能拦截接口中的方法。后置处理器和切面本身不会被代理，
+ *     在解析切面期间创建的Spring Bean（例如切面所依赖的Spring Bean）也不会被代理。
+ * </p>
+ * @author GaoZiYang
+ * @since 2021年11月27日 16:18:50
+ */
+public class AspectJAutoProxyCreator implements SmartInstantiationAwareBeanPostProcessor {
+    /**
+     * 没有通知
+     */
+    private static final AbstractAspectJAdvice[] NO_ADVICES = new AbstractAspectJAdvice[0];
+
+    /**
+     * Spring应用上下文
+     */
+    private final ApplicationContext applicationContext;
+
+    /**
+     * 全部通知，在第一次使用时解析
+     */
+    private final AtomicReference<AbstractAspectJAdvice[]> advices = new AtomicReference<>();
+
+    /**
+     * 当前线程是否正在解析切面
+     */
+    private final ThreadLocal<Boolean> buildingAdvices = new ThreadLocal<>();
+
+    /**
+     * 每个目标类的代理元数据
+     */
+    private final Map<Class<?>, AdvisedClass> advisedClassCache = new ConcurrentHashMap<>();
+
+    /**
+     * 已经提前创建过代理的单例，value为原始实例
+     */
+    private final Map<String, Object> earlyProxyReferences = new ConcurrentHashMap<>();
+
+    public AspectJAutoProxyCreator(ApplicationContext applicationContext) {
+        this.applicationContext = applicationContext;
+    }
+
+    @Override
+    public boolean supports(String beanName, Class<?> beanClass) {
+        if (beanClass == null || isInfrastructureClass(beanClass)) {
+            return false;
+        }
+        for (AbstractAspectJAdvice advice : getAdvices()) {
+            if (advice.couldMatch(beanClass)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Object getEarlyBeanReference(String beanName, Object bean) {
+        earlyProxyReferences.put(beanName, bean);
+        return wrapIfNecessary(bean);
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(String beanName, Object bean) {
+        if (earlyProxyReferences.remove(beanName) != bean) {
+            return wrapIfNecessary(bean);
+        }
+        return bean;
+    }
+
+    /**
+     * 如果有方法被通知匹配，则为实例创建代理
+     * @param bean Spring Bean实例
+     * @return 代理或原实例
+     */
+    private Object wrapIfNecessary(Object bean) {
+        AbstractAspectJAdvice[] currentAdvices = getAdvices();
+        if (currentAdvices.length == 0) {
+            return bean;
+        }
+        AdvisedClass advisedClass = advisedClassCache.computeIfAbsent(bean.getClass(),
+                targetClass -> AdvisedClass.build(targetClass, currentAdvices));
+        return advisedClass.isAdvised() ? advisedClass.newProxy(bean) : bean;
+    }
+
+    /**
+     * 获取全部通知，第一次调用时解析容器中的所有切面
+     * <p>
+     *     解析不加锁：并发的线程可能各自解析一次，最终只有一份结果生效。这样解析切面时创建Spring Bean不会与其他线程互相等待。
+     * </p>
+     * @return 全部通知，按照调用顺序排列
+     */
+    private AbstractAspectJAdvice[] getAdvices() {
+        AbstractAspectJAdvice[] current = advices.get();
+        if (current != null) {
+            return current;
+        }
+        if (buildingAdvices.get() != null) {
+            return NO_ADVICES;
+        }
+        buildingAdvices.set(Boolean.TRUE);
+        try {
+            current = buildAdvices();
+        } finally {
+            buildingAdvices.remove();
+        }
+        advices.compareAndSet(null, current);
+        return advices.get();
+    }
+
+    /**
+     * 按照切面名称的顺序解析容器中的所有切面
+     * @return 全部通知
+     */
+    private AbstractAspectJAdvice[] buildAdvices() {
+        String[] beanNames = applicationContext.getBeanDefinitionNames();
+        Arrays.sort(beanNames);
+        List<AbstractAspectJAdvice> result = new ArrayList<>();
+        for (String beanName : beanNames) {
+            BeanDefinition beanDefinition = applicationContext.getBeanDefinition(beanName);
+            if (beanDefinition != null && beanDefinition.getCls().isAnnotationPresent(Aspect.class)) {
+                result.addAll(AspectJAdvisorFactory.getAdvices(beanName, applicationContext.getBean(beanName)));
+            }
+        }
+        return result.isEmpty() ? NO_ADVICES : result.toArray(new AbstractAspectJAdvice[0]);
+    }
+
+    /**
+     * 判断是否为不能被代理的基础设施类
+     * @param beanClass Spring Bean的类型
+     * @return 后置处理器和切面返回true
+     */
+    private static boolean isInfrastructureClass(Class<?> beanClass) {
+        return BeanPostProcessor.class.isAssignableFrom(beanClass) || beanClass.isAnnotationPresent(Aspect.class);
+    }
+}
@@ -0,0 +1,22 @@
+package spring.aop;
+
+import org.aspectj.weaver.tools.PointcutExpression;
+
+import java.lang.reflect.Method;
+
+/**
+ * 前置通知，在目标方法之前调用
+ * @author GaoZiYang
+ * @since 2021年11月27日 15:20:06
+ */
+class AspectJMethodBeforeAdvice extends AbstractAspectJAdvice {
+    AspectJMethodBeforeAdvice(String aspectName, Object aspectInstance, Method adviceMethod, PointcutExpression pointcut) {
+        super(aspectName, aspectInstance, adviceMethod, pointcut, false);
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        invokeAdviceMethod(invocation, null);
+        return invocation.proceed();
+    }
+}
@@ -0,0 +1,77 @@
+package spring.aop;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+/**
+ * AOP代理的调用处理器
+ * <p>
+ *     每次调用只需要根据接口方法取出预先编译好的 {@link AdvisedMethod}：没有通知的方法直接通过方法句柄调用目标方法，
+ *     有通知的方法创建一个 {@link MethodInvocation} 沿拦截器数组向下传递。
+ * </p>
+ * @author GaoZiYang
+ * @since 2021年11月27日 16:05:33
+ */
+final class JdkDynamicAopProxy implements InvocationHandler {
+    /**
+     * 空参数
+     */
+    private static final Object[] NO_ARGS = new Object[0];
+
+    /**
+     * 目标对象
+     */
+    private final Object target;
+
+    /**
+     * 目标类的代理元数据
+     */
+    private final AdvisedClass advisedClass;
+
+    JdkDynamicAopProxy(Object target, AdvisedClass advisedClass) {
+        this.target = target;
+        this.advisedClass = advisedClass;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        Object[] arguments = args == null ? NO_ARGS : args;
+        AdvisedMethod advisedMethod = advisedClass.getAdvisedMethod(method);
+        if (advisedMethod == null) {
+            return invokeObjectMethod(proxy, method, arguments);
+        }
+        if (!advisedMethod.isAdvised()) {
+            return advisedMethod.invokeTarget(target, arguments);
+        }
+        return new MethodInvocation(proxy, target, advisedMethod, arguments).proceed();
+    }
+
+    /**
+     * 调用 {@link Object} 中的equals、hashCode和toString方法，两个代理的目标对象相等时代理也相等
+     * @param proxy 代理对象
+     * @param method 方法
+     * @param args 方法参数
+     * @return 方法返回值
+     */
+    private Object invokeObjectMethod(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "equals":
+                Object other = args[0];
+                if (other == proxy) {
+                    return true;
+                }
+                if (other != null && Proxy.isProxyClass(other.getClass())
+                        && Proxy.getInvocationHandler(other) instanceof JdkDynamicAopProxy) {
+                    other = ((JdkDynamicAopProxy) Proxy.getInvocationHandler(other)).target;
+                }
+                return target.equals(other);
+            case "hashCode":
+                return target.hashCode();
+            case "toString":
+                return target.toString();
+            default:
+                throw new IllegalStateException("无法调用方法：" + method);
+        }
+    }
+}
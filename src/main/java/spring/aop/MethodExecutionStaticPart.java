@@ -0,0 +1,217 @@
+package spring.aop;
+
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.Signature;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.aspectj.lang.reflect.SourceLocation;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Parameter;
+
+/**
+ * 方法执行连接点的静态部分，每个被代理的方法在创建代理时构建一次，所有调用共享
+ * @author GaoZiYang
+ * @since 2021年11月27日 14:26:40
+ */
+final class MethodExecutionStaticPart implements JoinPoint.StaticPart {
+    /**
+     * 方法签名
+     */
+    private final MethodExecutionSignature signature;
+
+    /**
+     * 源码位置，所在类型为目标类
+     */
+    private final MethodExecutionSourceLocation sourceLocation;
+
+    /**
+     * 连接点编号，在同一个目标类中唯一
+     */
+    private final int id;
+
+    /**
+     * @param method 目标类中的实现方法
+     * @param targetClass 目标类
+     * @param id 连接点编号，在同一个目标类中唯一
+     */
+    MethodExecutionStaticPart(Method method, Class<?> targetClass, int id) {
+        this.signature = new MethodExecutionSignature(method);
+        this.sourceLocation = new MethodExecutionSourceLocation(targetClass);
+        this.id = id;
+    }
+
+    @Override
+    public Signature getSignature() {
+        return signature;
+    }
+
+    @Override
+    public SourceLocation getSourceLocation() {
+        return sourceLocation;
+    }
+
+    @Override
+    public String getKind() {
+        return JoinPoint.METHOD_EXECUTION;
+    }
+
+    @Override
+    public int getId() {
+        return id;
+    }
+
+    @Override
+    public String toShortString() {
+        return "execution(" + signature.toShortString() + ")";
+    }
+
+    @Override
+    public String toLongString() {
+        return "execution(" + signature.toLongString() + ")";
+    }
+
+    @Override
+    public String toString() {
+        return "execution(" + signature.toString() + ")";
+    }
+
+    /**
+     * 源码位置，运行时只知道连接点所在的目标类，没有源文件和行号信息
+     */
+    static final class MethodExecutionSourceLocation implements SourceLocation {
+        /**
+         * 目标类
+         */
+        private final Class<?> withinType;
+
+        MethodExecutionSourceLocation(Class<?> withinType) {
+            this.withinType = withinType;
+        }
+
+        @Override
+        @SuppressWarnings("rawtypes")
+        public Class getWithinType() {
+            return withinType;
+        }
+
+        @Override
+        public String getFileName() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int getLine() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        @SuppressWarnings("deprecation")
+        public int getColumn() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * 方法签名，{@link #getMethod()} 返回目标类中的实现方法，可以直接读取实现方法上的注解
+     */
+    static final class MethodExecutionSignature implements MethodSignature {
+        /**
+         * 目标类中的实现方法
+         */
+        private final Method method;
+
+        /**
+         * 参数名称，编译时没有保留参数名称则为null
+         */
+        private final String[] parameterNames;
+
+        MethodExecutionSignature(Method method) {
+            this.method = method;
+            Parameter[] parameters = method.getParameters();
+            String[] names = new String[parameters.length];
+            for (int i = 0; i < parameters.length; i++) {
+                if (!parameters[i].isNamePresent()) {
+                    names = null;
+                    break;
+                }
+                names[i] = parameters[i].getName();
+            }
+            this.parameterNames = names;
+        }
+
+        @Override
+        public Method getMethod() {
+            return method;
+        }
+
+        @Override
+        @SuppressWarnings("rawtypes")
+        public Class getReturnType() {
+            return method.getReturnType();
+        }
+
+        @Override
+        @SuppressWarnings("rawtypes")
+        public Class[] getParameterTypes() {
+            return method.getParameterTypes();
+        }
+
+        @Override
+        public String[] getParameterNames() {
+            return parameterNames == null ? null : parameterNames.clone();
+        }
+
+        @Override
+        @SuppressWarnings("rawtypes")
+        public Class[] getExceptionTypes() {
+            return method.getExceptionTypes();
+        }
+
+        @Override
+        public String getName() {
+            return method.getName();
+        }
+
+        @Override
+        public int getModifiers() {
+            return method.getModifiers();
+        }
+
+        @Override
+        @SuppressWarnings("rawtypes")
+        public Class getDeclaringType() {
+            return method.getDeclaringClass();
+        }
+
+        @Override
+        public String getDeclaringTypeName() {
+            return method.getDeclaringClass().getName();
+        }
+
+        @Override
+        public String toShortString() {
+            return method.getDeclaringClass().getSimpleName() + "." + method.getName() + "(..)";
+        }
+
+        @Override
+        public String toLongString() {
+            return Modifier.toString(method.getModifiers()) + " " + toString();
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder();
+            builder.append(method.getReturnType().getSimpleName()).append(' ')
+                    .append(method.getDeclaringClass().getName()).append('.').append(method.getName()).append('(');
+            Class<?>[] parameterTypes = method.getParameterTypes();
+            for (int i = 0; i < parameterTypes.length; i++) {
+                if (i > 0) {
+                    builder.append(", ");
+                }
+                builder.append(parameterTypes[i].getSimpleName());
+            }
+            return builder.append(')').toString();
+        }
+    }
+}
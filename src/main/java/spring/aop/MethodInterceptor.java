@@ -0,0 +1,16 @@
+package spring.aop;
+
+/**
+ * 方法拦截器，每个通知都会被编译成一个拦截器，按顺序组成拦截器数组
+ * @author GaoZiYang
+ * @since 2021年11月27日 14:20:13
+ */
+interface MethodInterceptor {
+    /**
+     * 拦截方法调用，通过 {@link MethodInvocation#proceed()} 调用下一个拦截器或目标方法
+     * @param invocation 方法调用
+     * @return 方法返回值
+     * @throws Throwable 通知或目标方法抛出的异常
+     */
+    Object invoke(MethodInvocation invocation) throws Throwable;
+}
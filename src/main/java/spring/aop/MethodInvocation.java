@@ -0,0 +1,130 @@
+package spring.aop;
+
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.Signature;
+import org.aspectj.lang.reflect.SourceLocation;
+import org.aspectj.runtime.internal.AroundClosure;
+
+/**
+ * 一次代理方法调用，沿着预先编译好的拦截器数组向下传递，最后调用目标方法
+ * <p>
+ *     该对象同时作为传给通知方法的 {@link JoinPoint} 和 {@link ProceedingJoinPoint}，每次调用只创建这一个对象。
+ *     环绕通知可以多次调用 {@link #proceed()}（例如重试），每次都会从下一个拦截器重新开始。
+ *     该对象只在本次调用期间有效，不能在通知方法返回后继续使用，也不能跨线程使用。
+ * </p>
+ * @author GaoZiYang
+ * @since 2021年11月27日 14:44:51
+ */
+final class MethodInvocation implements ProceedingJoinPoint {
+    /**
+     * 代理对象
+     */
+    private final Object proxy;
+
+    /**
+     * 目标对象
+     */
+    private final Object target;
+
+    /**
+     * 被代理的方法
+     */
+    private final AdvisedMethod advisedMethod;
+
+    /**
+     * 方法参数
+     */
+    private Object[] args;
+
+    /**
+     * 下一个要调用的拦截器下标
+     */
+    private int index;
+
+    MethodInvocation(Object proxy, Object target, AdvisedMethod advisedMethod, Object[] args) {
+        this.proxy = proxy;
+        this.target = target;
+        this.advisedMethod = advisedMethod;
+        this.args = args;
+    }
+
+    @Override
+    public Object proceed() throws Throwable {
+        MethodInterceptor[] interceptors = advisedMethod.getInterceptors();
+        int current = index;
+        if (current == interceptors.length) {
+            return advisedMethod.invokeTarget(target, args);
+        }
+        index = current + 1;
+        try {
+            return interceptors[current].invoke(this);
+        } finally {
+            index = current;
+        }
+    }
+
+    @Override
+    public Object proceed(Object[] arguments) throws Throwable {
+        if (arguments == null || arguments.length != args.length) {
+            throw new IllegalArgumentException("参数个数不匹配，需要 " + args.length + " 个参数！");
+        }
+        args = arguments.clone();
+        return proceed();
+    }
+
+    @Override
+    public void set$AroundClosure(AroundClosure arc) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Object getThis() {
+        return proxy;
+    }
+
+    @Override
+    public Object getTarget() {
+        return target;
+    }
+
+    @Override
+    public Object[] getArgs() {
+        return args.clone();
+    }
+
+    @Override
+    public Signature getSignature() {
+        return advisedMethod.getStaticPart().getSignature();
+    }
+
+    @Override
+    public SourceLocation getSourceLocation() {
+        return advisedMethod.getStaticPart().getSourceLocation();
+    }
+
+    @Override
+    public String getKind() {
+        return JoinPoint.METHOD_EXECUTION;
+    }
+
+    @Override
+    public StaticPart getStaticPart() {
+        return advisedMethod.getStaticPart();
+    }
+
+    @Override
+    public String toShortString() {
+        return advisedMethod.getStaticPart().toShortString();
+    }
+
+    @Override
+    public String toLongString() {
+        return advisedMethod.getStaticPart().toLongString();
+    }
+
+    @Override
+    public String toString() {
+        return advisedMethod.getStaticPart().toString();
+    }
+}
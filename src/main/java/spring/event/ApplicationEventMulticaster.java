@@ -0,0 +1,413 @@
+package spring.event;
+
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * 事件分发器
+ * <p>
+ *     分发器维护一个“事件类型 -> 监听器数组”的索引，发布事件时只需要一次查表即可得到需要通知的监听器，不再逐个判断监听器的类型。
+ *     索引是不可变的，注册监听器时复制出新的索引并重新计算其中已有的事件类型，发布事件时无锁读取；
+ *     第一次发布某个事件类型时计算对应的数组，并通过CAS加入索引。
+ * </p>
+ * <p>
+ *     同步模式下监听器在发布事件的线程中依次调用，监听器的异常直接抛给发布者。异步模式下事件先进入队列，
+ *     由执行器中的单个任务每次最多处理 {@link #batchSize} 个事件，处理完一批后如果队列中还有事件则重新提交任务，
+ *     因此事件按照发布顺序分发，且同一时刻只有一个线程在调用监听器；异步分发时监听器的异常会被打印并跳过。
+ * </p>
+ * @author GaoZiYang
+ * @since 2021年11月29日 15:34:09
+ */
+public class ApplicationEventMulticaster {
+    /**
+     * 默认每批处理的事件数
+     */
+    public static final int DEFAULT_BATCH_SIZE = 64;
+
+    /**
+     * 根据名称获取监听器Spring Bean实例
+     */
+    private final Function<String, Object> beanResolver;
+
+    /**
+     * 当前的监听器及索引
+     */
+    private final AtomicReference<ListenerIndex> index = new AtomicReference<>(ListenerIndex.EMPTY);
+
+    /**
+     * 是否异步分发事件
+     */
+    private volatile boolean async = false;
+
+    /**
+     * 异步分发事件的执行器
+     */
+    private volatile Executor executor = ForkJoinPool.commonPool();
+
+    /**
+     * 异步分发时每批处理的事件数
+     */
+    private volatile int batchSize = DEFAULT_BATCH_SIZE;
+
+    /**
+     * 等待异步分发的事件
+     */
+    private final Queue<Object> pendingEvents = new ConcurrentLinkedQueue<>();
+
+    /**
+     * 是否已经提交了分发任务
+     */
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    /**
+     * @param beanResolver 根据名称获取监听器Spring Bean实例
+     */
+    public ApplicationEventMulticaster(Function<String, Object> beanResolver) {
+        this.beanResolver = Objects.requireNonNull(beanResolver, "Spring Bean解析器不能为空！");
+    }
+
+    /**
+     * 注册监听器实例，事件类型由监听器的泛型参数决定，无法确定时（例如Lambda表达式）监听所有事件
+     * @param listener 监听器
+     */
+    public void addApplicationListener(ApplicationListener<?> listener) {
+        Objects.requireNonNull(listener, "监听器不能为空！");
+        addListener(new Listener(resolveEventType(listener.getClass()), null, false, listener));
+    }
+
+    /**
+     * 注册只监听指定事件类型的监听器实例
+     * @param eventType 事件类型
+     * @param listener 监听器
+     * @param <E> 事件类型
+     */
+    public <E> void addApplicationListener(Class<E> eventType, ApplicationListener<? super E> listener) {
+        Objects.requireNonNull(eventType, "事件类型不能为空！");
+        Objects.requireNonNull(listener, "监听器不能为空！");
+        addListener(new Listener(eventType, null, false, listener));
+    }
+
+    /**
+     * 注册监听器Spring Bean，实例在第一次分发事件时获取，单例的实例之后会被缓存
+     * @param beanName Spring Bean名称
+     * @param beanClass Spring Bean类型，必须实现 {@link ApplicationListener}
+     * @param singleton 是否为单例
+     */
+    public void addApplicationListenerBean(String beanName, Class<?> beanClass, boolean singleton) {
+        Objects.requireNonNull(beanName, "Spring Bean名称不能为空！");
+        if (!ApplicationListener.class.isAssignableFrom(beanClass)) {
+            throw new IllegalArgumentException(beanClass.getName() + " 没有实现 " + ApplicationListener.class.getName() + "！");
+        }
+        addListener(new Listener(resolveEventType(beanClass), beanName, singleton, null));
+    }
+
+    /**
+     * 移除监听器Spring Bean
+     * @param beanName Spring Bean名称
+     */
+    public void removeApplicationListenerBean(String beanName) {
+        ListenerIndex current;
+        ListenerIndex updated;
+        do {
+            current = index.get();
+            List<Listener> listeners = new ArrayList<>(current.listeners.length);
+            for (Listener listener : current.listeners) {
+                if (!beanName.equals(listener.beanName)) {
+                    listeners.add(listener);
+                }
+            }
+            if (listeners.size() == current.listeners.length) {
+                return;
+            }
+            updated = current.withListeners(listeners.toArray(new Listener[0]));
+        } while (!index.compareAndSet(current, updated));
+    }
+
+    /**
+     * 发布事件，根据当前模式同步或异步分发
+     * @param event 事件
+     */
+    public void multicastEvent(Object event) {
+        Objects.requireNonNull(event, "事件不能为空！");
+        if (!async) {
+            dispatch(event);
+            return;
+        }
+        pendingEvents.offer(event);
+        scheduleDrain();
+    }
+
+    /**
+     * 获取会收到某个类型事件的监听器数组，数组不能被修改
+     * @param eventType 事件类型
+     * @return 监听器数组
+     */
+    private Listener[] getListeners(Class<?> eventType) {
+        while (true) {
+            ListenerIndex current = index.get();
+            Listener[] listeners = current.cache.get(eventType);
+            if (listeners != null) {
+                return listeners;
+            }
+            listeners = current.match(eventType);
+            if (index.compareAndSet(current, current.withCache(eventType, listeners))) {
+                return listeners;
+            }
+        }
+    }
+
+    /**
+     * 在当前线程中将事件分发给所有匹配的监听器
+     * @param event 事件
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void dispatch(Object event) {
+        for (Listener listener : getListeners(event.getClass())) {
+            ((ApplicationListener) listener.resolve(beanResolver)).onApplicationEvent(event);
+        }
+    }
+
+    /**
+     * 如果还没有分发任务，则向执行器提交一个
+     */
+    private void scheduleDrain() {
+        if (!draining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            draining.set(false);
+            throw new IllegalStateException("事件分发任务被执行器拒绝！", e);
+        }
+    }
+
+    /**
+     * 分发一批事件，队列中还有事件时重新提交任务
+     */
+    private void drain() {
+        try {
+            int size = batchSize;
+            Object event;
+            for (int i = 0; i < size && (event = pendingEvents.poll()) != null; i++) {
+                try {
+                    dispatch(event);
+                } catch (Throwable e) {
+                    e.printStackTrace();
+                }
+            }
+        } finally {
+            draining.set(false);
+        }
+        if (!pendingEvents.isEmpty()) {
+            scheduleDrain();
+        }
+    }
+
+    private void addListener(Listener listener) {
+        ListenerIndex current;
+        ListenerIndex updated;
+        do {
+            current = index.get();
+            Listener[] listeners = new Listener[current.listeners.length + 1];
+            System.arraycopy(current.listeners, 0, listeners, 0, current.listeners.length);
+            listeners[current.listeners.length] = listener;
+            updated = current.withListeners(listeners);
+        } while (!index.compareAndSet(current, updated));
+    }
+
+    /**
+     * 根据监听器类实现的 {@link ApplicationListener} 泛型参数确定事件类型，泛型参数为父类中声明的类型变量时沿继承链解析
+     * @param listenerClass 监听器类
+     * @return 事件类型，无法确定时返回 {@link Object}
+     */
+    static Class<?> resolveEventType(Class<?> listenerClass) {
+        Type eventType = findEventType(listenerClass, Collections.emptyMap());
+        if (eventType instanceof ParameterizedType) {
+            eventType = ((ParameterizedType) eventType).getRawType();
+        }
+        return eventType instanceof Class ? (Class<?>) eventType : Object.class;
+    }
+
+    /**
+     * @param type 当前类或接口
+     * @param bindings 当前类型的类型变量在子类中绑定的实际类型
+     * @return ApplicationListener的泛型参数，没有实现时返回null
+     */
+    private static Type findEventType(Class<?> type, Map<TypeVariable<?>, Type> bindings) {
+        if (type == null || type == Object.class) {
+            return null;
+        }
+        List<Type> supertypes = new ArrayList<>();
+        Collections.addAll(supertypes, type.getGenericInterfaces());
+        if (type.getGenericSuperclass() != null) {
+            supertypes.add(type.getGenericSuperclass());
+        }
+        for (Type supertype : supertypes) {
+            Class<?> rawType;
+            Map<TypeVariable<?>, Type> supertypeBindings = Collections.emptyMap();
+            if (supertype instanceof ParameterizedType) {
+                ParameterizedType parameterizedType = (ParameterizedType) supertype;
+                rawType = (Class<?>) parameterizedType.getRawType();
+                Type[] arguments = parameterizedType.getActualTypeArguments();
+                TypeVariable<?>[] parameters = rawType.getTypeParameters();
+                supertypeBindings = new HashMap<>();
+                for (int i = 0; i < parameters.length; i++) {
+                    Type argument = arguments[i];
+                    supertypeBindings.put(parameters[i], bindings.containsKey(argument) ? bindings.get(argument) : argument);
+                }
+                if (rawType == ApplicationListener.class) {
+                    return supertypeBindings.get(parameters[0]);
+                }
+            } else {
+                rawType = (Class<?>) supertype;
+                if (rawType == ApplicationListener.class) {
+                    return Object.class;
+                }
+            }
+            if (ApplicationListener.class.isAssignableFrom(rawType)) {
+                return findEventType(rawType, supertypeBindings);
+            }
+        }
+        return null;
+    }
+
+    public boolean isAsync() {
+        return async;
+    }
+
+    public void setAsync(boolean async) {
+        this.async = async;
+    }
+
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    public void setExecutor(Executor executor) {
+        this.executor = Objects.requireNonNull(executor, "执行器不能为空！");
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("每批处理的事件数必须大于0！");
+        }
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * 已注册的监听器，监听器实例或监听器Spring Bean
+     */
+    private static final class Listener {
+        private final Class<?> eventType;
+        private final String beanName;
+        private final boolean singleton;
+        private volatile Object instance;
+
+        Listener(Class<?> eventType, String beanName, boolean singleton, Object instance) {
+            this.eventType = eventType;
+            this.beanName = beanName;
+            this.singleton = singleton;
+            this.instance = instance;
+        }
+
+        /**
+         * 获取监听器实例，单例Spring Bean只会获取一次
+         * @param beanResolver 根据名称获取Spring Bean实例
+         * @return 监听器实例
+         */
+        Object resolve(Function<String, Object> beanResolver) {
+            Object listener = instance;
+            if (listener != null) {
+                return listener;
+            }
+            listener = beanResolver.apply(beanName);
+            if (singleton) {
+                instance = listener;
+            }
+            return listener;
+        }
+    }
+
+    /**
+     * 不可变的监听器集合及“事件类型 -> 监听器数组”的索引
+     */
+    private static final class ListenerIndex {
+        static final ListenerIndex EMPTY = new ListenerIndex(new Listener[0], Collections.emptyMap());
+
+        /**
+         * 按注册顺序排列的监听器
+         */
+        private final Listener[] listeners;
+
+        /**
+         * 已经计算过的事件类型
+         */
+        private final Map<Class<?>, Listener[]> cache;
+
+        private ListenerIndex(Listener[] listeners, Map<Class<?>, Listener[]> cache) {
+            this.listeners = listeners;
+            this.cache = cache;
+        }
+
+        /**
+         * 计算会收到某个类型事件的监听器
+         * @param eventType 事件类型
+         * @return 监听器数组
+         */
+        Listener[] match(Class<?> eventType) {
+            List<Listener> matched = new ArrayList<>();
+            for (Listener listener : listeners) {
+                if (listener.eventType.isAssignableFrom(eventType)) {
+                    matched.add(listener);
+                }
+            }
+            return matched.toArray(new Listener[0]);
+        }
+
+        /**
+         * 复制出加入了新的事件类型的索引
+         */
+        ListenerIndex withCache(Class<?> eventType, Listener[] matched) {
+            Map<Class<?>, Listener[]> newCache = new HashMap<>(cache);
+            newCache.put(eventType, matched);
+            return new ListenerIndex(listeners, newCache);
+        }
+
+        /**
+         * 复制出使用新的监听器集合的索引，已经计算过的事件类型以及新监听器声明的事件类型都会重新计算
+         */
+        ListenerIndex withListeners(Listener[] newListeners) {
+            ListenerIndex updated = new ListenerIndex(newListeners, null);
+            Map<Class<?>, Listener[]> newCache = new HashMap<>();
+            for (Class<?> eventType : cache.keySet()) {
+                newCache.put(eventType, updated.match(eventType));
+            }
+            for (Listener listener : newListeners) {
+                if (!newCache.containsKey(listener.eventType)) {
+                    newCache.put(listener.eventType, updated.match(listener.eventType));
+                }
+            }
+            return new ListenerIndex(newListeners, newCache);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package spring.event;
+
+/**
+ * 事件监听器
+ * <p>
+ *     监听的事件类型由泛型参数决定，只有该类型（及其子类型）的事件会被分发给监听器。
+ *     实现了该接口的Spring Bean会在注册BeanDefinition时自动注册为监听器。
+ * </p>
+ * @param <E> 事件类型
+ * @author GaoZiYang
+ * @since 2021年11月29日 15:20:44
+ */
+@FunctionalInterface
+public interface ApplicationListener<E> {
+    /**
+     * 处理事件
+     * @param event 事件
+     */
+    void onApplicationEvent(E event);
+}
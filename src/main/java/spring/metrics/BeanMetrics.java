@@ -0,0 +1,237 @@
+package spring.metrics;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Spring应用上下文的运行时指标
+ * <p>
+ *     记录每个Spring Bean及每个作用域的获取与创建次数，<b>getBean</b>、<b>createBean</b>、<b>populateBean</b> 以及每个后置处理器调用的耗时直方图，
+ *     以及三级缓存的命中与未命中次数。所有记录方法都是无锁的，指标可以随时通过各个get方法拉取。
+ * </p>
+ * <p>
+ *     开启JFR事件后，每次获取、创建Spring Bean以及调用后置处理器时还会提交对应的JFR事件（需要运行环境支持JFR）。
+ * </p>
+ * @author GaoZiYang
+ * @since 2021年11月24日 15:28:06
+ */
+public class BeanMetrics {
+    /**
+     * 后置处理器在初始化之前调用
+     */
+    public static final String BEFORE_INITIALIZATION = "before";
+    /**
+     * 后置处理器在初始化之后调用
+     */
+    public static final String AFTER_INITIALIZATION = "after";
+
+    /**
+     * 每个Spring Bean的获取次数
+     */
+    private final Map<String, LongAdder> getBeanCounts = new ConcurrentHashMap<>();
+    /**
+     * 每个Spring Bean的创建次数
+     */
+    private final Map<String, LongAdder> createBeanCounts = new ConcurrentHashMap<>();
+    /**
+     * 每个作用域的获取次数
+     */
+    private final Map<String, LongAdder> getBeanCountsByScope = new ConcurrentHashMap<>();
+    /**
+     * 每个作用域的创建次数
+     */
+    private final Map<String, LongAdder> createBeanCountsByScope = new ConcurrentHashMap<>();
+
+    /**
+     * getBean的耗时
+     */
+    private final LatencyHistogram getBeanLatency = new LatencyHistogram();
+    /**
+     * createBean的耗时
+     */
+    private final LatencyHistogram createBeanLatency = new LatencyHistogram();
+    /**
+     * populateBean的耗时
+     */
+    private final LatencyHistogram populateBeanLatency = new LatencyHistogram();
+    /**
+     * 每个后置处理器的调用耗时，key为“后置处理器类名#before”或“后置处理器类名#after”
+     */
+    private final Map<String, LatencyHistogram> beanPostProcessorLatencies = new ConcurrentHashMap<>();
+
+    /**
+     * 三级缓存的命中次数
+     */
+    private final Map<SingletonCache, LongAdder> cacheHits = new EnumMap<>(SingletonCache.class);
+    /**
+     * 三级缓存的未命中次数
+     */
+    private final Map<SingletonCache, LongAdder> cacheMisses = new EnumMap<>(SingletonCache.class);
+
+    /**
+     * 是否提交JFR事件
+     */
+    private final boolean jfrEventsEnabled;
+
+    public BeanMetrics() {
+        this(false);
+    }
+
+    /**
+     * @param jfrEventsEnabled 是否提交JFR事件
+     */
+    public BeanMetrics(boolean jfrEventsEnabled) {
+        if (jfrEventsEnabled && !JfrEvents.isAvailable()) {
+            throw new IllegalStateException("当前运行环境不支持JFR，或者构建中不包含JFR事件！");
+        }
+        this.jfrEventsEnabled = jfrEventsEnabled;
+        for (SingletonCache cache : SingletonCache.values()) {
+            cacheHits.put(cache, new LongAdder());
+            cacheMisses.put(cache, new LongAdder());
+        }
+    }
+
+    /**
+     * 记录一次getBean
+     * @param beanName Spring Bean名称
+     * @param scope 作用域，Spring Bean不存在时为null
+     * @param nanos 耗时（纳秒）
+     */
+    public void recordGetBean(String beanName, String scope, long nanos) {
+        counter(getBeanCounts, beanName).increment();
+        if (scope != null) {
+            counter(getBeanCountsByScope, scope).increment();
+        }
+        getBeanLatency.record(nanos);
+        if (jfrEventsEnabled) {
+            JfrEvents.commitGetBean(beanName, scope, nanos);
+        }
+    }
+
+    /**
+     * 记录一次createBean
+     * @param beanName Spring Bean名称
+     * @param scope 作用域
+     * @param nanos 耗时（纳秒）
+     */
+    public void recordCreateBean(String beanName, String scope, long nanos) {
+        counter(createBeanCounts, beanName).increment();
+        counter(createBeanCountsByScope, scope).increment();
+        createBeanLatency.record(nanos);
+        if (jfrEventsEnabled) {
+            JfrEvents.commitCreateBean(beanName, scope, nanos);
+        }
+    }
+
+    /**
+     * 记录一次populateBean
+     * @param nanos 耗时（纳秒）
+     */
+    public void recordPopulateBean(long nanos) {
+        populateBeanLatency.record(nanos);
+    }
+
+    /**
+     * 记录一次后置处理器调用
+     * @param beanName Spring Bean名称
+     * @param processorClass 后置处理器的类型
+     * @param phase 调用阶段，{@link #BEFORE_INITIALIZATION} 或 {@link #AFTER_INITIALIZATION}
+     * @param nanos 耗时（纳秒）
+     */
+    public void recordBeanPostProcessor(String beanName, Class<?> processorClass, String phase, long nanos) {
+        String key = processorClass.getName() + "#" + phase;
+        LatencyHistogram histogram = beanPostProcessorLatencies.get(key);
+        if (histogram == null) {
+            histogram = beanPostProcessorLatencies.computeIfAbsent(key, k -> new LatencyHistogram());
+        }
+        histogram.record(nanos);
+        if (jfrEventsEnabled) {
+            JfrEvents.commitBeanPostProcessor(beanName, processorClass.getName(), phase, nanos);
+        }
+    }
+
+    /**
+     * 记录一次缓存查询
+     * @param cache 缓存
+     * @param hit 是否命中
+     */
+    public void recordCacheAccess(SingletonCache cache, boolean hit) {
+        (hit ? cacheHits : cacheMisses).get(cache).increment();
+    }
+
+    public long getGetBeanCount(String beanName) {
+        return sum(getBeanCounts.get(beanName));
+    }
+
+    public long getCreateBeanCount(String beanName) {
+        return sum(createBeanCounts.get(beanName));
+    }
+
+    public Map<String, Long> getGetBeanCounts() {
+        return snapshot(getBeanCounts);
+    }
+
+    public Map<String, Long> getCreateBeanCounts() {
+        return snapshot(createBeanCounts);
+    }
+
+    public Map<String, Long> getGetBeanCountsByScope() {
+        return snapshot(getBeanCountsByScope);
+    }
+
+    public Map<String, Long> getCreateBeanCountsByScope() {
+        return snapshot(createBeanCountsByScope);
+    }
+
+    public LatencyHistogram getGetBeanLatency() {
+        return getBeanLatency;
+    }
+
+    public LatencyHistogram getCreateBeanLatency() {
+        return createBeanLatency;
+    }
+
+    public LatencyHistogram getPopulateBeanLatency() {
+        return populateBeanLatency;
+    }
+
+    public Map<String, LatencyHistogram> getBeanPostProcessorLatencies() {
+        return Collections.unmodifiableMap(new TreeMap<>(beanPostProcessorLatencies));
+    }
+
+    public long getCacheHits(SingletonCache cache) {
+        return cacheHits.get(cache).sum();
+    }
+
+    public long getCacheMisses(SingletonCache cache) {
+        return cacheMisses.get(cache).sum();
+    }
+
+    public boolean isJfrEventsEnabled() {
+        return jfrEventsEnabled;
+    }
+
+    private static LongAdder counter(Map<String, LongAdder> counters, String key) {
+        LongAdder counter = counters.get(key);
+        if (counter == null) {
+            counter = counters.computeIfAbsent(key, k -> new LongAdder());
+        }
+        return counter;
+    }
+
+    private static long sum(LongAdder counter) {
+        return counter == null ? 0 : counter.sum();
+    }
+
+    private static Map<String, Long> snapshot(Map<String, LongAdder> counters) {
+        Map<String, Long> result = new TreeMap<>();
+        for (Map.Entry<String, LongAdder> entry : counters.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().sum());
+        }
+        return Collections.unmodifiableMap(result);
+    }
+}
@@ -0,0 +1,15 @@
+package spring.metrics;
+
+/**
+ * JFR事件的提交接口
+ * <br/>实现类及JFR事件位于单独编译的 <b>src/main/jfr</b> 目录中，只有在支持JFR的JDK上构建时才会被编译，运行时通过反射加载。
+ * @author GaoZiYang
+ * @since 2021年11月24日 16:10:21
+ */
+interface JfrEventSink {
+    void commitGetBean(String beanName, String scope, long elapsedNanos);
+
+    void commitCreateBean(String beanName, String scope, long elapsedNanos);
+
+    void commitBeanPostProcessor(String beanName, String processor, String phase, long elapsedNanos);
+}
@@ -0,0 +1,52 @@
+package spring.metrics;
+
+/**
+ * JFR事件的提交入口
+ * <br/>只有开启JFR事件后才会加载该类。JFR事件位于单独编译的 <b>src/main/jfr</b> 目录中，在这里通过反射加载，
+ * 因此项目本身可以在任何Java 8环境中编译，在没有JFR的运行环境（或不包含JFR事件的构建）中也不会因为缺少 <b>jdk.jfr</b> 而失败。
+ * @author GaoZiYang
+ * @since 2021年11月24日 16:12:55
+ */
+final class JfrEvents {
+    /**
+     * JFR事件提交实现的类名
+     */
+    private static final String SINK_CLASS_NAME = "spring.metrics.JdkJfrEventSink";
+
+    /**
+     * JFR事件提交实现，当前运行环境不支持JFR时为null
+     */
+    private static final JfrEventSink SINK = loadSink();
+
+    private JfrEvents() {}
+
+    private static JfrEventSink loadSink() {
+        try {
+            Class.forName("jdk.jfr.Event", false, JfrEvents.class.getClassLoader());
+            return (JfrEventSink) Class.forName(SINK_CLASS_NAME, true, JfrEvents.class.getClassLoader())
+                    .getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+    /**
+     * 判断当前运行环境是否支持JFR
+     * @return 如果支持JFR并且构建中包含JFR事件则返回true
+     */
+    static boolean isAvailable() {
+        return SINK != null;
+    }
+
+    static void commitGetBean(String beanName, String scope, long elapsedNanos) {
+        SINK.commitGetBean(beanName, scope, elapsedNanos);
+    }
+
+    static void commitCreateBean(String beanName, String scope, long elapsedNanos) {
+        SINK.commitCreateBean(beanName, scope, elapsedNanos);
+    }
+
+    static void commitBeanPostProcessor(String beanName, String processor, String phase, long elapsedNanos) {
+        SINK.commitBeanPostProcessor(beanName, processor, phase, elapsedNanos);
+    }
+}
@@ -0,0 +1,105 @@
+package spring.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 无锁的耗时直方图
+ * <p>
+ *     按照2的幂划分桶，第i个桶记录耗时在 [2<sup>i-1</sup>, 2<sup>i</sup>) 纳秒之间的次数，记录时只进行原子累加，不会分配对象。
+ *     百分位数返回所在桶的上界，因此是一个近似值。
+ * </p>
+ * @author GaoZiYang
+ * @since 2021年11月24日 15:12:30
+ */
+public class LatencyHistogram {
+    /**
+     * 桶的数量，足以覆盖long的全部取值
+     */
+    private static final int BUCKET_COUNT = 64;
+
+    /**
+     * 每个桶的计数
+     */
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+
+    /**
+     * 记录次数
+     */
+    private final LongAdder count = new LongAdder();
+
+    /**
+     * 耗时总和
+     */
+    private final LongAdder totalNanos = new LongAdder();
+
+    /**
+     * 最大耗时
+     */
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0L);
+
+    /**
+     * 记录一次耗时
+     * @param nanos 耗时（纳秒）
+     */
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        buckets.incrementAndGet(BUCKET_COUNT - Long.numberOfLeadingZeros(nanos));
+        count.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getTotalNanos() {
+        return totalNanos.sum();
+    }
+
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    /**
+     * 获取平均耗时
+     * @return 平均耗时（纳秒），没有记录时返回0
+     */
+    public double getMeanNanos() {
+        long n = getCount();
+        return n == 0 ? 0 : (double) getTotalNanos() / n;
+    }
+
+    /**
+     * 获取近似的百分位耗时
+     * @param percentile 百分位，取值范围为 (0, 100]
+     * @return 百分位所在桶的上界（纳秒），没有记录时返回0
+     */
+    public long getPercentileNanos(double percentile) {
+        if (percentile <= 0 || percentile > 100) {
+            throw new IllegalArgumentException("百分位的取值范围为 (0, 100]：" + percentile);
+        }
+        long[] snapshot = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            snapshot[i] = buckets.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long threshold = (long) Math.ceil(total * percentile / 100);
+        long accumulated = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            accumulated += snapshot[i];
+            if (accumulated >= threshold) {
+                return Math.min((1L << i) - 1, getMaxNanos());
+            }
+        }
+        return getMaxNanos();
+    }
+}
@@ -0,0 +1,21 @@
+package spring.metrics;
+
+/**
+ * 单例的三级缓存
+ * @author GaoZiYang
+ * @since 2021年11月24日 15:40:18
+ */
+public enum SingletonCache {
+    /**
+     * 单例池（一级缓存）
+     */
+    SINGLETON_OBJECTS,
+    /**
+     * 提前的单例池（二级缓存）
+     */
+    EARLY_SINGLETON_OBJECTS,
+    /**
+     * 对象工厂集合（三级缓存）
+     */
+    SINGLETON_FACTORIES
+}
@@ -0,0 +1,46 @@
+package spring.metrics;
+
+/**
+ * 容器刷新时每个Spring Bean经历的阶段
+ * @author GaoZiYang
+ * @since 2021年12月01日 14:05:33
+ */
+public enum StartupPhase {
+    /**
+     * 扫描：读取class文件并构建BeanDefinition
+     */
+    SCAN("scan"),
+    /**
+     * 实例化：调用构造方法
+     */
+    INSTANTIATE("instantiate"),
+    /**
+     * 注入：填充 {@link spring.annotation.Autowired} 字段，包括创建所依赖的Spring Bean
+     */
+    POPULATE("populate"),
+    /**
+     * 编织：调用 {@link spring.BeanNameAware} 等回调
+     */
+    AWARE("aware"),
+    /**
+     * 后置处理：初始化前后调用后置处理器
+     */
+    POST_PROCESS("post-process"),
+    /**
+     * 初始化：调用初始化方法
+     */
+    INIT("init");
+
+    /**
+     * 导出时使用的名称
+     */
+    private final String displayName;
+
+    StartupPhase(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+}
@@ -0,0 +1,611 @@
+package spring.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * 容器刷新的启动跟踪
+ * <p>
+ *     记录每次扫描以及每个Spring Bean在各个阶段（{@link StartupPhase}）的起止时间。Spring Bean的创建是递归的，
+ *     注入阶段会嵌套创建所依赖的单例，因此每个Spring Bean还会记录 <b>自身耗时</b>，即总耗时减去其中嵌套创建单例的耗时；
+ *     嵌套创建的原型实例不会被扣除，因为依赖图中原型实例的依赖同样归属于依赖它的单例。
+ * </p>
+ * <p>
+ *     刷新完成后根据 {@link spring.annotation.Autowired} 依赖图计算 <b>关键路径</b>：以单例的自身耗时为权重的最长依赖链，
+ *     即使所有互不依赖的单例都并行创建，启动时间也不会短于这条链的耗时，因此它上面的Spring Bean最值得改为延迟初始化或异步初始化。
+ * </p>
+ * <p>
+ *     跟踪结果可以导出为JSON、Graphviz的DOT以及Chrome Trace（可在 <code>chrome://tracing</code> 或 Perfetto 中打开）。
+ *     所有记录方法都是线程安全的，阶段记录在创建Spring Bean的线程中进行。
+ * </p>
+ * @author GaoZiYang
+ * @since 2021年12月01日 14:21:08
+ */
+public class StartupTrace {
+    /**
+     * 导出格式
+     */
+    public enum Format {
+        /**
+         * 包含每个Spring Bean各阶段耗时、依赖以及关键路径的JSON
+         */
+        JSON,
+        /**
+         * Graphviz的依赖图，关键路径以红色标出
+         */
+        DOT,
+        /**
+         * Chrome Trace事件格式
+         */
+        CHROME_TRACE
+    }
+
+    /**
+     * 跟踪开始的时间，导出的时间都相对于该时间
+     */
+    private final long originNanos = System.nanoTime();
+
+    /**
+     * 扫描记录
+     */
+    private final Queue<ScanRecord> scans = new ConcurrentLinkedQueue<>();
+
+    /**
+     * 每个Spring Bean扫描阶段的起止时间
+     */
+    private final Map<String, long[]> beanScans = new ConcurrentHashMap<>();
+
+    /**
+     * 按完成顺序排列的创建记录
+     */
+    private final Queue<BeanRecord> beans = new ConcurrentLinkedQueue<>();
+
+    /**
+     * 当前线程正在创建的Spring Bean
+     */
+    private final ThreadLocal<Deque<BeanRecord>> creating = ThreadLocal.withInitial(ArrayDeque::new);
+
+    /**
+     * 单例之间的依赖关系，刷新完成后设置
+     */
+    private volatile Map<String, Set<String>> dependencies;
+
+    /**
+     * 刷新完成的时间
+     */
+    private volatile long completedNanos;
+
+    /**
+     * 关键路径，刷新完成后计算
+     */
+    private volatile List<String> criticalPath = Collections.emptyList();
+
+    /**
+     * 记录一次扫描
+     * @param basePackages 扫描路径
+     * @param startNanos 开始时间（{@link System#nanoTime()}）
+     * @param endNanos 结束时间
+     */
+    public void recordScan(String[] basePackages, long startNanos, long endNanos) {
+        scans.add(new ScanRecord(basePackages.clone(), startNanos, endNanos));
+    }
+
+    /**
+     * 记录某个Spring Bean的扫描阶段
+     * @param beanName Spring Bean名称
+     * @param startNanos 开始时间
+     * @param endNanos 结束时间
+     */
+    public void recordBeanScan(String beanName, long startNanos, long endNanos) {
+        beanScans.put(beanName, new long[] {startNanos, endNanos});
+    }
+
+    /**
+     * 开始创建Spring Bean，必须与 {@link #beanFinished()} 成对调用
+     * @param beanName Spring Bean名称
+     * @param className Spring Bean类名
+     * @param singleton 是否为单例
+     */
+    public void beanStarted(String beanName, String className, boolean singleton) {
+        Deque<BeanRecord> stack = creating.get();
+        stack.push(new BeanRecord(beanName, className, singleton, Thread.currentThread(), stack.peek(), System.nanoTime()));
+    }
+
+    /**
+     * 记录当前线程正在创建的Spring Bean的某个阶段，结束时间为当前时间
+     * @param phase 阶段
+     * @param startNanos 开始时间
+     * @return 结束时间，可以作为下一个阶段的开始时间
+     */
+    public long recordPhase(StartupPhase phase, long startNanos) {
+        long endNanos = System.nanoTime();
+        BeanRecord record = creating.get().peek();
+        if (record != null) {
+            record.phases.add(new PhaseRecord(phase, startNanos, endNanos));
+        }
+        return endNanos;
+    }
+
+    /**
+     * 结束创建当前线程正在创建的Spring Bean
+     */
+    public void beanFinished() {
+        Deque<BeanRecord> stack = creating.get();
+        BeanRecord record = stack.pop();
+        record.endNanos = System.nanoTime();
+        if (record.parent != null && record.singleton) {
+            record.parent.nestedSingletonNanos += record.endNanos - record.startNanos;
+        }
+        if (stack.isEmpty()) {
+            creating.remove();
+        }
+        beans.add(record);
+    }
+
+    /**
+     * 结束跟踪并计算关键路径
+     * @param dependencies 单例之间的依赖关系，key为Spring Bean名称，value为其依赖的单例名称
+     */
+    public void complete(Map<String, Set<String>> dependencies) {
+        this.dependencies = dependencies;
+        this.completedNanos = System.nanoTime();
+        this.criticalPath = computeCriticalPath();
+    }
+
+    /**
+     * 获取关键路径
+     * @return 从最先创建的依赖到最终依赖方的Spring Bean名称，刷新完成前为空
+     */
+    public List<String> getCriticalPath() {
+        return criticalPath;
+    }
+
+    /**
+     * 获取关键路径上所有单例的自身耗时之和，即并行创建时启动时间的下限
+     * @return 耗时（纳秒）
+     */
+    public long getCriticalPathNanos() {
+        Map<String, BeanRecord> singletons = singletonRecords();
+        long nanos = 0;
+        for (String beanName : criticalPath) {
+            nanos += singletons.get(beanName).selfNanos();
+        }
+        return nanos;
+    }
+
+    /**
+     * 获取某个单例创建时的自身耗时
+     * @param beanName Spring Bean名称
+     * @return 耗时（纳秒），没有创建记录时返回0
+     */
+    public long getSelfNanos(String beanName) {
+        BeanRecord record = singletonRecords().get(beanName);
+        return record == null ? 0 : record.selfNanos();
+    }
+
+    /**
+     * 获取从开始跟踪到刷新完成的总耗时
+     * @return 耗时（纳秒），刷新完成前返回到当前为止的耗时
+     */
+    public long getTotalNanos() {
+        long end = completedNanos;
+        return (end == 0 ? System.nanoTime() : end) - originNanos;
+    }
+
+    /**
+     * 按照指定格式导出
+     * @param format 导出格式
+     * @return 导出的内容
+     */
+    public String export(Format format) {
+        switch (format) {
+            case DOT:
+                return toDot();
+            case CHROME_TRACE:
+                return toChromeTrace();
+            default:
+                return toJson();
+        }
+    }
+
+    /**
+     * 按照指定格式导出到文件
+     * @param path 文件路径
+     * @param format 导出格式
+     * @throws IOException 写入失败时抛出
+     */
+    public void write(Path path, Format format) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            writer.write(export(format));
+        }
+    }
+
+    /**
+     * 以每个单例的第一次创建记录为准，原型实例不在依赖图中
+     * @return 单例的创建记录，key为Spring Bean名称
+     */
+    private Map<String, BeanRecord> singletonRecords() {
+        Map<String, BeanRecord> records = new TreeMap<>();
+        for (BeanRecord record : beans) {
+            if (record.singleton) {
+                records.putIfAbsent(record.beanName, record);
+            }
+        }
+        return records;
+    }
+
+    /**
+     * 以单例的自身耗时为权重计算依赖图中的最长路径，循环依赖中的回边会被忽略
+     * @return 关键路径
+     */
+    private List<String> computeCriticalPath() {
+        Map<String, BeanRecord> singletons = singletonRecords();
+        Map<String, Long> longest = new HashMap<>();
+        Map<String, String> next = new HashMap<>();
+        Set<String> visiting = new HashSet<>();
+        String start = null;
+        long startNanos = -1;
+        for (String beanName : singletons.keySet()) {
+            long nanos = longestPath(beanName, singletons, longest, next, visiting);
+            if (nanos > startNanos) {
+                start = beanName;
+                startNanos = nanos;
+            }
+        }
+        // 路径按照“依赖方 -> 依赖”求得，反转为创建顺序
+        List<String> path = new ArrayList<>();
+        Set<String> visited = new HashSet<>();
+        for (String beanName = start; beanName != null && visited.add(beanName); beanName = next.get(beanName)) {
+            path.add(beanName);
+        }
+        Collections.reverse(path);
+        return Collections.unmodifiableList(path);
+    }
+
+    private long longestPath(String beanName, Map<String, BeanRecord> singletons, Map<String, Long> longest,
+                             Map<String, String> next, Set<String> visiting) {
+        Long cached = longest.get(beanName);
+        if (cached != null) {
+            return cached;
+        }
+        BeanRecord record = singletons.get(beanName);
+        if (record == null || !visiting.add(beanName)) {
+            return 0;
+        }
+        long best = 0;
+        for (String dependency : dependencies.getOrDefault(beanName, Collections.emptySet())) {
+            if (!singletons.containsKey(dependency) || visiting.contains(dependency)) {
+                continue;
+            }
+            long nanos = longestPath(dependency, singletons, longest, next, visiting);
+            if (!next.containsKey(beanName) || nanos > best) {
+                best = nanos;
+                next.put(beanName, dependency);
+            }
+        }
+        visiting.remove(beanName);
+        long total = record.selfNanos() + best;
+        longest.put(beanName, total);
+        return total;
+    }
+
+    private String toJson() {
+        Map<String, BeanRecord> singletons = singletonRecords();
+        Set<String> critical = new HashSet<>(criticalPath);
+        StringBuilder json = new StringBuilder(4096);
+        json.append("{\n  \"totalNanos\": ").append(getTotalNanos());
+        json.append(",\n  \"criticalPath\": {\"durationNanos\": ").append(getCriticalPathNanos()).append(", \"beans\": ");
+        appendStringArray(json, criticalPath);
+        json.append("},\n  \"scans\": [");
+        String separator = "\n    ";
+        for (ScanRecord scan : scans) {
+            json.append(separator).append("{\"basePackages\": ");
+            appendStringArray(json, Arrays.asList(scan.basePackages));
+            json.append(", \"startNanos\": ").append(scan.startNanos - originNanos)
+                    .append(", \"durationNanos\": ").append(scan.endNanos - scan.startNanos).append('}');
+            separator = ",\n    ";
+        }
+        json.append("\n  ],\n  \"beans\": [");
+        separator = "\n    ";
+        for (BeanRecord record : beans) {
+            json.append(separator).append("{\"name\": ");
+            appendString(json, record.beanName);
+            json.append(", \"className\": ");
+            appendString(json, record.className);
+            json.append(", \"singleton\": ").append(record.singleton);
+            json.append(", \"thread\": ");
+            appendString(json, record.threadName);
+            json.append(", \"startNanos\": ").append(record.startNanos - originNanos);
+            json.append(", \"durationNanos\": ").append(record.endNanos - record.startNanos);
+            json.append(", \"selfNanos\": ").append(record.selfNanos());
+            json.append(", \"nestedSingletonNanos\": ").append(record.nestedSingletonNanos);
+            json.append(", \"phases\": {");
+            String phaseSeparator = "";
+            long[] scan = beanScans.get(record.beanName);
+            if (scan != null) {
+                json.append("\"").append(StartupPhase.SCAN.getDisplayName()).append("\": ").append(scan[1] - scan[0]);
+                phaseSeparator = ", ";
+            }
+            for (Map.Entry<StartupPhase, Long> phase : record.phaseNanos().entrySet()) {
+                json.append(phaseSeparator).append('"').append(phase.getKey().getDisplayName()).append("\": ").append(phase.getValue());
+                phaseSeparator = ", ";
+            }
+            json.append('}');
+            if (record.singleton && singletons.get(record.beanName) == record) {
+                json.append(", \"dependencies\": ");
+                appendStringArray(json, new TreeSet<>(dependencies == null ? Collections.<String>emptySet()
+                        : dependencies.getOrDefault(record.beanName, Collections.emptySet())));
+                json.append(", \"critical\": ").append(critical.contains(record.beanName));
+            }
+            json.append('}');
+            separator = ",\n    ";
+        }
+        json.append("\n  ]\n}\n");
+        return json.toString();
+    }
+
+    private String toDot() {
+        Map<String, BeanRecord> singletons = singletonRecords();
+        Set<String> critical = new HashSet<>(criticalPath);
+        Set<String> criticalEdges = new HashSet<>();
+        for (int i = 1; i < criticalPath.size(); i++) {
+            criticalEdges.add(criticalPath.get(i) + "->" + criticalPath.get(i - 1));
+        }
+        StringBuilder dot = new StringBuilder(4096);
+        dot.append("digraph startup {\n  rankdir=LR;\n  node [shape=box, fontname=\"Helvetica\"];\n");
+        Set<String> beanNames = new TreeSet<>(singletons.keySet());
+        if (dependencies != null) {
+            beanNames.addAll(dependencies.keySet());
+        }
+        for (String beanName : beanNames) {
+            BeanRecord record = singletons.get(beanName);
+            dot.append("  ");
+            appendString(dot, beanName);
+            dot.append(" [label=");
+            appendLabel(dot, beanName, record == null ? "未创建" : formatMillis(record.selfNanos()) + " ms");
+            if (critical.contains(beanName)) {
+                dot.append(", color=red, penwidth=2");
+            } else if (record == null) {
+                dot.append(", style=dashed");
+            }
+            dot.append("];\n");
+        }
+        if (dependencies != null) {
+            for (String beanName : beanNames) {
+                for (String dependency : new TreeSet<>(dependencies.getOrDefault(beanName, Collections.emptySet()))) {
+                    dot.append("  ");
+                    appendString(dot, beanName);
+                    dot.append(" -> ");
+                    appendString(dot, dependency);
+                    if (criticalEdges.contains(beanName + "->" + dependency)) {
+                        dot.append(" [color=red, penwidth=2]");
+                    }
+                    dot.append(";\n");
+                }
+            }
+        }
+        dot.append("}\n");
+        return dot.toString();
+    }
+
+    private String toChromeTrace() {
+        StringBuilder trace = new StringBuilder(8192);
+        trace.append("{\"displayTimeUnit\": \"ms\", \"traceEvents\": [");
+        Map<Long, String> threads = new LinkedHashMap<>();
+        String separator = "\n";
+        for (ScanRecord scan : scans) {
+            trace.append(separator);
+            appendCompleteEvent(trace, "scan " + String.join(",", scan.basePackages), "scan", 0, scan.startNanos, scan.endNanos, null);
+            separator = ",\n";
+        }
+        for (Map.Entry<String, long[]> entry : new TreeMap<>(beanScans).entrySet()) {
+            trace.append(separator);
+            appendCompleteEvent(trace, entry.getKey(), StartupPhase.SCAN.getDisplayName(), 0, entry.getValue()[0], entry.getValue()[1], null);
+            separator = ",\n";
+        }
+        for (BeanRecord record : beans) {
+            threads.put(record.threadId, record.threadName);
+            trace.append(separator);
+            Map<String, String> args = new LinkedHashMap<>();
+            args.put("className", record.className);
+            args.put("selfMs", formatMillis(record.selfNanos()));
+            appendCompleteEvent(trace, record.beanName, "bean", record.threadId, record.startNanos, record.endNanos, args);
+            separator = ",\n";
+            for (PhaseRecord phase : record.phases) {
+                trace.append(separator);
+                appendCompleteEvent(trace, phase.phase.getDisplayName(), "phase", record.threadId, phase.startNanos, phase.endNanos, null);
+            }
+        }
+        for (Map.Entry<Long, String> thread : threads.entrySet()) {
+            trace.append(separator).append("{\"name\": \"thread_name\", \"ph\": \"M\", \"pid\": 1, \"tid\": ")
+                    .append(thread.getKey()).append(", \"args\": {\"name\": ");
+            appendString(trace, thread.getValue());
+            trace.append("}}");
+            separator = ",\n";
+        }
+        trace.append("\n]}\n");
+        return trace.toString();
+    }
+
+    /**
+     * 追加一个Chrome Trace的完整事件（ph为X），时间单位为微秒
+     */
+    private void appendCompleteEvent(StringBuilder trace, String name, String category, long threadId,
+                                     long startNanos, long endNanos, Map<String, String> args) {
+        trace.append("{\"name\": ");
+        appendString(trace, name);
+        trace.append(", \"cat\": \"").append(category).append("\", \"ph\": \"X\", \"pid\": 1, \"tid\": ").append(threadId)
+                .append(", \"ts\": ").append(formatMicros(startNanos - originNanos))
+                .append(", \"dur\": ").append(formatMicros(endNanos - startNanos));
+        if (args != null) {
+            trace.append(", \"args\": {");
+            String separator = "";
+            for (Map.Entry<String, String> arg : args.entrySet()) {
+                trace.append(separator);
+                appendString(trace, arg.getKey());
+                trace.append(": ");
+                appendString(trace, arg.getValue());
+                separator = ", ";
+            }
+            trace.append('}');
+        }
+        trace.append('}');
+    }
+
+    private static String formatMicros(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1_000.0);
+    }
+
+    private static String formatMillis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1_000_000.0);
+    }
+
+    private static void appendStringArray(StringBuilder builder, Iterable<String> values) {
+        builder.append('[');
+        String separator = "";
+        for (String value : values) {
+            builder.append(separator);
+            appendString(builder, value);
+            separator = ", ";
+        }
+        builder.append(']');
+    }
+
+    /**
+     * 追加DOT中的两行标签
+     */
+    private static void appendLabel(StringBuilder builder, String firstLine, String secondLine) {
+        builder.append('"');
+        appendEscaped(builder, firstLine);
+        builder.append("\\n");
+        appendEscaped(builder, secondLine);
+        builder.append('"');
+    }
+
+    /**
+     * 追加带引号并转义的字符串，JSON与DOT的转义规则在这里是通用的
+     */
+    private static void appendString(StringBuilder builder, String value) {
+        builder.append('"');
+        appendEscaped(builder, value);
+        builder.append('"');
+    }
+
+    private static void appendEscaped(StringBuilder builder, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    builder.append("\\\"");
+                    break;
+                case '\\':
+                    builder.append("\\\\");
+                    break;
+                case '\n':
+                    builder.append("\\n");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        builder.append(String.format(Locale.ROOT, "\\u%04x", (int) c));
+                    } else {
+                        builder.append(c);
+                    }
+            }
+        }
+    }
+
+    /**
+     * 一次扫描
+     */
+    private static final class ScanRecord {
+        private final String[] basePackages;
+        private final long startNanos;
+        private final long endNanos;
+
+        ScanRecord(String[] basePackages, long startNanos, long endNanos) {
+            this.basePackages = basePackages;
+            this.startNanos = startNanos;
+            this.endNanos = endNanos;
+        }
+    }
+
+    /**
+     * 一个阶段的起止时间
+     */
+    private static final class PhaseRecord {
+        private final StartupPhase phase;
+        private final long startNanos;
+        private final long endNanos;
+
+        PhaseRecord(StartupPhase phase, long startNanos, long endNanos) {
+            this.phase = phase;
+            this.startNanos = startNanos;
+            this.endNanos = endNanos;
+        }
+    }
+
+    /**
+     * 一次Spring Bean的创建，只会被创建它的线程修改
+     */
+    private static final class BeanRecord {
+        private final String beanName;
+        private final String className;
+        private final boolean singleton;
+        private final long threadId;
+        private final String threadName;
+        private final BeanRecord parent;
+        private final long startNanos;
+        private final List<PhaseRecord> phases = new ArrayList<>(6);
+        private long endNanos;
+        /**
+         * 其中嵌套创建单例的耗时
+         */
+        private long nestedSingletonNanos;
+
+        BeanRecord(String beanName, String className, boolean singleton, Thread thread, BeanRecord parent, long startNanos) {
+            this.beanName = beanName;
+            this.className = className;
+            this.singleton = singleton;
+            this.threadId = thread.getId();
+            this.threadName = thread.getName();
+            this.parent = parent;
+            this.startNanos = startNanos;
+        }
+
+        long selfNanos() {
+            return endNanos - startNanos - nestedSingletonNanos;
+        }
+
+        /**
+         * 每个阶段的累计耗时，包含其中嵌套创建单例的耗时
+         */
+        Map<StartupPhase, Long> phaseNanos() {
+            Map<StartupPhase, Long> result = new EnumMap<>(StartupPhase.class);
+            for (PhaseRecord phase : phases) {
+                result.merge(phase.phase, phase.endNanos - phase.startNanos, Long::sum);
+            }
+            return result;
+        }
+    }
+}
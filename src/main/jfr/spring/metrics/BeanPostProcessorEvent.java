@@ -0,0 +1,31 @@
+package spring.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * 调用后置处理器的JFR事件
+ * @author GaoZiYang
+ * @since 2021年11月24日 16:07:39
+ */
+@Name("spring.BeanPostProcessor")
+@Label("Bean Post Processor")
+@Category("LightSpring")
+@StackTrace(false)
+class BeanPostProcessorEvent extends jdk.jfr.Event {
+    @Label("Bean Name")
+    String beanName;
+
+    @Label("Processor")
+    String processor;
+
+    @Label("Phase")
+    String phase;
+
+    @Label("Elapsed")
+    @Timespan(Timespan.NANOSECONDS)
+    long elapsed;
+}
@@ -0,0 +1,28 @@
+package spring.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * 创建Spring Bean的JFR事件
+ * @author GaoZiYang
+ * @since 2021年11月24日 16:05:13
+ */
+@Name("spring.CreateBean")
+@Label("Create Bean")
+@Category("LightSpring")
+@StackTrace(false)
+class CreateBeanEvent extends jdk.jfr.Event {
+    @Label("Bean Name")
+    String beanName;
+
+    @Label("Scope")
+    String scope;
+
+    @Label("Elapsed")
+    @Timespan(Timespan.NANOSECONDS)
+    long elapsed;
+}
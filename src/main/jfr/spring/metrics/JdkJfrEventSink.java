@@ -0,0 +1,43 @@
+package spring.metrics;
+
+/**
+ * 基于 <b>jdk.jfr</b> 的JFR事件提交实现，由 {@link JfrEvents} 通过反射加载
+ * <br/>事件在操作完成后提交，耗时记录在 <b>elapsed</b> 字段中。
+ * @author GaoZiYang
+ * @since 2021年11月24日 16:13:40
+ */
+final class JdkJfrEventSink implements JfrEventSink {
+    @Override
+    public void commitGetBean(String beanName, String scope, long elapsedNanos) {
+        GetBeanEvent event = new GetBeanEvent();
+        if (event.shouldCommit()) {
+            event.beanName = beanName;
+            event.scope = scope;
+            event.elapsed = elapsedNanos;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void commitCreateBean(String beanName, String scope, long elapsedNanos) {
+        CreateBeanEvent event = new CreateBeanEvent();
+        if (event.shouldCommit()) {
+            event.beanName = beanName;
+            event.scope = scope;
+            event.elapsed = elapsedNanos;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void commitBeanPostProcessor(String beanName, String processor, String phase, long elapsedNanos) {
+        BeanPostProcessorEvent event = new BeanPostProcessorEvent();
+        if (event.shouldCommit()) {
+            event.beanName = beanName;
+            event.processor = processor;
+            event.phase = phase;
+            event.elapsed = elapsedNanos;
+            event.commit();
+        }
+    }
+}